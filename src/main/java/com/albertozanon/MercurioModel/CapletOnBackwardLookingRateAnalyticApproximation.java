@@ -0,0 +1,225 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import com.albertozanon.MercurioModel.CapletOnBackwardLookingRate.ValueUnit;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification.StateSpace;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModel;
+import net.finmath.montecarlo.interestrate.products.AbstractLIBORMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Analytic approximation of the value of a backward caplet or backward floorlet in the
+ * {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}.
+ *
+ * In the Mercurio modification the backward looking rate over \( [T_{i}, T_{i+1}] \) is the forward rate \( L_{i}(T_{i+1}) \),
+ * which is a martingale under the \( T_{i+1} \)-forward measure. Its variance is approximated by
+ * \[
+ * 	v = \int_{0}^{T_{i+1}} g_{i}(t)^{2} \left| F_{i}(t) \right|^{2} \mathrm{d}t ,
+ * \]
+ * where \( F_{i} \) is the factor loading of the base covariance model and \( g_{i}(t) = \min( (T_{i+1}-t)^{+}/\delta_{i}, 1) \) is the volatility reduction
+ * of the {@link VolatilityReductionMercurioModel} (if the covariance model is a volatility reduction model, otherwise \( g_{i} = 1 \)).
+ * The factor loadings are assumed to be piecewise constant on the time discretization of the covariance model and \( g_{i}^{2} \) is integrated exactly.
+ * State dependent factor loadings (e.g. of a <code>DisplacedLocalVolatilityModel</code>) are evaluated at the initial forward rates.
+ *
+ * The value is then given by the Bachelier formula (state space <code>NORMAL</code>) or the Black formula (state space <code>LOGNORMAL</code>).
+ * Implied volatilities are calculated with the same conventions as in {@link CapletOnBackwardLookingRate}, such that the product
+ * may replace the Monte-Carlo product in a calibration.
+ *
+ * The approximation uses the initial curves of the model, i.e., it is an approximation of the value as of time 0.
+ */
+public class CapletOnBackwardLookingRateAnalyticApproximation extends AbstractLIBORMonteCarloProduct {
+
+	private final double	maturity;
+	private final double	periodLength;
+	private final double	strike;
+	private final double	daycountFraction;
+	private final boolean	isFloorlet;
+	private final ValueUnit	valueUnit;
+
+	/**
+	 * Create the analytic approximation of a backward caplet or a backward floorlet.
+	 *
+	 * @param maturity The fixing date given as double. The payment is at the period end.
+	 * @param periodLength The length of the forward rate period.
+	 * @param strike The strike given as double.
+	 * @param daycountFraction The daycount fraction used in the payout function.
+	 * @param isFloorlet If true, this object will represent a floorlet, otherwise a caplet.
+	 * @param valueUnit The unit of the value returned by the <code>getValue</code> method.
+	 */
+	public CapletOnBackwardLookingRateAnalyticApproximation(final double maturity, final double periodLength, final double strike, final double daycountFraction, final boolean isFloorlet, final ValueUnit valueUnit) {
+		super();
+		this.maturity = maturity;
+		this.periodLength = periodLength;
+		this.strike = strike;
+		this.daycountFraction = daycountFraction;
+		this.isFloorlet = isFloorlet;
+		this.valueUnit = valueUnit;
+	}
+
+	/**
+	 * Create the analytic approximation of a backward caplet or a backward floorlet.
+	 *
+	 *  ValueUnit is set by default as NORMALVOLATILITY.
+	 *
+	 * @param maturity The fixing date given as double. The payment is at the period end.
+	 * @param periodLength The length of the forward rate period.
+	 * @param strike The strike given as double.
+	 * @param daycountFraction The daycount fraction used in the payout function.
+	 * @param isFloorlet If true, this object will represent a floorlet, otherwise a caplet.
+	 */
+	public CapletOnBackwardLookingRateAnalyticApproximation(final double maturity, final double periodLength, final double strike, final double daycountFraction, final boolean isFloorlet) {
+		this(maturity, periodLength, strike, daycountFraction, isFloorlet, ValueUnit.NORMALVOLATILITY);
+	}
+
+	/**
+	 * This method returns the (deterministic) value of the product within the specified model.
+	 * The model has to be a simulation of a {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}. The simulated paths are not used.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed.
+	 * @param model The model used to price the product.
+	 * @return The random variable representing the value of the product discounted to evaluation time
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	@Override
+	public RandomVariable getValue(final double evaluationTime, final LIBORModelMonteCarloSimulationModel model) throws CalculationException {
+		if(!(model.getModel() instanceof LIBORMarketModelFromCovarianceModelWithMercurioModification)) {
+			throw new IllegalArgumentException("Analytic approximation requires a LIBORMarketModelFromCovarianceModelWithMercurioModification.");
+		}
+		return model.getRandomVariableForConstant(getValue(evaluationTime, (LIBORMarketModelFromCovarianceModelWithMercurioModification)model.getModel()));
+	}
+
+	/**
+	 * This method returns the value of the product within the specified model.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed.
+	 * @param model The model used to price the product.
+	 * @return The value of the product in the unit specified by the <code>valueUnit</code>.
+	 */
+	public double getValue(final double evaluationTime, final LIBORMarketModelFromCovarianceModelWithMercurioModification model) {
+		final TimeDiscretization liborPeriodDiscretization = model.getLiborPeriodDiscretization();
+		final int liborIndex = liborPeriodDiscretization.getTimeIndex(maturity);
+		if(liborIndex < 0 || liborIndex >= liborPeriodDiscretization.getNumberOfTimeSteps() || Math.abs(liborPeriodDiscretization.getTime(liborIndex+1) - (maturity+periodLength)) > 1E-10) {
+			throw new IllegalArgumentException("Period [" + maturity + ", " + (maturity+periodLength) + "] is not a period of the LIBOR discretization.");
+		}
+		final double paymentDate = liborPeriodDiscretization.getTime(liborIndex+1);
+
+		// Initial forward rates and discount factor
+		final double[] initialForwards = new double[liborIndex+1];
+		double discountFactor = 1.0;
+		for(int componentIndex = 0; componentIndex <= liborIndex; componentIndex++) {
+			final double periodStart = liborPeriodDiscretization.getTime(componentIndex);
+			final double liborPeriodLength = liborPeriodDiscretization.getTimeStep(componentIndex);
+			initialForwards[componentIndex] = model.getForwardRateCurve().getForward(model.getAnalyticModel(), periodStart, liborPeriodLength);
+			discountFactor /= 1.0 + initialForwards[componentIndex] * liborPeriodLength;
+		}
+		if(model.getDiscountCurve() != null) {
+			discountFactor = model.getDiscountCurve().getDiscountFactor(model.getAnalyticModel(), paymentDate);
+		}
+		final double forward = initialForwards[liborIndex];
+
+		final double integratedVariance = getIntegratedVariance(evaluationTime, model, liborIndex);
+
+		/*
+		 * Value of the option (using the total variance, i.e., volatility sqrt(v) and maturity 1)
+		 */
+		final double payoffUnit = daycountFraction * discountFactor;
+		double value;
+		if(model.getStateSpace() == StateSpace.NORMAL) {
+			value = AnalyticFormulas.bachelierOptionValue(forward, Math.sqrt(integratedVariance), 1.0, strike, payoffUnit);
+		}
+		else {
+			value = AnalyticFormulas.blackScholesGeneralizedOptionValue(forward, Math.sqrt(integratedVariance), 1.0, strike, payoffUnit);
+		}
+		if(isFloorlet) {
+			// Put-call parity
+			value = value - payoffUnit * (forward - strike);
+		}
+
+		if(valueUnit == ValueUnit.VALUE) {
+			return value;
+		}
+		else if(valueUnit == ValueUnit.LOGNORMALVOLATILITY || valueUnit == ValueUnit.VOLATILITY) {
+			// Same convention as in CapletOnBackwardLookingRate
+			final double forwardValue = forward * discountFactor;
+			final double optionMaturity = maturity-evaluationTime;
+			return AnalyticFormulas.blackScholesOptionImpliedVolatility(forwardValue, optionMaturity, strike, daycountFraction, value);
+		}
+		else if(valueUnit == ValueUnit.NORMALVOLATILITY) {
+			// Same convention as in CapletOnBackwardLookingRate
+			final double forwardValue = forward * discountFactor;
+			final double optionMaturity = maturity-evaluationTime;
+			return AnalyticFormulas.bachelierOptionImpliedVolatility(forwardValue, optionMaturity, strike, daycountFraction, value);
+		}
+		else {
+			throw new IllegalArgumentException("Value unit " + valueUnit + " unsupported.");
+		}
+	}
+
+	/*
+	 * Calculate \int_{evaluationTime}^{T_{i+1}} g(t)^2 |F_i(t)|^2 dt with F_i piecewise constant on the time discretization of the covariance model.
+	 * The factor loadings are looked up by time and period start, since the covariance model may use other discretizations than the model.
+	 */
+	private double getIntegratedVariance(final double evaluationTime, final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final int liborIndex) {
+		LIBORCovarianceModel covarianceModel = model.getCovarianceModel();
+		boolean isVolatilityReduction = false;
+		while(covarianceModel instanceof VolatilityReductionMercurioModel) {
+			covarianceModel = ((VolatilityReductionMercurioModel)covarianceModel).getBaseCovarianceModel();
+			isVolatilityReduction = true;
+		}
+
+		// Initial forward rates on the LIBOR periods of the covariance model (used as frozen state for state dependent factor loadings)
+		final TimeDiscretization covarianceLiborPeriodDiscretization = covarianceModel.getLiborPeriodDiscretization();
+		final RandomVariable[] initialRealization = new RandomVariable[covarianceLiborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int componentIndex = 0; componentIndex < initialRealization.length; componentIndex++) {
+			final double forward = model.getForwardRateCurve().getForward(model.getAnalyticModel(), covarianceLiborPeriodDiscretization.getTime(componentIndex), covarianceLiborPeriodDiscretization.getTimeStep(componentIndex));
+			initialRealization[componentIndex] = model.getRandomVariableForConstant(forward);
+		}
+
+		final TimeDiscretization liborPeriodDiscretization = model.getLiborPeriodDiscretization();
+		final double periodStart	= liborPeriodDiscretization.getTime(liborIndex);
+		final double periodEnd		= liborPeriodDiscretization.getTime(liborIndex+1);
+		final double periodLength	= periodEnd - periodStart;
+
+		final TimeDiscretization timeDiscretization = covarianceModel.getTimeDiscretization();
+		double integratedVariance = 0.0;
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimes(); timeIndex++) {
+			final double intervalStart = Math.max(timeDiscretization.getTime(timeIndex), evaluationTime);
+			final double intervalEnd = timeIndex+1 < timeDiscretization.getNumberOfTimes() ? Math.min(timeDiscretization.getTime(timeIndex+1), periodEnd) : periodEnd;
+			if(intervalEnd <= intervalStart) {
+				continue;
+			}
+
+			final RandomVariable[] factorLoading = covarianceModel.getFactorLoading(timeDiscretization.getTime(timeIndex), periodStart, initialRealization);
+			double squaredFactorLoading = 0.0;
+			for(final RandomVariable oneFactor : factorLoading) {
+				squaredFactorLoading += oneFactor.get(0) * oneFactor.get(0);
+			}
+
+			double integratedReduction;
+			if(isVolatilityReduction) {
+				// g = 1 before the period start, g(t) = (T_{i+1}-t)/delta within the period
+				final double intervalStartInPeriod = Math.max(intervalStart, periodStart);
+				integratedReduction = Math.max(Math.min(intervalEnd, periodStart) - intervalStart, 0.0);
+				if(intervalEnd > intervalStartInPeriod) {
+					integratedReduction += (Math.pow(periodEnd-intervalStartInPeriod, 3) - Math.pow(periodEnd-intervalEnd, 3)) / (3.0 * periodLength * periodLength);
+				}
+			}
+			else {
+				integratedReduction = intervalEnd - intervalStart;
+			}
+
+			integratedVariance += squaredFactorLoading * integratedReduction;
+		}
+
+		return integratedVariance;
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import java.util.Arrays;
+
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Calculates the drift of {@link LIBORMarketModelFromCovarianceModelWithMercurioModification} on primitive arrays.
+ * <br>
+ * The realizations of the forward rates and of the (stochastic) factor loadings are copied into <code>double[]</code>
+ * buffers, which are kept per thread and reused across calls. The drift of all components is then calculated in a single
+ * loop over the paths, such that the only allocations are the arrays holding the result.
+ * <br>
+ * The arithmetic operations are carried out in the same order as in the <code>RandomVariable</code> based implementation
+ * of {@link LIBORMarketModelFromCovarianceModelWithMercurioModification#getDrift(net.finmath.montecarlo.process.MonteCarloProcess, int, RandomVariable[], RandomVariable[])},
+ * hence both give identical results.
+ * <br>
+ * The kernel works on <code>double</code> values only, hence it cannot be used if any of the random variables carries
+ * derivative information (see {@link #isApplicable(RandomVariable[], RandomVariable[][], int)}).
+ */
+final class FusedDriftKernel {
+
+	/**
+	 * Thread local scratch buffers, reused across calls.
+	 */
+	private static final class Buffers {
+		private double[]		periodLengths			= new double[0];
+		private double[]		covarianceFactorSums	= new double[0];
+		private double[][]		libor					= new double[0][];
+		private double[][]		factorLoadingValues		= new double[0][];
+		private double[][][]	factorLoadingBuffers	= new double[0][][];
+		private double[][][]	factorLoadingRealizations	= new double[0][][];
+
+		private Buffers ensureCapacity(final int numberOfComponents, final int numberOfFactors, final int numberOfPaths) {
+			if(periodLengths.length < numberOfComponents) {
+				periodLengths = new double[numberOfComponents];
+			}
+			if(covarianceFactorSums.length < numberOfFactors) {
+				covarianceFactorSums = new double[numberOfFactors];
+			}
+			if(libor.length < numberOfComponents) {
+				libor						= Arrays.copyOf(libor, numberOfComponents);
+				factorLoadingValues			= Arrays.copyOf(factorLoadingValues, numberOfComponents);
+				factorLoadingBuffers		= Arrays.copyOf(factorLoadingBuffers, numberOfComponents);
+				factorLoadingRealizations	= Arrays.copyOf(factorLoadingRealizations, numberOfComponents);
+			}
+			for(int componentIndex=0; componentIndex<numberOfComponents; componentIndex++) {
+				if(libor[componentIndex] == null || libor[componentIndex].length < numberOfPaths) {
+					libor[componentIndex] = new double[numberOfPaths];
+				}
+				if(factorLoadingValues[componentIndex] == null || factorLoadingValues[componentIndex].length < numberOfFactors) {
+					factorLoadingValues[componentIndex]			= new double[numberOfFactors];
+					factorLoadingBuffers[componentIndex]		= new double[numberOfFactors][];
+					factorLoadingRealizations[componentIndex]	= new double[numberOfFactors][];
+				}
+			}
+			return this;
+		}
+
+		private double[] getFactorLoadingBuffer(final int componentIndex, final int factorIndex, final int numberOfPaths) {
+			double[] buffer = factorLoadingBuffers[componentIndex][factorIndex];
+			if(buffer == null || buffer.length < numberOfPaths) {
+				buffer = new double[numberOfPaths];
+				factorLoadingBuffers[componentIndex][factorIndex] = buffer;
+			}
+			return buffer;
+		}
+	}
+
+	private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+	private FusedDriftKernel() {
+	}
+
+	/**
+	 * Checks if the kernel can be applied to the given arguments, i.e., if none of the random variables
+	 * carries derivative information.
+	 *
+	 * @param realizationAtTimeIndex The forward rates at the current time index.
+	 * @param factorLoadings The factor loadings for the components <code>firstLiborIndex</code>, ..., <code>n-1</code>.
+	 * @param firstLiborIndex The index of the first component that is still alive.
+	 * @return True, if the drift may be calculated on primitive arrays.
+	 */
+	static boolean isApplicable(final RandomVariable[] realizationAtTimeIndex, final RandomVariable[][] factorLoadings, final int firstLiborIndex) {
+		for(int componentIndex=firstLiborIndex; componentIndex<factorLoadings.length; componentIndex++) {
+			if(realizationAtTimeIndex[componentIndex] == null || realizationAtTimeIndex[componentIndex] instanceof RandomVariableDifferentiable) {
+				return false;
+			}
+			for(final RandomVariable factorLoading : factorLoadings[componentIndex]) {
+				if(factorLoading == null || factorLoading instanceof RandomVariableDifferentiable) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calculates the drift vector.
+	 *
+	 * @param randomVariableFactory The factory used to create the result.
+	 * @param time The current time \( t \).
+	 * @param liborPeriodDiscretization The tenor discretization.
+	 * @param isSpotMeasure If true, the drift under the spot measure is calculated, otherwise under the terminal measure.
+	 * @param isLogNormal If true, the drift of the log-coordinates is calculated (including the -0.5 variance adjustment).
+	 * @param firstLiborIndex The index of the first component that is still alive. Components below this index have a drift of <code>null</code>.
+	 * @param realizationAtTimeIndex The forward rates at the current time index.
+	 * @param factorLoadings The factor loadings for the components <code>firstLiborIndex</code>, ..., <code>n-1</code>.
+	 * @return The drift vector.
+	 */
+	static RandomVariable[] getDrift(
+			final RandomVariableFactory	randomVariableFactory,
+			final double				time,
+			final TimeDiscretization	liborPeriodDiscretization,
+			final boolean				isSpotMeasure,
+			final boolean				isLogNormal,
+			final int					firstLiborIndex,
+			final RandomVariable[]		realizationAtTimeIndex,
+			final RandomVariable[][]	factorLoadings) {
+
+		final int numberOfComponents = factorLoadings.length;
+		final RandomVariable[] drift = new RandomVariable[numberOfComponents];
+		if(firstLiborIndex >= numberOfComponents) {
+			return drift;
+		}
+
+		final int numberOfFactors = factorLoadings[firstLiborIndex].length;
+
+		// Determine the number of paths (1 if all inputs are deterministic)
+		boolean isDeterministic = true;
+		int numberOfPaths = 1;
+		for(int componentIndex=firstLiborIndex; componentIndex<numberOfComponents; componentIndex++) {
+			final RandomVariable libor = realizationAtTimeIndex[componentIndex];
+			if(!libor.isDeterministic()) {
+				isDeterministic = false;
+				numberOfPaths = Math.max(numberOfPaths, libor.size());
+			}
+			for(final RandomVariable factorLoading : factorLoadings[componentIndex]) {
+				if(!factorLoading.isDeterministic()) {
+					isDeterministic = false;
+					numberOfPaths = Math.max(numberOfPaths, factorLoading.size());
+				}
+			}
+		}
+
+		/*
+		 * Copy realizations to the scratch buffers. Deterministic factor loadings are kept as scalars.
+		 */
+		final Buffers scratch = buffers.get().ensureCapacity(numberOfComponents, numberOfFactors, numberOfPaths);
+		final double[]		periodLengths				= scratch.periodLengths;
+		final double[]		covarianceFactorSums		= scratch.covarianceFactorSums;
+		final double[][]	libor						= scratch.libor;
+		final double[][]	factorLoadingValues			= scratch.factorLoadingValues;
+		final double[][][]	factorLoadingRealizations	= scratch.factorLoadingRealizations;
+		for(int componentIndex=firstLiborIndex; componentIndex<numberOfComponents; componentIndex++) {
+			periodLengths[componentIndex] = liborPeriodDiscretization.getTimeStep(componentIndex);
+
+			final RandomVariable liborOfComponent = realizationAtTimeIndex[componentIndex];
+			final double[] liborBuffer = libor[componentIndex];
+			for(int path=0; path<numberOfPaths; path++) {
+				liborBuffer[path] = liborOfComponent.get(path);
+			}
+
+			for(int factorIndex=0; factorIndex<numberOfFactors; factorIndex++) {
+				final RandomVariable factorLoading = factorLoadings[componentIndex][factorIndex];
+				if(factorLoading.isDeterministic()) {
+					factorLoadingValues[componentIndex][factorIndex]		= factorLoading.get(0);
+					factorLoadingRealizations[componentIndex][factorIndex]	= null;
+				}
+				else {
+					final double[] factorLoadingBuffer = scratch.getFactorLoadingBuffer(componentIndex, factorIndex, numberOfPaths);
+					for(int path=0; path<numberOfPaths; path++) {
+						factorLoadingBuffer[path] = factorLoading.get(path);
+					}
+					factorLoadingRealizations[componentIndex][factorIndex]	= factorLoadingBuffer;
+				}
+			}
+		}
+
+		final double[][] driftRealizations = new double[numberOfComponents][];
+		for(int componentIndex=firstLiborIndex; componentIndex<numberOfComponents; componentIndex++) {
+			driftRealizations[componentIndex] = new double[numberOfPaths];
+		}
+
+		/*
+		 * Fused path-major loop. The order of the operations is the same as in the RandomVariable implementation:
+		 * oneStepMeasureTransform = periodLength / (1 + L * periodLength) (times L for log-normal),
+		 * sum = sum +/- oneStepMeasureTransform * lambda, drift = drift + sum * lambda, drift = drift + variance * (-0.5).
+		 */
+		for(int path=0; path<numberOfPaths; path++) {
+			Arrays.fill(covarianceFactorSums, 0, numberOfFactors, 0.0);
+
+			if(isSpotMeasure) {
+				for(int componentIndex=firstLiborIndex; componentIndex<numberOfComponents; componentIndex++) {
+					driftRealizations[componentIndex][path] = getDriftOfComponent(true, isLogNormal, periodLengths[componentIndex], libor[componentIndex][path],
+							factorLoadingValues[componentIndex], factorLoadingRealizations[componentIndex], numberOfFactors, path, covarianceFactorSums);
+				}
+			}
+			else {
+				for(int componentIndex=numberOfComponents-1; componentIndex>=firstLiborIndex; componentIndex--) {
+					driftRealizations[componentIndex][path] = getDriftOfComponent(false, isLogNormal, periodLengths[componentIndex], libor[componentIndex][path],
+							factorLoadingValues[componentIndex], factorLoadingRealizations[componentIndex], numberOfFactors, path, covarianceFactorSums);
+				}
+			}
+		}
+
+		for(int componentIndex=firstLiborIndex; componentIndex<numberOfComponents; componentIndex++) {
+			if(isDeterministic) {
+				drift[componentIndex] = randomVariableFactory.createRandomVariable(time, driftRealizations[componentIndex][0]);
+			}
+			else {
+				drift[componentIndex] = randomVariableFactory.createRandomVariable(time, driftRealizations[componentIndex]);
+			}
+		}
+
+		return drift;
+	}
+
+	private static double getDriftOfComponent(
+			final boolean	isSpotMeasure,
+			final boolean	isLogNormal,
+			final double	periodLength,
+			final double	libor,
+			final double[]	factorLoadingValues,
+			final double[][] factorLoadingRealizations,
+			final int		numberOfFactors,
+			final int		path,
+			final double[]	covarianceFactorSums) {
+
+		double oneStepMeasureTransform = periodLength / (1.0 + libor * periodLength);
+		if(isLogNormal) {
+			oneStepMeasureTransform = oneStepMeasureTransform * libor;
+		}
+
+		double drift = 0.0;
+		double variance = 0.0;
+		for(int factorIndex=0; factorIndex<numberOfFactors; factorIndex++) {
+			final double[] factorLoadingRealization = factorLoadingRealizations[factorIndex];
+			final double factorLoading = factorLoadingRealization != null ? factorLoadingRealization[path] : factorLoadingValues[factorIndex];
+
+			if(isSpotMeasure) {
+				covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex] + oneStepMeasureTransform * factorLoading;
+				drift = drift + covarianceFactorSums[factorIndex] * factorLoading;
+			}
+			else {
+				drift = drift + covarianceFactorSums[factorIndex] * factorLoading;
+				covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex] - oneStepMeasureTransform * factorLoading;
+			}
+
+			variance = factorIndex == 0 ? factorLoading * factorLoading : variance + factorLoading * factorLoading;
+		}
+
+		if(isLogNormal) {
+			// Drift adjustment for log-coordinate
+			drift = drift + variance * -0.5;
+		}
+
+		return drift;
+	}
+}
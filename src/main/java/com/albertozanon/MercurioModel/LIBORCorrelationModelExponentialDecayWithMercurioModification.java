@@ -5,6 +5,9 @@
  */
 package com.albertozanon.MercurioModel;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import net.finmath.functions.LinearAlgebra;
@@ -20,19 +23,89 @@ import net.finmath.time.TimeDiscretization;
  * \( n \) Eigenvectors of \( \tilde{R} \) belonging to the \( n \) largest non-negative Eigenvalues,
  * where \( \tilde{R} = \tilde{\rho}_{i,j} \) and \[ \tilde{\rho}_{i,j} = \exp( -\max(a,0) | T_{i+1}-T_{j+1} | ) \]
  *
+ * The factor matrices are kept in a (process wide) cache with least recently used eviction, keyed by the decay parameter,
+ * the number of factors and the tenor, which is bounded by the number of stored doubles. The correlation matrix of the factor reduced model,
+ * the explained variance and the residual correlation error are calculated when requested.
+ * For large tenors (at least 200 periods) and a small number of factors (at most a tenth of the number of periods)
+ * only the requested eigenvectors are calculated by a subspace iteration (see {@link TruncatedEigenDecomposition}).
+ *
+ * Instead of a given number of factors, the model may be created with the smallest number of factors explaining a given share of the
+ * variance of \( \tilde{R} \) (see {@link #ofExplainedVariance(TimeDiscretization, TimeDiscretization, double, double, boolean)}).
+ * The number of factors is then fixed, i.e., it is not changed by clones with modified parameters.
  *
  */
 public class LIBORCorrelationModelExponentialDecayWithMercurioModification extends LIBORCorrelationModel {
 
 	private static final long serialVersionUID = -8218022418731667531L;
 
+	private static final long	maxNumberOfCachedDoubles				= 4000000;		// 32 MB
+	private static final int	minSizeForTruncatedEigenDecomposition	= 200;
+
+	// Process wide cache of factor decompositions (least recently used are evicted), guarded by synchronized(factorDecompositionCache)
+	private static final Map<FactorDecompositionKey, FactorDecomposition> factorDecompositionCache = new LinkedHashMap<>(16, 0.75f, true);
+
+	// The number of doubles stored in factorDecompositionCache (keys and values), guarded by synchronized(factorDecompositionCache)
+	private static long numberOfCachedDoubles;
+
+	/**
+	 * Key of the factor decomposition cache: decay parameter, number of factors and the period end times \( T_{i+1} \).
+	 */
+	private static final class FactorDecompositionKey {
+		private final double	a;
+		private final int		numberOfFactors;
+		private final double[]	periodEndTimes;
+		private final int		hashCode;
+
+		private FactorDecompositionKey(final double a, final int numberOfFactors, final double[] periodEndTimes) {
+			this.a = a;
+			this.numberOfFactors = numberOfFactors;
+			this.periodEndTimes = periodEndTimes;
+			this.hashCode = 31 * (31 * Double.hashCode(a) + numberOfFactors) + Arrays.hashCode(periodEndTimes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if(this == other) {
+				return true;
+			}
+			if(!(other instanceof FactorDecompositionKey)) {
+				return false;
+			}
+			final FactorDecompositionKey key = (FactorDecompositionKey)other;
+			return Double.compare(a, key.a) == 0 && numberOfFactors == key.numberOfFactors && Arrays.equals(periodEndTimes, key.periodEndTimes);
+		}
+	}
+
+	/**
+	 * The (immutable) factor matrix and, if available as a by-product of the decomposition, the explained variance (otherwise NaN).
+	 * Shared between all models using the same key.
+	 */
+	private static final class FactorDecomposition {
+		private final double[][]	factorMatrix;
+		private final double		explainedVariance;
+
+		private FactorDecomposition(final double[][] factorMatrix, final double explainedVariance) {
+			this.factorMatrix = factorMatrix;
+			this.explainedVariance = explainedVariance;
+		}
+	}
+
 	private final	int			numberOfFactors;
 	private final 	double		a;
 	private final	boolean		isCalibrateable;
 
-	private double[][]	correlationMatrix;
 	private double[][]	factorMatrix;
 
+	// Calculated when requested
+	private transient volatile double[][]	correlationMatrix;
+	private volatile double		explainedVariance			= Double.NaN;
+	private volatile double		residualCorrelationError	= Double.NaN;
+
 	/**
 	 * Create a correlation model with an exponentially decaying correlation structure and the given number of factors.
 	 *
@@ -62,13 +135,77 @@ public class LIBORCorrelationModelExponentialDecayWithMercurioModification exten
 		initialize(numberOfFactors, a);
 	}
 
+	/**
+	 * Create a correlation model with an exponentially decaying correlation structure, using the smallest number of factors
+	 * such that the factors explain (at least) the given share of the variance, i.e., the sum of the largest eigenvalues of \( \tilde{R} \)
+	 * divided by the sum of all eigenvalues is larger or equal than the given share.
+	 *
+	 * The number of factors of the model is available via {@link #getNumberOfFactors()} and should be used to create the <code>BrownianMotion</code>.
+	 *
+	 * @param timeDiscretization Simulation time dicretization. Not used.
+	 * @param liborPeriodDiscretization TenorFromArray time discretization, i.e., the \( T_{i} \)'s.
+	 * @param explainedVariance The share of the variance to be explained, e.g., 0.995.
+	 * @param a Decay parameter. Should be positive. Negative values will be floored to 0.
+	 * @param isCalibrateable If true, the parameter will become a free parameter in a calibration.
+	 * @return The correlation model.
+	 */
+	public static LIBORCorrelationModelExponentialDecayWithMercurioModification ofExplainedVariance(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final double explainedVariance, final double a, final boolean isCalibrateable) {
+		final int numberOfFactors = getNumberOfFactorsForExplainedVariance(liborPeriodDiscretization, explainedVariance, a);
+		return new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, a, isCalibrateable);
+	}
+
+	/**
+	 * Returns the smallest number of factors such that the factors explain (at least) the given share of the variance
+	 * of the correlation matrix \( \tilde{R} \) of this model.
+	 *
+	 * @param liborPeriodDiscretization TenorFromArray time discretization, i.e., the \( T_{i} \)'s.
+	 * @param explainedVariance The share of the variance to be explained, e.g., 0.995.
+	 * @param a Decay parameter. Should be positive. Negative values will be floored to 0.
+	 * @return The number of factors.
+	 */
+	public static int getNumberOfFactorsForExplainedVariance(final TimeDiscretization liborPeriodDiscretization, final double explainedVariance, final double a) {
+		if(!(explainedVariance > 0 && explainedVariance <= 1)) {
+			throw new IllegalArgumentException("Explained variance has to be in (0,1].");
+		}
+
+		final double[] periodEndTimes = getPeriodEndTimes(liborPeriodDiscretization);
+		final double[][] correlationMatrix = getCorrelationMatrix(Math.max(a, 0), periodEndTimes);
+
+		// The trace of a correlation matrix is the number of components. Calculate the largest eigenvalues for increasing number of factors.
+		final double totalVariance = correlationMatrix.length;
+		int numberOfEigenvalues = Math.min(4, correlationMatrix.length);
+		while(true) {
+			final double[] eigenvalues = TruncatedEigenDecomposition.getLargestEigenvalues(correlationMatrix, numberOfEigenvalues);
+			double variance = 0.0;
+			for(int factor=0; factor<eigenvalues.length; factor++) {
+				variance += Math.max(eigenvalues[factor], 0.0);
+				if(variance >= explainedVariance * totalVariance) {
+					return factor+1;
+				}
+			}
+			if(numberOfEigenvalues == correlationMatrix.length) {
+				return correlationMatrix.length;
+			}
+			numberOfEigenvalues = Math.min(2 * numberOfEigenvalues, correlationMatrix.length);
+		}
+	}
+
+	/**
+	 * Returns a clone of this model with the given decay parameter. The clone is calibrateable like this model, i.e., its parameter is
+	 * returned by {@link #getParameter()} and it may be modified again (as required, e.g., by the iterations of a calibration).
+	 * If this model is not calibrateable, the model itself is returned.
+	 *
+	 * @param parameter The decay parameter.
+	 * @return A clone of this model with the given decay parameter.
+	 */
 	@Override
 	public LIBORCorrelationModelExponentialDecayWithMercurioModification getCloneWithModifiedParameter(final RandomVariable[] parameter) {
 		if(!isCalibrateable) {
 			return this;
 		}
 
-		return new LIBORCorrelationModelExponentialDecayWithMercurioModification(getTimeDiscretization(), getLiborPeriodDiscretization(), numberOfFactors, parameter[0].doubleValue());
+		// The parameter enters the factor decomposition as double, i.e., it is not differentiable.
+		return new LIBORCorrelationModelExponentialDecayWithMercurioModification(getTimeDiscretization(), getLiborPeriodDiscretization(), numberOfFactors, parameter[0].doubleValue(), isCalibrateable);
 	}
 
 	@Override
@@ -83,6 +220,12 @@ public class LIBORCorrelationModelExponentialDecayWithMercurioModification exten
 
 	@Override
 	public double	getCorrelation(final int timeIndex, final int component1, final int component2) {
+		double[][] correlationMatrix = this.correlationMatrix;
+		if(correlationMatrix == null) {
+			// Threads racing here calculate the same matrix
+			correlationMatrix = getReducedCorrelationMatrix(factorMatrix);
+			this.correlationMatrix = correlationMatrix;
+		}
 		return correlationMatrix[component1][component2];
 	}
 
@@ -91,30 +234,165 @@ public class LIBORCorrelationModelExponentialDecayWithMercurioModification exten
 		return factorMatrix[0].length;
 	}
 
-	private void initialize(final int numberOfFactors, double a) {
-		/*
-		 * Create instantaneous correlation matrix
-		 */
+	/**
+	 * Returns the share of the variance of the correlation matrix \( \tilde{R} \) explained by the factors of this model,
+	 * i.e., the sum of the <code>getNumberOfFactors()</code> largest eigenvalues divided by the sum of all eigenvalues.
+	 *
+	 * @return The explained variance.
+	 */
+	public double	getExplainedVariance() {
+		if(Double.isNaN(explainedVariance)) {
+			final double[][] correlationMatrix = getCorrelationMatrix(Math.max(a, 0), getPeriodEndTimes(getLiborPeriodDiscretization()));
+
+			/*
+			 * The columns of the (not normalized) factor matrix are the eigenvectors scaled by the square roots of the eigenvalues,
+			 * i.e., the sum of the squares of a column is the eigenvalue. The trace of the correlation matrix is the number of components.
+			 */
+			final double[][] factorMatrixOfEigenvectors = LinearAlgebra.getFactorMatrix(correlationMatrix, getNumberOfFactors());
+			double variance = 0.0;
+			for(final double[] factorLoadings : factorMatrixOfEigenvectors) {
+				for(final double factorLoading : factorLoadings) {
+					// Negative eigenvalues (numerically zero) give NaN
+					if(!Double.isNaN(factorLoading)) {
+						variance += factorLoading * factorLoading;
+					}
+				}
+			}
+			explainedVariance = variance / correlationMatrix.length;
+		}
+		return explainedVariance;
+	}
+
+	/**
+	 * Returns the maximum absolute difference of the correlation \( \tilde{\rho}_{i,j} \) and the correlation of the factor reduced model.
+	 *
+	 * @return The residual correlation error.
+	 */
+	public double	getResidualCorrelationError() {
+		if(Double.isNaN(residualCorrelationError)) {
+			final double[] periodEndTimes = getPeriodEndTimes(getLiborPeriodDiscretization());
+			double error = 0.0;
+			for(int component1=0; component1<factorMatrix.length; component1++) {
+				for(int component2=0; component2<component1; component2++) {
+					double correlation = 0.0;
+					for(int factor=0; factor<factorMatrix[component1].length; factor++) {
+						correlation += factorMatrix[component1][factor] * factorMatrix[component2][factor];
+					}
+					error = Math.max(error, Math.abs(correlation - Math.exp(-Math.max(a, 0) * Math.abs(periodEndTimes[component1]-periodEndTimes[component2]))));
+				}
+			}
+			residualCorrelationError = error;
+		}
+		return residualCorrelationError;
+	}
 
+	private void initialize(final int numberOfFactors, double a) {
 		// Negative values of a do not make sense.
 		a = Math.max(a, 0);
 
-		correlationMatrix = new double[getLiborPeriodDiscretization().getNumberOfTimeSteps()][getLiborPeriodDiscretization().getNumberOfTimeSteps()];
+		final double[] periodEndTimes = getPeriodEndTimes(getLiborPeriodDiscretization());
+		final FactorDecompositionKey key = new FactorDecompositionKey(a, numberOfFactors, periodEndTimes);
+
+		FactorDecomposition factorDecomposition;
+		synchronized (factorDecompositionCache) {
+			factorDecomposition = factorDecompositionCache.get(key);
+		}
+		if(factorDecomposition == null) {
+			// Calculated outside the lock (threads racing here calculate the same decomposition)
+			factorDecomposition = createFactorDecomposition(numberOfFactors, a, periodEndTimes);
+			synchronized (factorDecompositionCache) {
+				putFactorDecomposition(key, factorDecomposition);
+			}
+		}
+
+		factorMatrix = factorDecomposition.factorMatrix;
+		explainedVariance = factorDecomposition.explainedVariance;
+	}
+
+	/*
+	 * Put a factor decomposition into the cache and evict the least recently used ones until the number of cached doubles is within its bound.
+	 * Decompositions exceeding the bound are not cached. Has to be called while holding the lock of the cache.
+	 */
+	private static void putFactorDecomposition(final FactorDecompositionKey key, final FactorDecomposition factorDecomposition) {
+		final long numberOfDoubles = getNumberOfDoubles(key, factorDecomposition);
+		if(numberOfDoubles > maxNumberOfCachedDoubles) {
+			return;
+		}
+
+		final FactorDecomposition factorDecompositionPrevious = factorDecompositionCache.put(key, factorDecomposition);
+		if(factorDecompositionPrevious != null) {
+			numberOfCachedDoubles -= getNumberOfDoubles(key, factorDecompositionPrevious);
+		}
+		numberOfCachedDoubles += numberOfDoubles;
+
+		// Iteration starts at the least recently used entry, the entry just put is the last one
+		final Iterator<Map.Entry<FactorDecompositionKey, FactorDecomposition>> entries = factorDecompositionCache.entrySet().iterator();
+		while(numberOfCachedDoubles > maxNumberOfCachedDoubles && entries.hasNext()) {
+			final Map.Entry<FactorDecompositionKey, FactorDecomposition> entry = entries.next();
+			numberOfCachedDoubles -= getNumberOfDoubles(entry.getKey(), entry.getValue());
+			entries.remove();
+		}
+	}
+
+	private static long getNumberOfDoubles(final FactorDecompositionKey key, final FactorDecomposition factorDecomposition) {
+		return key.periodEndTimes.length + (long)factorDecomposition.factorMatrix.length * factorDecomposition.factorMatrix[0].length;
+	}
+
+	private static double[] getPeriodEndTimes(final TimeDiscretization liborPeriodDiscretization) {
+		final double[] periodEndTimes = new double[liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int periodIndex=0; periodIndex<periodEndTimes.length; periodIndex++) {
+			periodEndTimes[periodIndex] = liborPeriodDiscretization.getTime(periodIndex+1);
+		}
+		return periodEndTimes;
+	}
+
+	/*
+	 * Create instantaneous correlation matrix
+	 */
+	private static double[][] getCorrelationMatrix(final double a, final double[] periodEndTimes) {
+		final double[][] correlationMatrix = new double[periodEndTimes.length][periodEndTimes.length];
 		for(int row=0; row<correlationMatrix.length; row++) {
 			for(int col=0; col<correlationMatrix[row].length; col++) {
 				// Exponentially decreasing instantaneous correlation
 //----> MERCURIO:
 //				correlationMatrix[row][col] = Math.exp(-a * Math.abs(getLiborPeriodDiscretization().getTime(row)-getLiborPeriodDiscretization().getTime(col)));
-				correlationMatrix[row][col] = Math.exp(-a * Math.abs(getLiborPeriodDiscretization().getTime(row+1)-getLiborPeriodDiscretization().getTime(col+1)));
+				correlationMatrix[row][col] = Math.exp(-a * Math.abs(periodEndTimes[row]-periodEndTimes[col]));
 
 			}
 		}
+		return correlationMatrix;
+	}
+
+	private static FactorDecomposition createFactorDecomposition(final int numberOfFactors, final double a, final double[] periodEndTimes) {
+		final double[][] correlationMatrix = getCorrelationMatrix(a, periodEndTimes);
 
 		/*
 		 * Perform a factor decomposition (and reduction if numberOfFactors < correlationMatrix.columns())
 		 */
-		factorMatrix = LinearAlgebra.factorReduction(correlationMatrix, numberOfFactors);
+		if(correlationMatrix.length >= minSizeForTruncatedEigenDecomposition && 10 * numberOfFactors <= correlationMatrix.length) {
+			// The eigenvalues are a by-product of the truncated decomposition
+			final double[] eigenvalues = new double[Math.min(numberOfFactors, correlationMatrix.length)];
+			final double[][] factorMatrix = TruncatedEigenDecomposition.factorReduction(correlationMatrix, numberOfFactors, eigenvalues);
+
+			// Share of the variance explained by the factors (the trace of the correlation matrix is the number of components)
+			double explainedVariance = 0.0;
+			for(final double eigenvalue : eigenvalues) {
+				explainedVariance += Math.max(eigenvalue, 0.0) / correlationMatrix.length;
+			}
+
+			return new FactorDecomposition(factorMatrix, explainedVariance);
+		}
+		else {
+			// LinearAlgebra does not expose the eigenvalues, the explained variance is calculated when requested
+			return new FactorDecomposition(LinearAlgebra.factorReduction(correlationMatrix, numberOfFactors), Double.NaN);
+		}
+	}
 
+	/*
+	 * The correlation matrix F F^T of the factor reduced model.
+	 */
+	private static double[][] getReducedCorrelationMatrix(final double[][] factorMatrix) {
+		final double[][] correlationMatrix = new double[factorMatrix.length][factorMatrix.length];
 		for(int component1=0; component1<factorMatrix.length; component1++) {
 			for(int component2=0; component2<component1; component2++) {
 				double correlation = 0.0;
@@ -126,6 +404,7 @@ public class LIBORCorrelationModelExponentialDecayWithMercurioModification exten
 			}
 			correlationMatrix[component1][component1] = 1.0;
 		}
+		return correlationMatrix;
 	}
 
 	@Override
@@ -0,0 +1,194 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.optimizer.LevenbergMarquardt;
+import net.finmath.optimizer.SolverException;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Calibration of the parameters of a covariance model of the {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}
+ * using a Levenberg-Marquardt optimizer where the Jacobian is calculated by adjoint automatic differentiation (AAD).
+ *
+ * For each evaluation of the objective function the parameters are represented by
+ * <code>RandomVariableDifferentiable</code> objects. The model is simulated once and the gradient of each calibration product
+ * with respect to all parameters is obtained from a single backward sweep. Hence the cost of one iteration is
+ * (roughly) independent of the number of parameters, while a finite difference Jacobian requires one simulation per parameter.
+ *
+ * The calibration products have to return the value in the unit in which the target is given, carrying the
+ * dependency on the model parameters, i.e., products returning an implied volatility via <code>getRandomVariableForConstant</code>
+ * cannot be used. Use products with value unit <code>VALUE</code> and target prices instead.
+ *
+ * Parameters, which do not enter the model as random variables (e.g. the decay parameter of
+ * {@link LIBORCorrelationModelExponentialDecayWithMercurioModification}, which is used to build a factor decomposition), have
+ * a derivative of zero. Such parameters should not be calibrateable.
+ */
+public class LIBORCovarianceModelCalibrationAAD {
+
+	private final LIBORMarketModelFromCovarianceModelWithMercurioModification	calibrationModel;
+	private final AbstractLIBORCovarianceModelParametric						covarianceModel;
+	private final CalibrationProduct[]											calibrationProducts;
+	private final BrownianMotion												brownianMotion;
+	private final int															maxIterations;
+	private final double														accuracy;
+
+	private final RandomVariableDifferentiableAADFactory randomVariableFactory = new RandomVariableDifferentiableAADFactory();
+
+	private int numberOfIterations;
+	private double rootMeanSquaredError;
+
+	/**
+	 * Create the calibration of a covariance model.
+	 *
+	 * @param calibrationModel The model used in the calibration (the covariance model of the model is replaced by the one calibrated).
+	 * @param covarianceModel The covariance model providing the initial parameters.
+	 * @param calibrationProducts The calibration products (providing values which depend on the parameters, see class documentation).
+	 * @param brownianMotion The Brownian motion used for the simulation.
+	 * @param maxIterations The maximum number of iterations of the optimizer.
+	 * @param accuracy The error tolerance of the optimizer.
+	 */
+	public LIBORCovarianceModelCalibrationAAD(final LIBORMarketModelFromCovarianceModelWithMercurioModification calibrationModel, final AbstractLIBORCovarianceModelParametric covarianceModel,
+			final CalibrationProduct[] calibrationProducts, final BrownianMotion brownianMotion, final int maxIterations, final double accuracy) {
+		super();
+		this.calibrationModel = calibrationModel;
+		this.covarianceModel = covarianceModel;
+		this.calibrationProducts = calibrationProducts;
+		this.brownianMotion = brownianMotion;
+		this.maxIterations = maxIterations;
+		this.accuracy = accuracy;
+	}
+
+	/**
+	 * Run the calibration.
+	 *
+	 * @return The calibrated covariance model.
+	 * @throws SolverException Thrown if the calibration fails.
+	 */
+	public AbstractLIBORCovarianceModelParametric getCloneCalibrated() throws SolverException {
+		final double[] initialParameters = covarianceModel.getParameterAsDouble();
+
+		final double[] targetValues = new double[calibrationProducts.length];
+		final double[] weights = new double[calibrationProducts.length];
+		for(int productIndex = 0; productIndex < calibrationProducts.length; productIndex++) {
+			targetValues[productIndex] = calibrationProducts[productIndex].getTargetValue().getAverage();
+			weights[productIndex] = calibrationProducts[productIndex].getWeight();
+		}
+
+		final double[] parameterSteps = new double[initialParameters.length];
+		Arrays.fill(parameterSteps, 1E-4);
+
+		final LevenbergMarquardt optimizer = new LevenbergMarquardt(initialParameters, targetValues, weights, parameterSteps, maxIterations, accuracy, 1) {
+			private static final long serialVersionUID = -1628631567190057495L;
+
+			// Values and derivatives of the last evaluation (the optimizer requests both for the same parameters).
+			private double[] lastParameters;
+			private double[] lastValues;
+			private double[][] lastDerivatives;
+
+			@Override
+			public void setValues(final double[] parameters, final double[] values) throws SolverException {
+				evaluate(parameters);
+				System.arraycopy(lastValues, 0, values, 0, values.length);
+			}
+
+			@Override
+			public void setDerivatives(final double[] parameters, final double[][] derivatives) throws SolverException {
+				evaluate(parameters);
+				for(int parameterIndex = 0; parameterIndex < derivatives.length; parameterIndex++) {
+					System.arraycopy(lastDerivatives[parameterIndex], 0, derivatives[parameterIndex], 0, derivatives[parameterIndex].length);
+				}
+			}
+
+			private void evaluate(final double[] parameters) throws SolverException {
+				if(lastParameters != null && Arrays.equals(parameters, lastParameters)) {
+					return;
+				}
+
+				final double[][] derivatives = new double[parameters.length][calibrationProducts.length];
+				final double[] values = getValuesAndDerivatives(parameters, derivatives);
+
+				lastParameters = parameters.clone();
+				lastValues = values;
+				lastDerivatives = derivatives;
+			}
+		};
+
+		optimizer.run();
+
+		numberOfIterations = optimizer.getIterations();
+		rootMeanSquaredError = optimizer.getRootMeanSquaredError();
+
+		return covarianceModel.getCloneWithModifiedParameters(optimizer.getBestFitParameters());
+	}
+
+	/**
+	 * @return The number of iterations of the last calibration.
+	 */
+	public int getNumberOfIterations() {
+		return numberOfIterations;
+	}
+
+	/**
+	 * @return The root mean squared error of the last calibration.
+	 */
+	public double getRootMeanSquaredError() {
+		return rootMeanSquaredError;
+	}
+
+	/**
+	 * Value the calibration products for the given parameters and calculate their derivatives with respect to the parameters by AAD,
+	 * using a single simulation of the model.
+	 *
+	 * @param parameters The parameters of the covariance model.
+	 * @param derivatives Array receiving the derivatives, <code>derivatives[parameterIndex][productIndex]</code>.
+	 * @return The values of the calibration products.
+	 * @throws SolverException Thrown if the valuation of a calibration product fails.
+	 */
+	public double[] getValuesAndDerivatives(final double[] parameters, final double[][] derivatives) throws SolverException {
+		final RandomVariableDifferentiable[] parametersDifferentiable = new RandomVariableDifferentiable[parameters.length];
+		for(int parameterIndex = 0; parameterIndex < parameters.length; parameterIndex++) {
+			parametersDifferentiable[parameterIndex] = randomVariableFactory.createRandomVariable(parameters[parameterIndex]);
+		}
+
+		final AbstractLIBORCovarianceModelParametric covarianceModelWithParameters = covarianceModel.getCloneWithModifiedParameters(parametersDifferentiable);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = calibrationModel.getCloneWithModifiedCovarianceModel(covarianceModelWithParameters);
+		final LIBORModelMonteCarloSimulationModel simulation = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(model, brownianMotion));
+
+		final double[] values = new double[calibrationProducts.length];
+		for(int productIndex = 0; productIndex < calibrationProducts.length; productIndex++) {
+			final RandomVariable value;
+			try {
+				value = calibrationProducts[productIndex].getProduct().getValue(0.0, simulation).average();
+			}
+			catch(final CalculationException e) {
+				throw new SolverException(e);
+			}
+			values[productIndex] = value.getAverage();
+
+			if(value instanceof RandomVariableDifferentiable) {
+				final Map<Long, RandomVariable> gradient = ((RandomVariableDifferentiable)value).getGradient();
+				for(int parameterIndex = 0; parameterIndex < parameters.length; parameterIndex++) {
+					final RandomVariable derivative = gradient.get(parametersDifferentiable[parameterIndex].getID());
+					derivatives[parameterIndex][productIndex] = derivative != null ? derivative.getAverage() : 0.0;
+				}
+			}
+		}
+
+		return values;
+	}
+}
@@ -8,15 +8,18 @@ package com.albertozanon.MercurioModel;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
-import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.functions.AnalyticFormulas;
@@ -27,6 +30,7 @@ import net.finmath.marketdata.model.curves.ForwardCurve;
 import net.finmath.marketdata.model.volatilities.SwaptionMarketData;
 import net.finmath.marketdata.products.Swap;
 import net.finmath.marketdata.products.SwapAnnuity;
+import net.finmath.montecarlo.BrownianMotion;
 import net.finmath.montecarlo.RandomVariableFactory;
 import net.finmath.montecarlo.RandomVariableFromArrayFactory;
 import net.finmath.montecarlo.interestrate.CalibrationProduct;
@@ -34,11 +38,13 @@ import net.finmath.montecarlo.interestrate.LIBORMarketModel;
 import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
 import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModel;
 import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelCalibrateable;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
 import net.finmath.montecarlo.interestrate.products.AbstractLIBORMonteCarloProduct;
 import net.finmath.montecarlo.interestrate.products.SwaptionAnalyticApproximation;
 import net.finmath.montecarlo.interestrate.products.SwaptionSimple;
 import net.finmath.montecarlo.model.AbstractProcessModel;
 import net.finmath.montecarlo.process.MonteCarloProcess;
+import net.finmath.optimizer.SolverException;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.time.RegularSchedule;
 import net.finmath.time.Schedule;
@@ -129,6 +135,33 @@ import net.finmath.time.TimeDiscretizationFromArray;
  * 			May be used to limit the simulated valued to prevent values attaining POSITIVE_INFINITY and
  * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
  *		</li>
+ * 		<li>
+ * 			<code>isUseFusedDriftKernel</code>: An optional <code>Boolean</code>. If true, the drift is calculated on primitive arrays
+ * 			in a single loop over the paths (see {@link FusedDriftKernel}), which avoids the allocation of temporary random variables.
+ * 			The results are identical to the default implementation. The kernel is not used if the random variables carry derivative information.
+ *		</li>
+ * 		<li>
+ * 			<code>driftApproximationMethod</code>: Possible values:
+ * 			<ul>
+ * 				<li>
+ * 					<code>EULER</code>: The drift is evaluated at the beginning of the time step (default).
+ * 				</li>
+ * 				<li>
+ * 					<code>PREDICTOR_CORRECTOR</code>: The measure transform \( \frac{\delta_{l}}{1+\delta_{l} L_{l}} \) is replaced by the average of its values at
+ * 					the beginning of the time step and at an Euler predictor of the end of the time step.
+ * 				</li>
+ * 				<li>
+ * 					<code>LINE_INTEGRAL</code>: The measure transform is replaced by its average along the straight line (in state space coordinates)
+ * 					from the beginning of the time step to an Euler predictor of the end of the time step.
+ * 				</li>
+ *			</ul>
+ * 			The schemes allow the use of coarser simulation time discretizations, e.g., one aligned with the tenor.
+ *		</li>
+ * 		<li>
+ * 			<code>isUseAccrualProductCache</code>: An optional <code>Boolean</code>. If true, forward rates over several LIBOR periods are calculated from cached
+ * 			products \( \prod_{m \leq k<i} (1 + L_{k} \delta_{k}) \) (per process and simulation time index, starting at the first period <i>m</i> not fixed), such that each such rate requires a single division.
+ * 			The results agree with the default implementation up to floating point rounding. Rates of periods starting before <i>m</i> are calculated as in the default implementation.
+ *		</li>
  * </ul>
  * <br>
  * The main task of this class is to calculate the risk-neutral drift and the
@@ -147,6 +180,8 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 
 	private static final long serialVersionUID = 4166077559001066615L;
 
+	private static final int maxNumberOfCachedIntegratedLIBORCovariances = 4;
+
 	public enum Measure				{ SPOT, TERMINAL }
 	public enum StateSpace			{ NORMAL, LOGNORMAL }
 	public enum Driftapproximation	{ EULER, LINE_INTEGRAL, PREDICTOR_CORRECTOR }
@@ -166,22 +201,34 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 
 	private SwaptionMarketData		swaptionMarketData;
 
-	private final Driftapproximation	driftApproximationMethod	= Driftapproximation.EULER;
+	private Driftapproximation	driftApproximationMethod	= Driftapproximation.EULER;
 	private Measure				measure						= Measure.SPOT;
 	private StateSpace			stateSpace					= StateSpace.LOGNORMAL;
 	private InterpolationMethod interpolationMethod			= InterpolationMethod.LOG_LINEAR_UNCORRECTED;
 	private double				liborCap					= 1E5;
+	private boolean				isUseFusedDriftKernel		= false;
+	private boolean				isUseAccrualProductCache	= false;
 
-	// This is a cache of the integrated covariance.
-	private double[][][]		integratedLIBORCovariance;
-	private transient Object	integratedLIBORCovarianceLazyInitLock = new Object();
+	// This is a cache of the integrated covariance for the most recently used time discretizations, guarded by synchronized(integratedLIBORCovariances).
+	private transient Map<TimeDiscretizationKey, IntegratedLIBORCovariance>	integratedLIBORCovariances = new LeastRecentlyUsedCache<>(maxNumberOfCachedIntegratedLIBORCovariances);
 
-	// Cache for the numeraires, needs to be invalidated if process changes - move out of the object (to process?)
-	private transient MonteCarloProcess						numerairesProcess = null;
-	private transient ConcurrentHashMap<Integer, RandomVariable>	numeraires = new ConcurrentHashMap<>();
+	// Cache for the numeraires: an immutable table N(T_i) per process. The last process used is kept for getModelParameters.
+	private transient volatile MonteCarloProcess					numerairesProcess = null;
+	private transient MonteCarloProcessCache<RandomVariable[]>		numeraires = new MonteCarloProcessCache<>();
 	private transient ConcurrentHashMap<Double, RandomVariable>		numeraireDiscountFactorForwardRates = new ConcurrentHashMap<>();
 	private transient ConcurrentHashMap<Double, RandomVariable>		numeraireDiscountFactors = new ConcurrentHashMap<>();
-	private transient Vector<RandomVariable>						interpolationDriftAdjustmentsTerminal = new Vector<>();
+
+	// Cache of the running integrals of the interpolation drift adjustment per process and LIBOR (used for LOG_LINEAR_CORRECTED).
+	private transient MonteCarloProcessCache<AtomicReferenceArray<InterpolationDriftAdjustmentIntegral>>	interpolationDriftAdjustments = new MonteCarloProcessCache<>();
+
+	// Cache of the accrual products per process and time index (used if isUseAccrualProductCache is true).
+	private transient MonteCarloProcessCache<AtomicReferenceArray<RandomVariable[]>>	accrualProducts = new MonteCarloProcessCache<>();
+
+	// Cache of the accrual products of the fixed backward looking rates per process.
+	private transient MonteCarloProcessCache<RandomVariable[]>		backwardAccruals = new MonteCarloProcessCache<>();
+
+	// Cache of the factor loadings [timeIndex][component][factor] of a state independent covariance model (empty if the covariance model is state dependent).
+	private transient volatile RandomVariable[][][]					factorLoadingTable;
 
 	/**
 	 * Creates a LIBOR Market Model for given covariance.
@@ -216,6 +263,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>isUseFusedDriftKernel</code>: An optional <code>Boolean</code>. If true, the drift is calculated on primitive arrays (see {@link FusedDriftKernel}).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>driftApproximationMethod</code>: <code>EULER</code>, <code>PREDICTOR_CORRECTOR</code> or <code>LINE_INTEGRAL</code> (<code>String</code>).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>isUseAccrualProductCache</code>: An optional <code>Boolean</code>. If true, forward rates over several LIBOR periods are calculated from cached accrual products.
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -227,6 +283,10 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 *				 		<li>
 	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
 	 * 						</li>
+	 *				 		<li>
+	 * 							<code>isUseAdjointDerivatives</code>: <code>Boolean</code>. If true, the Jacobian of the calibration is calculated by adjoint automatic differentiation,
+	 * 							see {@link LIBORCovarianceModelCalibrationAAD} (requires <code>brownianMotion</code> and calibration products with value unit <code>VALUE</code>).
+	 * 						</li>
 	 *					</ul>
 	 *				</li>
 	 *			</ul>
@@ -265,6 +325,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		if(properties != null && properties.containsKey("liborCap")) {
 			liborCap	= (Double)properties.get("liborCap");
 		}
+		if(properties != null && properties.containsKey("isUseFusedDriftKernel")) {
+			isUseFusedDriftKernel	= (Boolean)properties.get("isUseFusedDriftKernel");
+		}
+		if(properties != null && properties.containsKey("driftApproximationMethod")) {
+			driftApproximationMethod	= Driftapproximation.valueOf(((String)properties.get("driftApproximationMethod")).toUpperCase());
+		}
+		if(properties != null && properties.containsKey("isUseAccrualProductCache")) {
+			isUseAccrualProductCache	= (Boolean)properties.get("isUseAccrualProductCache");
+		}
 
 		Map<String,Object> calibrationParameters = null;
 		if(properties != null && properties.containsKey("calibrationParameters")) {
@@ -316,6 +385,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>isUseFusedDriftKernel</code>: An optional <code>Boolean</code>. If true, the drift is calculated on primitive arrays (see {@link FusedDriftKernel}).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>driftApproximationMethod</code>: <code>EULER</code>, <code>PREDICTOR_CORRECTOR</code> or <code>LINE_INTEGRAL</code> (<code>String</code>).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>isUseAccrualProductCache</code>: An optional <code>Boolean</code>. If true, forward rates over several LIBOR periods are calculated from cached accrual products.
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -327,6 +405,10 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 *				 		<li>
 	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
 	 * 						</li>
+	 *				 		<li>
+	 * 							<code>isUseAdjointDerivatives</code>: <code>Boolean</code>. If true, the Jacobian of the calibration is calculated by adjoint automatic differentiation,
+	 * 							see {@link LIBORCovarianceModelCalibrationAAD} (requires <code>brownianMotion</code> and calibration products with value unit <code>VALUE</code>).
+	 * 						</li>
 	 *					</ul>
 	 *				</li>
 	 *			</ul>
@@ -364,15 +446,7 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 				calibrationParameters	= (Map<String,Object>)properties.get("calibrationParameters");
 			}
 
-			LIBORCovarianceModelCalibrateable covarianceModelParametric = null;
-			try {
-				covarianceModelParametric = (LIBORCovarianceModelCalibrateable)covarianceModel;
-			}
-			catch(final Exception e) {
-				throw new ClassCastException("Calibration restricted to covariance models implementing LIBORCovarianceModelCalibrateable.");
-			}
-
-			final LIBORCovarianceModel covarianceModelCalibrated = covarianceModelParametric.getCloneCalibrated(model, calibrationProducts, calibrationParameters);
+			final LIBORCovarianceModel covarianceModelCalibrated = getCloneCalibrated(model, covarianceModel, calibrationProducts, calibrationParameters);
 
 			final LIBORMarketModelFromCovarianceModelWithMercurioModification modelCalibrated = model.getCloneWithModifiedCovarianceModel(covarianceModelCalibrated);
 
@@ -420,6 +494,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>isUseFusedDriftKernel</code>: An optional <code>Boolean</code>. If true, the drift is calculated on primitive arrays (see {@link FusedDriftKernel}).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>driftApproximationMethod</code>: <code>EULER</code>, <code>PREDICTOR_CORRECTOR</code> or <code>LINE_INTEGRAL</code> (<code>String</code>).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>isUseAccrualProductCache</code>: An optional <code>Boolean</code>. If true, forward rates over several LIBOR periods are calculated from cached accrual products.
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -431,6 +514,10 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 *				 		<li>
 	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
 	 * 						</li>
+	 *				 		<li>
+	 * 							<code>isUseAdjointDerivatives</code>: <code>Boolean</code>. If true, the Jacobian of the calibration is calculated by adjoint automatic differentiation,
+	 * 							see {@link LIBORCovarianceModelCalibrationAAD} (requires <code>brownianMotion</code> and calibration products with value unit <code>VALUE</code>).
+	 * 						</li>
 	 *					</ul>
 	 *				</li>
 	 *			</ul>
@@ -471,6 +558,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		if(properties != null && properties.containsKey("liborCap")) {
 			liborCap	= (Double)properties.get("liborCap");
 		}
+		if(properties != null && properties.containsKey("isUseFusedDriftKernel")) {
+			isUseFusedDriftKernel	= (Boolean)properties.get("isUseFusedDriftKernel");
+		}
+		if(properties != null && properties.containsKey("driftApproximationMethod")) {
+			driftApproximationMethod	= Driftapproximation.valueOf(((String)properties.get("driftApproximationMethod")).toUpperCase());
+		}
+		if(properties != null && properties.containsKey("isUseAccrualProductCache")) {
+			isUseAccrualProductCache	= (Boolean)properties.get("isUseAccrualProductCache");
+		}
 
 		Map<String,Object> calibrationParameters = null;
 		if(properties != null && properties.containsKey("calibrationParameters")) {
@@ -485,21 +581,45 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 
 		// Perform calibration, if data is given
 		if(calibrationProducts != null && calibrationProducts.length > 0) {
-			LIBORCovarianceModelCalibrateable covarianceModelParametric = null;
-			try {
-				covarianceModelParametric = (LIBORCovarianceModelCalibrateable)covarianceModel;
-			}
-			catch(final Exception e) {
-				throw new ClassCastException("Calibration restricted to covariance models implementing LIBORCovarianceModelCalibrateable.");
-			}
-
-			this.covarianceModel    = covarianceModelParametric.getCloneCalibrated(this, calibrationProducts, calibrationParameters);
+			this.covarianceModel    = getCloneCalibrated(this, covarianceModel, calibrationProducts, calibrationParameters);
 		}
 		else {
 			this.covarianceModel	= covarianceModel;
 		}
 	}
 
+	/*
+	 * Calibrate the covariance model, either by the calibration of the covariance model (finite difference Jacobian) or,
+	 * if requested by the calibration parameter isUseAdjointDerivatives, with a Jacobian obtained by AAD.
+	 */
+	private static LIBORCovarianceModel getCloneCalibrated(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final LIBORCovarianceModel covarianceModel, final CalibrationProduct[] calibrationProducts, final Map<String, Object> calibrationParameters) throws CalculationException {
+		LIBORCovarianceModelCalibrateable covarianceModelParametric = null;
+		try {
+			covarianceModelParametric = (LIBORCovarianceModelCalibrateable)covarianceModel;
+		}
+		catch(final Exception e) {
+			throw new ClassCastException("Calibration restricted to covariance models implementing LIBORCovarianceModelCalibrateable.");
+		}
+
+		if(calibrationParameters != null && Boolean.TRUE.equals(calibrationParameters.get("isUseAdjointDerivatives"))) {
+			if(!(covarianceModel instanceof AbstractLIBORCovarianceModelParametric) || !(calibrationParameters.get("brownianMotion") instanceof BrownianMotion)) {
+				throw new IllegalArgumentException("Calibration with adjoint derivatives requires a parametric covariance model and the calibration parameter brownianMotion.");
+			}
+			final int		maxIterations	= (Integer)calibrationParameters.getOrDefault("maxIterations", 400);
+			final double	accuracy		= (Double)calibrationParameters.getOrDefault("accuracy", 1E-7);
+
+			final LIBORCovarianceModelCalibrationAAD calibration = new LIBORCovarianceModelCalibrationAAD(model, (AbstractLIBORCovarianceModelParametric)covarianceModel, calibrationProducts, (BrownianMotion)calibrationParameters.get("brownianMotion"), maxIterations, accuracy);
+			try {
+				return calibration.getCloneCalibrated();
+			}
+			catch(final SolverException e) {
+				throw new CalculationException(e);
+			}
+		}
+
+		return covarianceModelParametric.getCloneCalibrated(model, calibrationProducts, calibrationParameters);
+	}
+
 	/**
 	 * Creates a LIBOR Market Model for given covariance.
 	 * <br>
@@ -537,6 +657,15 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>isUseFusedDriftKernel</code>: An optional <code>Boolean</code>. If true, the drift is calculated on primitive arrays (see {@link FusedDriftKernel}).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>driftApproximationMethod</code>: <code>EULER</code>, <code>PREDICTOR_CORRECTOR</code> or <code>LINE_INTEGRAL</code> (<code>String</code>).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>isUseAccrualProductCache</code>: An optional <code>Boolean</code>. If true, forward rates over several LIBOR periods are calculated from cached accrual products.
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -548,6 +677,10 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 *				 		<li>
 	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
 	 * 						</li>
+	 *				 		<li>
+	 * 							<code>isUseAdjointDerivatives</code>: <code>Boolean</code>. If true, the Jacobian of the calibration is calculated by adjoint automatic differentiation,
+	 * 							see {@link LIBORCovarianceModelCalibrationAAD} (requires <code>brownianMotion</code> and calibration products with value unit <code>VALUE</code>).
+	 * 						</li>
 	 *					</ul>
 	 *				</li>
 	 *			</ul>
@@ -731,6 +864,10 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 *				 		<li>
 	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
 	 * 						</li>
+	 *				 		<li>
+	 * 							<code>isUseAdjointDerivatives</code>: <code>Boolean</code>. If true, the Jacobian of the calibration is calculated by adjoint automatic differentiation,
+	 * 							see {@link LIBORCovarianceModelCalibrationAAD} (requires <code>brownianMotion</code> and calibration products with value unit <code>VALUE</code>).
+	 * 						</li>
 	 *					</ul>
 	 *				</li>
 	 *			</ul>
@@ -807,7 +944,8 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 				}
 
 				if(isUseAnalyticApproximation) {
-					final AbstractLIBORMonteCarloProduct swaption = new SwaptionAnalyticApproximation(swaprate, swapTenorTimes, SwaptionAnalyticApproximation.ValueUnit.VOLATILITYLOGNORMAL);
+					// Reads the packed integrated covariance of the model (does not expand the full cube)
+					final AbstractLIBORMonteCarloProduct swaption = new SwaptionAnalyticApproximationWithMercurioModification(swaprate, swapTenorTimes, SwaptionAnalyticApproximation.ValueUnit.VOLATILITYLOGNORMAL);
 					final double impliedVolatility = swaptionMarketData.getVolatility(exerciseDate, swapLength, swaptionMarketData.getSwapPeriodLength(), swaprate);
 
 					calibrationProducts.add(new CalibrationProduct(swaption, impliedVolatility, 1.0));
@@ -909,10 +1047,13 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		final TimeDiscretization timeDiscretizationForCurves = isInterpolateDiscountFactorsOnLiborPeriodDiscretization ? liborPeriodDiscretization : process.getTimeDiscretization();
 		final double time = timeDiscretizationForCurves.getTime(timeIndex);
 
-		synchronized(numeraireDiscountFactorForwardRates) {
-			ensureCacheConsistency(process);
+		RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
+		if(deterministicNumeraireAdjustment != null) {
+			return deterministicNumeraireAdjustment;
+		}
 
-			RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
+		synchronized(numeraireDiscountFactorForwardRates) {
+			deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
 			if(deterministicNumeraireAdjustment == null) {
 				final double dfInitial = discountCurve.getDiscountFactor(curveModel, timeDiscretizationForCurves.getTime(0));
 				deterministicNumeraireAdjustment = randomVariableFactory.createRandomVariable(dfInitial);
@@ -942,20 +1083,6 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		return forwardDiscountBondAsOfZero.mult(inverseForwardBondAsOfZero).div(inverseForwardBondAsOfTime);
 	}
 
-	private void ensureCacheConsistency(final MonteCarloProcess process) {
-		/*
-		 * Check if caches are valid (i.e. process did not change)
-		 */
-		if (process != numerairesProcess) {
-			// Clear caches
-			numeraires.clear();
-			numeraireDiscountFactorForwardRates.clear();
-			numeraireDiscountFactors.clear();
-			numerairesProcess = process;
-			interpolationDriftAdjustmentsTerminal.clear();
-		}
-	}
-
 	protected RandomVariable getNumerairetUnAdjusted(final MonteCarloProcess process, final double time) throws CalculationException {
 		/*
 		 * Check if numeraire is on LIBOR time grid
@@ -1006,62 +1133,98 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	}
 
 	protected RandomVariable getNumerairetUnAdjustedAtLIBORIndex(final MonteCarloProcess process, final int liborTimeIndex) throws CalculationException {
+		numerairesProcess = process;
+
 		/*
-		 * synchronize lazy init cache
+		 * Lock free lookup of the numeraire table of this process
 		 */
-		synchronized(numeraires) {
+		RandomVariable[] numeraireTable = numeraires.get(process);
+		if(numeraireTable == null) {
+			numeraireTable = numeraires.putIfAbsent(process, getNumeraireTable(process));
+		}
+
+		if(liborTimeIndex < numeraireTable.length) {
+			return numeraireTable[liborTimeIndex];
+		}
+		else {
+			// The process does not cover this period - no caching.
+			return getNumerairetUnAdjustedAtLIBORIndex(process, numeraireTable, liborTimeIndex);
+		}
+	}
+
+	/*
+	 * Calculate the unadjusted numeraires N(T_i) for all LIBOR periods T_i covered by the time discretization of the process
+	 * in one sweep over the LIBOR tenor. The returned array is not modified after its creation.
+	 */
+	private RandomVariable[] getNumeraireTable(final MonteCarloProcess process) throws CalculationException {
+		final int lastTimeIndex = process.getTimeDiscretization().getNumberOfTimeSteps();
+
+		int numberOfNumeraires = 0;
+		while(numberOfNumeraires <= liborPeriodDiscretization.getNumberOfTimeSteps()
+				&& getNumeraireTimeIndex(process, measure == Measure.SPOT ? Math.max(numberOfNumeraires-1, 0) : numberOfNumeraires) <= lastTimeIndex) {
+			numberOfNumeraires++;
+		}
+
+		final RandomVariable[] numeraireTable = new RandomVariable[numberOfNumeraires];
+		for(int liborTimeIndex = 0; liborTimeIndex < numberOfNumeraires; liborTimeIndex++) {
+			numeraireTable[liborTimeIndex] = getNumerairetUnAdjustedAtLIBORIndex(process, numeraireTable, liborTimeIndex);
+		}
+		return numeraireTable;
+	}
+
+	/*
+	 * Calculate the unadjusted numeraire N(T_i). For the spot measure the numeraires N(T_k), k < i, are taken from the given table
+	 * (as far as available).
+	 */
+	private RandomVariable getNumerairetUnAdjustedAtLIBORIndex(final MonteCarloProcess process, final RandomVariable[] numeraireTable, final int liborTimeIndex) throws CalculationException {
+		if (measure == Measure.TERMINAL) {
+			final int timeIndex = getNumeraireTimeIndex(process, liborTimeIndex);
+
+			// Initialize to 1.0
+			RandomVariable numeraireUnadjusted = getRandomVariableForConstant(1.0);
+
 			/*
-			 * Check if numeraire cache is valid (i.e. process did not change)
+			 * Due to time < T_{timeIndex+1} loop is needed.
 			 */
-			ensureCacheConsistency(process);
-
+			for (int liborIndex = liborTimeIndex; liborIndex <= liborPeriodDiscretization.getNumberOfTimeSteps() - 1; liborIndex++) {
+				final RandomVariable libor = getLIBOR(process, timeIndex, liborIndex);
+				final double periodLength = liborPeriodDiscretization.getTimeStep(liborIndex);
+				numeraireUnadjusted = numeraireUnadjusted.discount(libor, periodLength);
+			}
+			return numeraireUnadjusted;
+		}
+		else if (measure == Measure.SPOT) {
 			/*
-			 * Check if numeraire is part of the cache
+			 * Start from the last available numeraire and multiply (1 + L(Ti-1)*dt) on N(Ti-1)
 			 */
-			RandomVariable numeraireUnadjusted = numeraires.get(liborTimeIndex);
-			if (numeraireUnadjusted == null) {
-				if (measure == Measure.TERMINAL) {
-					int timeIndex = process.getTimeIndex(liborPeriodDiscretization.getTime(liborTimeIndex));
-					if(timeIndex < 0) {
-						timeIndex = -timeIndex -1;
-					}
-
-					// Initialize to 1.0
-					numeraireUnadjusted = getRandomVariableForConstant(1.0);
-
-					/*
-					 * Due to time < T_{timeIndex+1} loop is needed.
-					 */
-					for (int liborIndex = liborTimeIndex; liborIndex <= liborPeriodDiscretization.getNumberOfTimeSteps() - 1; liborIndex++) {
-						final RandomVariable libor = getLIBOR(process, timeIndex, liborIndex);
-						final double periodLength = liborPeriodDiscretization.getTimeStep(liborIndex);
-						numeraireUnadjusted = numeraireUnadjusted.discount(libor, periodLength);
-					}
-				}
-				else if (measure == Measure.SPOT) {
-					/*
-					 * If numeraire is not N(0), multiply (1 + L(Ti-1)*dt) on N(Ti-1)
-					 */
-					if (liborTimeIndex != 0) {
-						int timeIndex = process.getTimeIndex(liborPeriodDiscretization.getTime(liborTimeIndex-1));
-						if(timeIndex < 0) {
-							timeIndex = -timeIndex -1;
-						}
+			int startIndex = Math.min(liborTimeIndex, numeraireTable.length-1);
+			while(startIndex >= 0 && numeraireTable[startIndex] == null) {
+				startIndex--;
+			}
 
-						final double periodLength = liborPeriodDiscretization.getTimeStep(liborTimeIndex - 1);
-						final RandomVariable libor = getLIBOR(process, timeIndex, liborTimeIndex - 1);
-						numeraireUnadjusted = getNumerairetUnAdjustedAtLIBORIndex(process, liborTimeIndex - 1).accrue(libor, periodLength);
-					}
-					else {
-						numeraireUnadjusted = getRandomVariableForConstant(1.0);
-					}
-				} else {
-					throw new CalculationException("Numeraire not implemented for specified measure.");
-				}
-				numeraires.put(liborTimeIndex, numeraireUnadjusted);
+			RandomVariable numeraireUnadjusted = startIndex >= 0 ? numeraireTable[startIndex] : getRandomVariableForConstant(1.0);
+			for(int liborIndex = Math.max(startIndex, 0); liborIndex < liborTimeIndex; liborIndex++) {
+				final int timeIndex = getNumeraireTimeIndex(process, liborIndex);
+				final double periodLength = liborPeriodDiscretization.getTimeStep(liborIndex);
+				final RandomVariable libor = getLIBOR(process, timeIndex, liborIndex);
+				numeraireUnadjusted = numeraireUnadjusted.accrue(libor, periodLength);
 			}
 			return numeraireUnadjusted;
 		}
+		else {
+			throw new CalculationException("Numeraire not implemented for specified measure.");
+		}
+	}
+
+	/*
+	 * Returns the time index of the process at which the LIBORs are observed for the numeraire at T_i (first time index not before T_i).
+	 */
+	private int getNumeraireTimeIndex(final MonteCarloProcess process, final int liborTimeIndex) {
+		int timeIndex = process.getTimeIndex(liborPeriodDiscretization.getTime(liborTimeIndex));
+		if(timeIndex < 0) {
+			timeIndex = -timeIndex -1;
+		}
+		return timeIndex;
 	}
 
 	public Map<Double, RandomVariable> getNumeraireAdjustments() {
@@ -1110,6 +1273,7 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	 * @param process The discretization process generating this model. The process provides call backs for TimeDiscretization and allows calls to getProcessValue for timeIndices less or equal the given one.
 	 * @param timeIndex Time index <i>i</i> for which the drift should be returned <i>&mu;(t<sub>i</sub>)</i>.
 	 * @param realizationAtTimeIndex Time current forward rate vector at time index <i>i</i> which should be used in the calculation.
+	 * @param realizationPredictor Predictor of the forward rate vector at time index <i>i+1</i> used by the drift approximation methods <code>PREDICTOR_CORRECTOR</code> and <code>LINE_INTEGRAL</code>. If <code>null</code>, an Euler predictor is calculated. Ignored for <code>EULER</code>.
 	 * @return The drift vector &mu;(t<sub>i</sub>) as <code>RandomVariableFromDoubleArray[]</code>
 	 */
 	@Override
@@ -1124,6 +1288,46 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	//	 	firstLiborIndex = -firstLiborIndex-1 + 1;
 		}
 
+		// Get the factor loadings of all components which are still alive
+		final RandomVariable[][]	factorLoadings = new RandomVariable[getNumberOfComponents()][];
+		for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
+			factorLoadings[componentIndex] = getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
+		}
+
+		if(driftApproximationMethod == Driftapproximation.EULER || (realizationPredictor == null && timeIndex >= process.getTimeDiscretization().getNumberOfTimeSteps())) {
+			return getDrift(process, timeIndex, firstLiborIndex, realizationAtTimeIndex, factorLoadings, null);
+		}
+
+		// If the scheme does not provide a predictor, we use an Euler step
+		RandomVariable[] liborPredictor = realizationPredictor;
+		if(liborPredictor == null) {
+			final RandomVariable[] driftEuler = getDrift(process, timeIndex, firstLiborIndex, realizationAtTimeIndex, factorLoadings, null);
+			liborPredictor = getPredictor(process, timeIndex, firstLiborIndex, realizationAtTimeIndex, factorLoadings, driftEuler);
+		}
+
+		return getDrift(process, timeIndex, firstLiborIndex, realizationAtTimeIndex, factorLoadings, liborPredictor);
+	}
+
+	/**
+	 * Calculates the drift for given factor loadings, where the one step measure transform \( \frac{\delta_{l}}{1+\delta_{l} L_{l}} \)
+	 * is evaluated according to the drift approximation method. If no predictor is given, the Euler approximation is used.
+	 *
+	 * @param process The discretization process generating this model.
+	 * @param timeIndex Time index <i>i</i> for which the drift should be returned <i>&mu;(t<sub>i</sub>)</i>.
+	 * @param firstLiborIndex The index of the first forward rate which is still alive.
+	 * @param realizationAtTimeIndex Time current forward rate vector at time index <i>i</i>.
+	 * @param factorLoadings The factor loadings at time index <i>i</i> of the components which are still alive.
+	 * @param liborPredictor The predictor of the forward rate vector at time index <i>i+1</i> or <code>null</code>.
+	 * @return The drift vector &mu;(t<sub>i</sub>).
+	 */
+	private RandomVariable[] getDrift(final MonteCarloProcess process, final int timeIndex, final int firstLiborIndex, final RandomVariable[] realizationAtTimeIndex, final RandomVariable[][] factorLoadings, final RandomVariable[] liborPredictor) {
+		final double	time				= process.getTime(timeIndex);
+
+		if(liborPredictor == null && isUseFusedDriftKernel && FusedDriftKernel.isApplicable(realizationAtTimeIndex, factorLoadings, firstLiborIndex)) {
+			return FusedDriftKernel.getDrift(randomVariableFactory, time, liborPeriodDiscretization, measure == Measure.SPOT, stateSpace == StateSpace.LOGNORMAL,
+					firstLiborIndex, realizationAtTimeIndex, factorLoadings);
+		}
+
 		final RandomVariable		zero	= getRandomVariableForConstant(0.0);
 
 		// Allocate drift vector and initialize to zero (will be used to sum up drift components)
@@ -1137,22 +1341,28 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 			covarianceFactorSums[factorIndex] = zero;
 		}
 
+		// For the log-normal state space the variance (the squared norm of the factor loading) is accumulated in the same loop
+		final boolean isLogNormal = stateSpace == StateSpace.LOGNORMAL;
+
 		if(measure == Measure.SPOT) {
 			// Calculate drift for the component componentIndex (starting at firstLiborIndex, others are zero)
 			for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
 				final double						periodLength	= liborPeriodDiscretization.getTimeStep(componentIndex);
 				final RandomVariable		libor			= realizationAtTimeIndex[componentIndex];
-				RandomVariable		oneStepMeasureTransform = getRandomVariableForConstant(periodLength).discount(libor, periodLength);
+				final RandomVariable		oneStepMeasureTransform = getOneStepMeasureTransform(periodLength, libor, liborPredictor != null ? liborPredictor[componentIndex] : null);
 
-				if(stateSpace == StateSpace.LOGNORMAL) {
-					// The drift has an additional forward rate factor
-					oneStepMeasureTransform = oneStepMeasureTransform.mult(libor);
-				}
-
-				final RandomVariable[]	factorLoading   	= getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
+				final RandomVariable[]	factorLoading   	= factorLoadings[componentIndex];
+				RandomVariable variance = null;
 				for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
 					covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex].add(oneStepMeasureTransform.mult(factorLoading[factorIndex]));
 					drift[componentIndex] = drift[componentIndex].addProduct(covarianceFactorSums[factorIndex], factorLoading[factorIndex]);
+					if(isLogNormal) {
+						variance = variance == null ? factorLoading[factorIndex].mult(factorLoading[factorIndex]) : variance.addProduct(factorLoading[factorIndex], factorLoading[factorIndex]);
+					}
+				}
+				if(variance != null) {
+					// Drift adjustment for log-coordinate
+					drift[componentIndex] = drift[componentIndex].addProduct(variance, -0.5);
 				}
 			}
 		}
@@ -1161,35 +1371,181 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 			for(int componentIndex=getNumberOfComponents()-1; componentIndex>=firstLiborIndex; componentIndex--) {
 				final double					periodLength	= liborPeriodDiscretization.getTimeStep(componentIndex);
 				final RandomVariable libor			= realizationAtTimeIndex[componentIndex];
-				RandomVariable oneStepMeasureTransform = getRandomVariableForConstant(periodLength).discount(libor, periodLength);
-
-				if(stateSpace == StateSpace.LOGNORMAL) {
-					oneStepMeasureTransform = oneStepMeasureTransform.mult(libor);
-				}
+				final RandomVariable oneStepMeasureTransform = getOneStepMeasureTransform(periodLength, libor, liborPredictor != null ? liborPredictor[componentIndex] : null);
 
-				final RandomVariable[]	factorLoading   	= getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
+				final RandomVariable[]	factorLoading   	= factorLoadings[componentIndex];
+				RandomVariable variance = null;
 				for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
 					drift[componentIndex] = drift[componentIndex].addProduct(covarianceFactorSums[factorIndex], factorLoading[factorIndex]);
 					covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex].sub(oneStepMeasureTransform.mult(factorLoading[factorIndex]));
+					if(isLogNormal) {
+						variance = variance == null ? factorLoading[factorIndex].mult(factorLoading[factorIndex]) : variance.addProduct(factorLoading[factorIndex], factorLoading[factorIndex]);
+					}
+				}
+				if(variance != null) {
+					// Drift adjustment for log-coordinate
+					drift[componentIndex] = drift[componentIndex].addProduct(variance, -0.5);
 				}
 			}
 		}
 
+		return drift;
+	}
+
+	/**
+	 * Returns the one step measure transform \( \frac{\delta}{1+\delta L} \) (times \( L \) for the log-normal state space)
+	 * used in the drift. If a predictor \( L^{p} \) is given, the transform is approximated according to the drift approximation method:
+	 * <ul>
+	 * 	<li><code>PREDICTOR_CORRECTOR</code>: the average of the transform at \( L \) and at \( L^{p} \),</li>
+	 * 	<li><code>LINE_INTEGRAL</code>: the average of the transform along the line from \( Y = f^{-1}(L) \) to \( Y^{p} = f^{-1}(L^{p}) \), that is
+	 * 	\( \frac{\log(1+\delta L^{p}) - \log(1+\delta L)}{Y^{p} - Y} \).</li>
+	 * </ul>
+	 *
+	 * @param periodLength The period length \( \delta \).
+	 * @param libor The forward rate \( L \) at the beginning of the time step.
+	 * @param liborPredictor The predictor \( L^{p} \) of the forward rate at the end of the time step or <code>null</code>.
+	 * @return The one step measure transform.
+	 */
+	private RandomVariable getOneStepMeasureTransform(final double periodLength, final RandomVariable libor, final RandomVariable liborPredictor) {
+		RandomVariable oneStepMeasureTransform = getRandomVariableForConstant(periodLength).discount(libor, periodLength);
+
 		if(stateSpace == StateSpace.LOGNORMAL) {
-			// Drift adjustment for log-coordinate in each component
-			for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
-				final RandomVariable		variance		= covarianceModel.getCovariance(time, componentIndex, componentIndex, realizationAtTimeIndex);
-				drift[componentIndex] = drift[componentIndex].addProduct(variance, -0.5);
+			// The drift has an additional forward rate factor
+			oneStepMeasureTransform = oneStepMeasureTransform.mult(libor);
+		}
+
+		if(liborPredictor == null) {
+			return oneStepMeasureTransform;
+		}
+
+		switch(driftApproximationMethod)
+		{
+		case EULER:
+			return oneStepMeasureTransform;
+		case PREDICTOR_CORRECTOR:
+			RandomVariable oneStepMeasureTransformPredictor = getRandomVariableForConstant(periodLength).discount(liborPredictor, periodLength);
+			if(stateSpace == StateSpace.LOGNORMAL) {
+				oneStepMeasureTransformPredictor = oneStepMeasureTransformPredictor.mult(liborPredictor);
 			}
+			return oneStepMeasureTransform.add(oneStepMeasureTransformPredictor).mult(0.5);
+		case LINE_INTEGRAL:
+			final RandomVariable stateIncrement = stateSpace == StateSpace.LOGNORMAL ? liborPredictor.log().sub(libor.log()) : liborPredictor.sub(libor);
+			final RandomVariable integral = liborPredictor.mult(periodLength).add(1.0).log().sub(libor.mult(periodLength).add(1.0).log());
+
+			// For (almost) vanishing increments the line integral degenerates to the Euler approximation
+			return stateIncrement.abs().sub(1E-8).choose(integral.div(stateIncrement), oneStepMeasureTransform);
+		default: throw new IllegalArgumentException("Method for enum " + driftApproximationMethod.name() + " not implemented!");
 		}
+	}
 
-		return drift;
+	/**
+	 * Calculates an Euler predictor of the forward rates at time index <i>i+1</i>, that is
+	 * \( L^{p}_{j} = f( f^{-1}(L_{j}(t_{i})) + \mu_{j}(t_{i}) \Delta t_{i} + \sum_{k} \lambda_{j,k}(t_{i}) \Delta W_{k}(t_{i}) ) \),
+	 * using the Brownian increments of the given process.
+	 *
+	 * @param process The discretization process generating this model.
+	 * @param timeIndex Time index <i>i</i>.
+	 * @param firstLiborIndex The index of the first forward rate which is still alive.
+	 * @param realizationAtTimeIndex Time current forward rate vector at time index <i>i</i>.
+	 * @param factorLoadings The factor loadings at time index <i>i</i> of the components which are still alive.
+	 * @param drift The (Euler) drift at time index <i>i</i>.
+	 * @return The predictor of the forward rate vector at time index <i>i+1</i>.
+	 */
+	private RandomVariable[] getPredictor(final MonteCarloProcess process, final int timeIndex, final int firstLiborIndex, final RandomVariable[] realizationAtTimeIndex, final RandomVariable[][] factorLoadings, final RandomVariable[] drift) {
+		final double deltaT = process.getTimeDiscretization().getTimeStep(timeIndex);
+
+		final RandomVariable[] brownianIncrement = new RandomVariable[process.getNumberOfFactors()];
+		for(int factorIndex=0; factorIndex<brownianIncrement.length; factorIndex++) {
+			brownianIncrement[factorIndex] = process.getStochasticDriver().getIncrement(timeIndex, factorIndex);
+		}
+
+		final RandomVariable[] liborPredictor = realizationAtTimeIndex.clone();
+		for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
+			RandomVariable state = applyStateSpaceTransformInverse(process, timeIndex, componentIndex, realizationAtTimeIndex[componentIndex]);
+			state = state.addProduct(drift[componentIndex], deltaT);
+
+			final RandomVariable[] factorLoading = factorLoadings[componentIndex];
+			for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
+				state = state.addProduct(factorLoading[factorIndex], brownianIncrement[factorIndex]);
+			}
+
+			liborPredictor[componentIndex] = applyStateSpaceTransform(process, timeIndex+1, componentIndex, state);
+		}
+
+		return liborPredictor;
 	}
 
 	@Override
 	public	RandomVariable[]	getFactorLoading(final MonteCarloProcess process, final int timeIndex, final int componentIndex, final RandomVariable[] realizationAtTimeIndex)
 	{
-		return covarianceModel.getFactorLoading(process.getTime(timeIndex), getLiborPeriod(componentIndex), realizationAtTimeIndex);
+		final double time = process.getTime(timeIndex);
+
+		/*
+		 * For state independent covariance models the factor loadings are read from a table.
+		 * The table contains the factor loadings for a given realization (e.g. including the volatility reduction),
+		 * hence it is not used if no realization is given.
+		 */
+		if(realizationAtTimeIndex != null && realizationAtTimeIndex[componentIndex] != null) {
+			final RandomVariable[][][] factorLoadingTable = getFactorLoadingTable();
+			if(factorLoadingTable.length > 0) {
+				int covarianceModelTimeIndex = covarianceModel.getTimeDiscretization().getTimeIndex(time);
+				if(covarianceModelTimeIndex < 0) {
+					covarianceModelTimeIndex = -covarianceModelTimeIndex-2;
+				}
+				if(covarianceModelTimeIndex >= 0) {
+					return factorLoadingTable[covarianceModelTimeIndex][componentIndex].clone();
+				}
+			}
+		}
+
+		return covarianceModel.getFactorLoading(time, getLiborPeriod(componentIndex), realizationAtTimeIndex);
+	}
+
+	/**
+	 * Returns the table of factor loadings <code>[timeIndex][component][factor]</code> on the time discretization of the covariance model,
+	 * if the covariance model is state independent (see {@link #isCovarianceModelStateIndependent(LIBORCovarianceModel)}).
+	 * The table is build once (lazily) and contains the factor loadings as they are given for a non-null realization,
+	 * i.e., a {@link VolatilityReductionMercurioModel} reduction is already applied.
+	 *
+	 * @return The table of factor loadings or an empty array if the covariance model is state dependent.
+	 */
+	private RandomVariable[][][] getFactorLoadingTable() {
+		RandomVariable[][][] factorLoadingTable = this.factorLoadingTable;
+		if(factorLoadingTable == null) {
+			if(isCovarianceModelStateIndependent(covarianceModel)) {
+				final TimeDiscretization timeDiscretization = covarianceModel.getTimeDiscretization();
+
+				// The realization is only used to signal that the factor loading is requested for a simulated state
+				final RandomVariable[] realization = new RandomVariable[getNumberOfComponents()];
+				Arrays.fill(realization, getRandomVariableForConstant(0.0));
+
+				factorLoadingTable = new RandomVariable[timeDiscretization.getNumberOfTimes()][getNumberOfComponents()][];
+				for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimes(); timeIndex++) {
+					for(int componentIndex=0; componentIndex<getNumberOfComponents(); componentIndex++) {
+						factorLoadingTable[timeIndex][componentIndex] = covarianceModel.getFactorLoading(timeDiscretization.getTime(timeIndex), getLiborPeriod(componentIndex), realization);
+					}
+				}
+			}
+			else {
+				factorLoadingTable = new RandomVariable[0][][];
+			}
+			this.factorLoadingTable = factorLoadingTable;
+		}
+		return factorLoadingTable;
+	}
+
+	/**
+	 * Checks if the factor loadings of the given covariance model do not depend on the realization of the process.
+	 * This is the case for a {@link LIBORCovarianceModelFromVolatilityAndCorrelation}, possibly wrapped in a {@link VolatilityReductionMercurioModel}.
+	 *
+	 * @param covarianceModel The covariance model.
+	 * @return True if the factor loadings of the covariance model are state independent.
+	 */
+	private static boolean isCovarianceModelStateIndependent(final LIBORCovarianceModel covarianceModel) {
+		if(covarianceModel instanceof VolatilityReductionMercurioModel) {
+			return isCovarianceModelStateIndependent(((VolatilityReductionMercurioModel)covarianceModel).getBaseCovarianceModel());
+		}
+		return covarianceModel instanceof LIBORCovarianceModelFromVolatilityAndCorrelation;
 	}
 
 	@Override
@@ -1285,6 +1641,14 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 			return getLIBOR(process, timeIndex, periodStartIndex);
 		}
 
+		// The requested LIBOR is not a model primitive. If enabled, use the cached accrual products (available from the first period not fixed).
+		if(isUseAccrualProductCache) {
+			final RandomVariable[] accrualProducts = getAccrualProducts(process, timeIndex);
+			if(accrualProducts[periodStartIndex] != null) {
+				return accrualProducts[periodEndIndex].div(accrualProducts[periodStartIndex]).sub(1.0).div(periodEnd - periodStart);
+			}
+		}
+
 		// The requested LIBOR is not a model primitive. We need to calculate it (slow!)
 		RandomVariable accrualAccount = randomVariableFactory.createRandomVariable(1.0);
 
@@ -1302,6 +1666,40 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		return libor;
 	}
 
+	/*
+	 * Returns the accrual products \prod_{m<=k<i} (1 + L_{k}(t) \delta_{k}) for i = m, ..., n, evaluated at the given time index,
+	 * where m is the index of the first period not fixed at t (the elements for i < m are null).
+	 * Starting at m, the rates of fixed periods (which may have exploded or been capped) do not enter the products of later periods.
+	 * The products are calculated once per process and time index and are not modified afterwards.
+	 */
+	private RandomVariable[] getAccrualProducts(final MonteCarloProcess process, final int timeIndex) throws CalculationException {
+		AtomicReferenceArray<RandomVariable[]> accrualProductsOfProcess = accrualProducts.get(process);
+		if(accrualProductsOfProcess == null) {
+			accrualProductsOfProcess = accrualProducts.putIfAbsent(process, new AtomicReferenceArray<>(process.getTimeDiscretization().getNumberOfTimes()));
+		}
+
+		RandomVariable[] accrualProductsAtTimeIndex = accrualProductsOfProcess.get(timeIndex);
+		if(accrualProductsAtTimeIndex == null) {
+			// First period not fixed (as in getDrift, in the Mercurio modification a rate is not fixed before the end of its period)
+			int firstLiborIndex = getLiborPeriodIndex(process.getTime(timeIndex));
+			if(firstLiborIndex < 0) {
+				firstLiborIndex = -firstLiborIndex-1-1;
+			}
+			firstLiborIndex = Math.max(Math.min(firstLiborIndex, getNumberOfLibors()), 0);
+
+			accrualProductsAtTimeIndex = new RandomVariable[getNumberOfLibors()+1];
+			accrualProductsAtTimeIndex[firstLiborIndex] = randomVariableFactory.createRandomVariable(1.0);
+			for(int periodIndex = firstLiborIndex; periodIndex < getNumberOfLibors(); periodIndex++) {
+				final double periodLength = getLiborPeriod(periodIndex+1) - getLiborPeriod(periodIndex);
+				accrualProductsAtTimeIndex[periodIndex+1] = accrualProductsAtTimeIndex[periodIndex].accrue(getLIBOR(process, timeIndex, periodIndex), periodLength);
+			}
+			if(!accrualProductsOfProcess.compareAndSet(timeIndex, null, accrualProductsAtTimeIndex)) {
+				accrualProductsAtTimeIndex = accrualProductsOfProcess.get(timeIndex);
+			}
+		}
+		return accrualProductsAtTimeIndex;
+	}
+
 	@Override
 	public RandomVariable getLIBOR(final MonteCarloProcess process, final int timeIndex, final int liborIndex) throws CalculationException
 	{
@@ -1399,108 +1797,99 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 			return null;
 
 		case LOG_LINEAR_CORRECTED:
-			final double tenorPeriodStartTime  = getLiborPeriod(liborIndex);
-			int    tenorPeriodStartIndex = process.getTimeIndex(tenorPeriodStartTime);
-			if(tenorPeriodStartIndex < 0)
-			{
-				tenorPeriodStartIndex = - tenorPeriodStartIndex - 2;
-			}
-			// Lazy init of interpolationDriftAdjustmentsTerminal
-			if(evaluationTimeIndex == tenorPeriodStartIndex) {
-				synchronized(interpolationDriftAdjustmentsTerminal) {
-					// Invalidate cache if process has changed
-					ensureCacheConsistency(process);
-
-					// Check if value is cached
-					if(interpolationDriftAdjustmentsTerminal.size() <= liborIndex) {
-						interpolationDriftAdjustmentsTerminal.setSize(getNumberOfLibors());
-					}
+			return getInterpolationDriftAdjustmentEvaluated(process, evaluationTimeIndex, liborIndex);
+		default: throw new IllegalArgumentException("Method for enum " + interpolationMethod.name() + " not implemented!");
+		}
+	}
 
-					RandomVariable interpolationDriftAdjustment = interpolationDriftAdjustmentsTerminal.get(liborIndex);
-					if(interpolationDriftAdjustment == null) {
-						interpolationDriftAdjustment = getInterpolationDriftAdjustmentEvaluated(process, evaluationTimeIndex, liborIndex);
-						interpolationDriftAdjustmentsTerminal.set(liborIndex, interpolationDriftAdjustment);
-					}
+	/*
+	 * Returns the trapezoid approximation of the integral of the interpolation drift adjustment integrand from 0 to the given time index.
+	 * The running integral is cached per process and LIBOR and extended on demand, such that each time step is integrated only once.
+	 */
+	private RandomVariable getInterpolationDriftAdjustmentEvaluated(final MonteCarloProcess process, final int evaluationTimeIndex, final int liborIndex) throws CalculationException
+	{
+		AtomicReferenceArray<InterpolationDriftAdjustmentIntegral> integralsOfProcess = interpolationDriftAdjustments.get(process);
+		if(integralsOfProcess == null) {
+			integralsOfProcess = interpolationDriftAdjustments.putIfAbsent(process, new AtomicReferenceArray<>(getNumberOfLibors()));
+		}
+
+		InterpolationDriftAdjustmentIntegral integral = integralsOfProcess.get(liborIndex);
+		if(integral == null) {
+			integralsOfProcess.compareAndSet(liborIndex, null, new InterpolationDriftAdjustmentIntegral(process.getTimeDiscretization().getNumberOfTimes()));
+			integral = integralsOfProcess.get(liborIndex);
+		}
 
-					return interpolationDriftAdjustment;
+		if(evaluationTimeIndex >= integral.numberOfTimeIndicesIntegrated) {
+			synchronized(integral) {
+				int sumTimeIndex = integral.numberOfTimeIndicesIntegrated;
+				if(sumTimeIndex == 0) {
+					integral.values[0] = getRandomVariableForConstant(0.0);
+					integral.previousIntegrand = getInterpolationDriftAdjustmentIntegrand(process, 0, liborIndex);
+					sumTimeIndex++;
 				}
+				for(; sumTimeIndex <= evaluationTimeIndex; sumTimeIndex++) {
+					final RandomVariable integrand = getInterpolationDriftAdjustmentIntegrand(process, sumTimeIndex, liborIndex);
+					final double integralDt = 0.5 * (process.getTime(sumTimeIndex) - process.getTime(sumTimeIndex - 1));
+					integral.values[sumTimeIndex] = integral.values[sumTimeIndex-1].add( (integrand.add(integral.previousIntegrand)).mult(integralDt) );
+					integral.previousIntegrand = integrand;
+				}
+				integral.numberOfTimeIndicesIntegrated = Math.max(integral.numberOfTimeIndicesIntegrated, sumTimeIndex);
 			}
-			else {
-				return getInterpolationDriftAdjustmentEvaluated(process, evaluationTimeIndex, liborIndex);
-			}
-		default: throw new IllegalArgumentException("Method for enum " + interpolationMethod.name() + " not implemented!");
 		}
+
+		return integral.values[evaluationTimeIndex];
 	}
 
-	private RandomVariable getInterpolationDriftAdjustmentEvaluated(final MonteCarloProcess process, final int evaluationTimeIndex, final int liborIndex) throws CalculationException
+	/*
+	 * The integrand of the interpolation drift adjustment at a given time index, i.e., o_{L_i}(t).
+	 */
+	private RandomVariable getInterpolationDriftAdjustmentIntegrand(final MonteCarloProcess process, final int sumTimeIndex, final int liborIndex) throws CalculationException
 	{
-
 		final double tenorPeriodStartTime  = getLiborPeriod(liborIndex);
 		final double tenorPeriodEndTime    = getLiborPeriod(liborIndex + 1);
 		final double tenorDt               = tenorPeriodEndTime - tenorPeriodStartTime;
 
-		RandomVariable driftAdjustment = getRandomVariableForConstant(0.0);
-
-		/*
-		 * Integral approximation with trapezoid method.
-		 */
-		RandomVariable previousIntegrand = getRandomVariableForConstant(0.0);
-
-		/*
-		 * Value in 0
-		 */
-		final RandomVariable[] realizationsAtZero = new RandomVariable[getNumberOfLibors()];
+		final RandomVariable[] realizationsAtTimeIndex = new RandomVariable[getNumberOfLibors()];
 		for(int liborIndexForRealization = 0; liborIndexForRealization < getNumberOfLibors(); liborIndexForRealization++)
 		{
-			realizationsAtZero[liborIndexForRealization] = getLIBOR(process, 0, liborIndexForRealization);
+			int evaluationTimeIndexForRealizations = 0;
+			if(sumTimeIndex > 0) {
+//----->MERCURIO 
+//				evaluationTimeIndexForRealizations = Math.min(sumTimeIndex, getTimeIndex(getLiborPeriod(liborIndexForRealization)));
+				evaluationTimeIndexForRealizations = Math.min(sumTimeIndex, process.getTimeIndex(getLiborPeriod(liborIndexForRealization+1)));
+				if(evaluationTimeIndexForRealizations < 0)
+				{
+					evaluationTimeIndexForRealizations = - evaluationTimeIndexForRealizations - 2;
+				}
+			}
+			realizationsAtTimeIndex[liborIndexForRealization] = getLIBOR(process, evaluationTimeIndexForRealizations, liborIndexForRealization);
 		}
-		final RandomVariable[] factorLoading = getFactorLoading(process, 0, liborIndex, realizationsAtZero);
+		final RandomVariable[] factorLoadingAtTimeIndex = getFactorLoading(process, sumTimeIndex, liborIndex, realizationsAtTimeIndex);
 		//o_{Li}(t)
-		for(final RandomVariable oneFactor : factorLoading)
+		RandomVariable   integrand = getRandomVariableForConstant(0.0);
+		for ( final RandomVariable oneFactor: factorLoadingAtTimeIndex)
 		{
-			previousIntegrand = previousIntegrand.add(oneFactor.squared());
+			integrand = integrand.add(oneFactor.squared());
 		}
-		previousIntegrand = previousIntegrand.div( (realizationsAtZero[liborIndex].mult(tenorDt).add(1.0)).squared() );
+		integrand = integrand.div( (realizationsAtTimeIndex[liborIndex].mult(tenorDt).add(1.0)).squared() );
 		if(stateSpace == StateSpace.LOGNORMAL)
 		{
-			previousIntegrand = previousIntegrand.mult( realizationsAtZero[liborIndex].squared() );
+			integrand = integrand.mult( realizationsAtTimeIndex[liborIndex].squared() );
 		}
+		return integrand;
+	}
 
-		/*
-		 * Integration
-		 */
-		for(int sumTimeIndex = 1; sumTimeIndex <= evaluationTimeIndex; sumTimeIndex++)
-		{
-			final RandomVariable[] realizationsAtTimeIndex = new RandomVariable[getNumberOfLibors()];
-			for(int liborIndexForRealization = 0; liborIndexForRealization < getNumberOfLibors(); liborIndexForRealization++)
-			{
-//----->MERCURIO 
-//				int evaluationTimeIndexForRealizations = Math.min(sumTimeIndex, getTimeIndex(getLiborPeriod(liborIndexForRealization)));
-				int evaluationTimeIndexForRealizations = Math.min(sumTimeIndex, process.getTimeIndex(getLiborPeriod(liborIndexForRealization+1)));
-				if(evaluationTimeIndexForRealizations < 0)
-				{
-					evaluationTimeIndexForRealizations = - evaluationTimeIndexForRealizations - 2;
-				}
-				realizationsAtTimeIndex[liborIndexForRealization] = getLIBOR(process, evaluationTimeIndexForRealizations, liborIndexForRealization);
-			}
-			final RandomVariable[] factorLoadingAtTimeIndex = getFactorLoading(process, sumTimeIndex, liborIndex, realizationsAtTimeIndex);
-			//o_{Li}(t)
-			RandomVariable   integrand = getRandomVariableForConstant(0.0);
-			for ( final RandomVariable oneFactor: factorLoadingAtTimeIndex)
-			{
-				integrand = integrand.add(oneFactor.squared());
-			}
-			integrand = integrand.div( (realizationsAtTimeIndex[liborIndex].mult(tenorDt).add(1.0)).squared() );
-			if(stateSpace == StateSpace.LOGNORMAL)
-			{
-				integrand = integrand.mult( realizationsAtTimeIndex[liborIndex].squared() );
-			}
-			final double integralDt = 0.5 * (process.getTime(sumTimeIndex) - process.getTime(sumTimeIndex - 1));
-			driftAdjustment = driftAdjustment.add( (integrand.add(previousIntegrand)).mult(integralDt) );
-			previousIntegrand = integrand;
-		}
+	/*
+	 * Running integral of the interpolation drift adjustment for one LIBOR. Values up to numberOfTimeIndicesIntegrated-1 are final.
+	 */
+	private static final class InterpolationDriftAdjustmentIntegral {
+		private final RandomVariable[] values;
+		private RandomVariable previousIntegrand;
+		private volatile int numberOfTimeIndicesIntegrated = 0;
 
-		return driftAdjustment;
+		private InterpolationDriftAdjustmentIntegral(final int numberOfTimes) {
+			values = new RandomVariable[numberOfTimes];
+		}
 	}
 
 	@Override
@@ -1553,52 +1942,209 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		return measure;
 	}
 
+	/**
+	 * @return Returns the state space. See {@link StateSpace}.
+	 */
+	public StateSpace getStateSpace() {
+		return stateSpace;
+	}
+
+	/**
+	 * Returns the integrated instantaneous LIBOR covariance, i.e.,
+	 * \( \int_{0}^{t_{k+1}} \lambda_{i}(s) \cdot \lambda_{j}(s) \mathrm{d}s \) for all time indices <i>k</i> of the given
+	 * time discretization and all components <i>i</i>, <i>j</i>.
+	 *
+	 * The result is cached for the most recently used time discretizations. Internally the symmetric matrices are stored packed (upper triangle);
+	 * the full cube returned by this method is kept only as long as memory permits.
+	 * This method is provided for callers of the <code>LIBORMarketModel</code> interface. Callers in this package
+	 * (e.g. {@link SwaptionAnalyticApproximationWithMercurioModification}) use {@link #getIntegratedLIBORCovariancePacked(TimeDiscretization)}
+	 * to access single elements without expanding the cube.
+	 *
+	 * @param simulationTimeDiscretization The time discretization.
+	 * @return The integrated LIBOR covariance as <code>double[timeIndex][component1][component2]</code>.
+	 */
 	@Override
 	public double[][][] getIntegratedLIBORCovariance(TimeDiscretization simulationTimeDiscretization) {
-		synchronized (integratedLIBORCovarianceLazyInitLock) {
-			if(integratedLIBORCovariance == null) {
-				final TimeDiscretization liborPeriodDiscretization = getLiborPeriodDiscretization();
-
-				integratedLIBORCovariance = new double[simulationTimeDiscretization.getNumberOfTimeSteps()][liborPeriodDiscretization.getNumberOfTimeSteps()][liborPeriodDiscretization.getNumberOfTimeSteps()];
-				for(int timeIndex = 0; timeIndex < simulationTimeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
-					final double dt = simulationTimeDiscretization.getTime(timeIndex+1) - simulationTimeDiscretization.getTime(timeIndex);
-					final RandomVariable[][] factorLoadings = new RandomVariable[liborPeriodDiscretization.getNumberOfTimeSteps()][];
-					// Prefetch factor loadings
-					for(int componentIndex = 0; componentIndex < liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
-						factorLoadings[componentIndex] = covarianceModel.getFactorLoading(simulationTimeDiscretization.getTime(timeIndex), liborPeriodDiscretization.getTime(componentIndex), null);
-					}
-					for(int componentIndex1 = 0; componentIndex1 < liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex1++) {
-						final RandomVariable[] factorLoadingOfComponent1 = factorLoadings[componentIndex1];
-						// Sum the libor cross terms (use symmetry)
-						for(int componentIndex2 = componentIndex1; componentIndex2 < liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex2++) {
-							double integratedLIBORCovarianceValue = 0.0;
-	//----->MERCURIO				if(getLiborPeriod(componentIndex1) > getTime(timeIndex)) {
-							if(getLiborPeriod(componentIndex1+1) > simulationTimeDiscretization.getTime(timeIndex)) {
-								final RandomVariable[] factorLoadingOfComponent2 = factorLoadings[componentIndex2];
-								for(int factorIndex = 0; factorIndex < factorLoadingOfComponent2.length; factorIndex++) {
-									integratedLIBORCovarianceValue += factorLoadingOfComponent1[factorIndex].get(0) * factorLoadingOfComponent2[factorIndex].get(0) * dt;
-								}
-							}
-							integratedLIBORCovariance[timeIndex][componentIndex1][componentIndex2] = integratedLIBORCovarianceValue;
+		final IntegratedLIBORCovariance integratedCovariance = getIntegratedLIBORCovariancePacked(simulationTimeDiscretization);
+
+		double[][][] integratedLIBORCovariance = integratedCovariance.expanded.get();
+		if(integratedLIBORCovariance == null) {
+			integratedLIBORCovariance = integratedCovariance.getExpanded();
+			integratedCovariance.expanded = new SoftReference<>(integratedLIBORCovariance);
+		}
+		return integratedLIBORCovariance;
+	}
+
+	/**
+	 * Returns the integrated instantaneous covariance of two LIBORs
+	 * \( \int_{0}^{t_{k+1}} \lambda_{i}(s) \cdot \lambda_{j}(s) \mathrm{d}s \), where \( t_{k+1} \) is the time
+	 * following time index <i>k</i> in the given time discretization.
+	 *
+	 * Each call looks up the cache by the time points of the time discretization. To access many elements, use {@link #getIntegratedLIBORCovariancePacked(TimeDiscretization)}.
+	 *
+	 * @param simulationTimeDiscretization The time discretization.
+	 * @param timeIndex The time index <i>k</i>.
+	 * @param component1 The index <i>i</i> of the first LIBOR.
+	 * @param component2 The index <i>j</i> of the second LIBOR.
+	 * @return The integrated covariance.
+	 */
+	public double getIntegratedLIBORCovariance(TimeDiscretization simulationTimeDiscretization, int timeIndex, int component1, int component2) {
+		return getIntegratedLIBORCovariancePacked(simulationTimeDiscretization).get(timeIndex, component1, component2);
+	}
+
+	/**
+	 * Returns the integrated instantaneous LIBOR covariance on the given time discretization in packed storage,
+	 * see {@link IntegratedLIBORCovariance#get(int, int, int)}.
+	 *
+	 * @param simulationTimeDiscretization The time discretization.
+	 * @return The integrated LIBOR covariance.
+	 */
+	IntegratedLIBORCovariance getIntegratedLIBORCovariancePacked(TimeDiscretization simulationTimeDiscretization) {
+		final TimeDiscretizationKey key = new TimeDiscretizationKey(simulationTimeDiscretization);
+
+		IntegratedLIBORCovariance integratedCovariance;
+		synchronized(integratedLIBORCovariances) {
+			integratedCovariance = integratedLIBORCovariances.get(key);
+		}
+		if(integratedCovariance == null) {
+			// Calculated outside of the lock, such that the (parallel) calculation does not block other time discretizations. Concurrent calculations give the same result.
+			integratedCovariance = calculateIntegratedLIBORCovariance(simulationTimeDiscretization);
+			synchronized(integratedLIBORCovariances) {
+				final IntegratedLIBORCovariance integratedCovarianceCached = integratedLIBORCovariances.putIfAbsent(key, integratedCovariance);
+				if(integratedCovarianceCached != null) {
+					integratedCovariance = integratedCovarianceCached;
+				}
+			}
+		}
+		return integratedCovariance;
+	}
+
+	private IntegratedLIBORCovariance calculateIntegratedLIBORCovariance(TimeDiscretization simulationTimeDiscretization) {
+		final int numberOfComponents = liborPeriodDiscretization.getNumberOfTimeSteps();
+		final int numberOfTimeSteps = simulationTimeDiscretization.getNumberOfTimeSteps();
+		final int numberOfElements = numberOfComponents * (numberOfComponents+1) / 2;
+
+		final double[][] integratedLIBORCovariance = new double[numberOfTimeSteps][];
+
+		// Instantaneous covariance times dt for each time step (independent, hence in parallel)
+		IntStream.range(0, numberOfTimeSteps).parallel().forEach(timeIndex -> {
+			final double time = simulationTimeDiscretization.getTime(timeIndex);
+			final double dt = simulationTimeDiscretization.getTime(timeIndex+1) - time;
+
+			// Prefetch factor loadings
+			final double[][] factorLoadings = new double[numberOfComponents][];
+			for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+				final RandomVariable[] factorLoading = covarianceModel.getFactorLoading(time, liborPeriodDiscretization.getTime(componentIndex), null);
+				factorLoadings[componentIndex] = new double[factorLoading.length];
+				for(int factorIndex = 0; factorIndex < factorLoading.length; factorIndex++) {
+					factorLoadings[componentIndex][factorIndex] = factorLoading[factorIndex].get(0);
+				}
+			}
+
+			final double[] covariance = new double[numberOfElements];
+			int elementIndex = 0;
+			for(int componentIndex1 = 0; componentIndex1 < numberOfComponents; componentIndex1++) {
+				final double[] factorLoadingOfComponent1 = factorLoadings[componentIndex1];
+				//----->MERCURIO	LIBORs contribute until the end of their period
+				final boolean isAlive = getLiborPeriod(componentIndex1+1) > time;
+				// Sum the libor cross terms (use symmetry)
+				for(int componentIndex2 = componentIndex1; componentIndex2 < numberOfComponents; componentIndex2++) {
+					double integratedLIBORCovarianceValue = 0.0;
+					if(isAlive) {
+						final double[] factorLoadingOfComponent2 = factorLoadings[componentIndex2];
+						for(int factorIndex = 0; factorIndex < factorLoadingOfComponent2.length; factorIndex++) {
+							integratedLIBORCovarianceValue += factorLoadingOfComponent1[factorIndex] * factorLoadingOfComponent2[factorIndex] * dt;
 						}
 					}
+					covariance[elementIndex++] = integratedLIBORCovarianceValue;
+				}
+			}
+			integratedLIBORCovariance[timeIndex] = covariance;
+		});
+
+		// Integrate over time (i.e. sum up) - the prefix sums of different elements are independent, hence in parallel over blocks of elements.
+		final int blockSize = 64;
+		IntStream.range(0, (numberOfElements + blockSize - 1) / blockSize).parallel().forEach(blockIndex -> {
+			final int elementStart = blockIndex * blockSize;
+			final int elementEnd = Math.min(elementStart + blockSize, numberOfElements);
+			for(int timeIndex = 1; timeIndex < numberOfTimeSteps; timeIndex++) {
+				final double[] prevIntegratedLIBORCovariance = integratedLIBORCovariance[timeIndex-1];
+				final double[] thisIntegratedLIBORCovariance = integratedLIBORCovariance[timeIndex];
+				for(int elementIndex = elementStart; elementIndex < elementEnd; elementIndex++) {
+					thisIntegratedLIBORCovariance[elementIndex] += prevIntegratedLIBORCovariance[elementIndex];
 				}
+			}
+		});
 
-				// Integrate over time (i.e. sum up).
-				for(int timeIndex = 1; timeIndex < simulationTimeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
-					final double[][] prevIntegratedLIBORCovariance = integratedLIBORCovariance[timeIndex-1];
-					final double[][] thisIntegratedLIBORCovariance = integratedLIBORCovariance[timeIndex];
-					for(int componentIndex1 = 0; componentIndex1 < liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex1++) {
-						for(int componentIndex2 = componentIndex1; componentIndex2 < liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex2++) {
-							thisIntegratedLIBORCovariance[componentIndex1][componentIndex2] = prevIntegratedLIBORCovariance[componentIndex1][componentIndex2] + thisIntegratedLIBORCovariance[componentIndex1][componentIndex2];
-							thisIntegratedLIBORCovariance[componentIndex2][componentIndex1] = thisIntegratedLIBORCovariance[componentIndex1][componentIndex2];
-						}
+		return new IntegratedLIBORCovariance(integratedLIBORCovariance, numberOfComponents);
+	}
+
+	/*
+	 * Integrated covariance matrices stored as packed upper triangles (row major): element (i,j), i <= j, at i*n - i*(i-1)/2 + (j-i).
+	 */
+	static final class IntegratedLIBORCovariance {
+		private final double[][] packed;
+		private final int numberOfComponents;
+		private volatile SoftReference<double[][][]> expanded = new SoftReference<>(null);
+
+		private IntegratedLIBORCovariance(double[][] packed, int numberOfComponents) {
+			this.packed = packed;
+			this.numberOfComponents = numberOfComponents;
+		}
+
+		/**
+		 * Returns the integrated covariance \( \int_{0}^{t_{k+1}} \lambda_{i}(s) \cdot \lambda_{j}(s) \mathrm{d}s \).
+		 *
+		 * @param timeIndex The time index <i>k</i>.
+		 * @param component1 The index <i>i</i> of the first LIBOR.
+		 * @param component2 The index <i>j</i> of the second LIBOR.
+		 * @return The integrated covariance.
+		 */
+		double get(int timeIndex, int component1, int component2) {
+			final int row = Math.min(component1, component2);
+			final int column = Math.max(component1, component2);
+			return packed[timeIndex][row * numberOfComponents - row * (row-1) / 2 + (column - row)];
+		}
+
+		private double[][][] getExpanded() {
+			final double[][][] integratedLIBORCovariance = new double[packed.length][numberOfComponents][numberOfComponents];
+			for(int timeIndex = 0; timeIndex < packed.length; timeIndex++) {
+				final double[] packedCovariance = packed[timeIndex];
+				final double[][] covariance = integratedLIBORCovariance[timeIndex];
+				int elementIndex = 0;
+				for(int componentIndex1 = 0; componentIndex1 < numberOfComponents; componentIndex1++) {
+					for(int componentIndex2 = componentIndex1; componentIndex2 < numberOfComponents; componentIndex2++) {
+						covariance[componentIndex1][componentIndex2] = packedCovariance[elementIndex];
+						covariance[componentIndex2][componentIndex1] = packedCovariance[elementIndex];
+						elementIndex++;
 					}
 				}
 			}
+			return integratedLIBORCovariance;
 		}
+	}
 
-		return integratedLIBORCovariance;
+	/*
+	 * Key identifying a time discretization by its time points.
+	 */
+	private static final class TimeDiscretizationKey {
+		private final double[] times;
+		private final int hashCode;
+
+		private TimeDiscretizationKey(TimeDiscretization timeDiscretization) {
+			times = timeDiscretization.getAsDoubleArray();
+			hashCode = Arrays.hashCode(times);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TimeDiscretizationKey && Arrays.equals(times, ((TimeDiscretizationKey)obj).times);
+		}
 	}
 
 	@Override
@@ -1638,6 +2184,9 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 			properties.put("stateSpace",	stateSpace.name());
 			properties.put("interpolationMethod", interpolationMethod.name());
 			properties.put("liborCap", liborCap);
+			properties.put("isUseFusedDriftKernel", isUseFusedDriftKernel);
+			properties.put("driftApproximationMethod", driftApproximationMethod.name());
+			properties.put("isUseAccrualProductCache", isUseAccrualProductCache);
 			return LIBORMarketModelFromCovarianceModelWithMercurioModification.of(getLiborPeriodDiscretization(), getAnalyticModel(), getForwardRateCurve(), getDiscountCurve(), randomVariableFactory, covarianceModel, null, properties);
 		} catch (final CalculationException e) {
 			return null;
@@ -1652,6 +2201,7 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 	public LIBORMarketModelFromCovarianceModelWithMercurioModification getCloneWithModifiedCovarianceModel(final LIBORCovarianceModel covarianceModel) {
 		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = (LIBORMarketModelFromCovarianceModelWithMercurioModification)this.clone();
 		model.covarianceModel = covarianceModel;
+		model.factorLoadingTable = null;
 		return model;
 	}
 
@@ -1669,6 +2219,9 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		properties.put("stateSpace",	stateSpace.name());
 		properties.put("interpolationMethod", interpolationMethod.name());
 		properties.put("liborCap", liborCap);
+		properties.put("isUseFusedDriftKernel", isUseFusedDriftKernel);
+		properties.put("driftApproximationMethod", driftApproximationMethod.name());
+		properties.put("isUseAccrualProductCache", isUseAccrualProductCache);
 
 		if(dataModified != null) {
 			abstractRandomVariableFactory = (RandomVariableFactory)dataModified.getOrDefault("randomVariableFactory", abstractRandomVariableFactory);
@@ -1733,11 +2286,13 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 		/*
 		 * Init transient fields
 		 */
-		integratedLIBORCovarianceLazyInitLock = new Object();
-		numeraires = new ConcurrentHashMap<>();
+		integratedLIBORCovariances = new LeastRecentlyUsedCache<>(maxNumberOfCachedIntegratedLIBORCovariances);
+		numeraires = new MonteCarloProcessCache<>();
+		accrualProducts = new MonteCarloProcessCache<>();
+		backwardAccruals = new MonteCarloProcessCache<>();
 		numeraireDiscountFactorForwardRates = new ConcurrentHashMap<>();
 		numeraireDiscountFactors = new ConcurrentHashMap<>();
-		interpolationDriftAdjustmentsTerminal = new Vector<>();
+		interpolationDriftAdjustments = new MonteCarloProcessCache<>();
 	}
 
 	@Override
@@ -1751,11 +2306,68 @@ public class LIBORMarketModelFromCovarianceModelWithMercurioModification extends
 				+ ", measure=" + measure + ", stateSpace=" + stateSpace + "]";
 	}
 
-
+	/**
+	 * Returns the backward looking (compounded in arrears) rate over the period from <code>periodStart</code> to <code>periodEnd</code>
+	 * as seen at time <code>time</code>.
+	 *
+	 * In the Mercurio modification the forward rate \( L_{k} \) keeps evolving until the end of its period, such that
+	 * \( L_{k}(T_{k+1}) \) is the rate compounded in arrears over \( [T_{k}, T_{k+1}] \). For periods on the tenor discretization,
+	 * which have ended at <code>time</code>, the method returns
+	 * \[ \frac{1}{T_{b}-T_{a}} \left( \prod_{k=a}^{b-1} (1 + L_{k}(T_{k+1}) \delta_{k}) - 1 \right) \]
+	 * where the products \( \prod_{k<i} (1 + L_{k}(T_{k+1}) \delta_{k}) \) are calculated once per process and shared by all periods.
+	 * Otherwise (period not ended or not on the tenor discretization) the forward rate {@link #getLIBOR(MonteCarloProcess, double, double, double)} is returned,
+	 * which is the expectation of the compounded rate in the corresponding forward measure.
+	 *
+	 * @param process The discretization process generating this model.
+	 * @param time The evaluation time.
+	 * @param periodStart The period start.
+	 * @param periodEnd The period end.
+	 * @return The backward looking rate.
+	 */
 	@Override
 	public RandomVariable getBackward(MonteCarloProcess process, double time, double periodStart, double periodEnd) {
-		// TODO Auto-generated method stub
-		return null;
+		try {
+			final int periodStartIndex	= getLiborPeriodIndex(periodStart);
+			final int periodEndIndex	= getLiborPeriodIndex(periodEnd);
+			if(periodStartIndex < 0 || periodEndIndex < 0 || periodStartIndex+1 == periodEndIndex || time < periodEnd) {
+				return getLIBOR(process, time, periodStart, periodEnd);
+			}
+
+			RandomVariable[] backwardAccrualsOfProcess = backwardAccruals.get(process);
+			if(backwardAccrualsOfProcess == null) {
+				backwardAccrualsOfProcess = backwardAccruals.putIfAbsent(process, getBackwardAccruals(process));
+			}
+
+			if(periodEndIndex >= backwardAccrualsOfProcess.length) {
+				return getLIBOR(process, time, periodStart, periodEnd);
+			}
+
+			return backwardAccrualsOfProcess[periodEndIndex].div(backwardAccrualsOfProcess[periodStartIndex]).sub(1.0).div(periodEnd - periodStart);
+		}
+		catch(final CalculationException e) {
+			throw new RuntimeException("Calculation of backward looking rate failed.", e);
+		}
+	}
+
+	/*
+	 * Calculate the products \prod_{k<i} (1 + L_{k}(T_{k+1}) \delta_{k}) for all periods ending within the time discretization of the process.
+	 */
+	private RandomVariable[] getBackwardAccruals(MonteCarloProcess process) throws CalculationException {
+		final double lastTime = process.getTime(process.getTimeDiscretization().getNumberOfTimeSteps());
+
+		int numberOfPeriods = 0;
+		while(numberOfPeriods < getNumberOfLibors() && getLiborPeriod(numberOfPeriods+1) <= lastTime) {
+			numberOfPeriods++;
+		}
+
+		final RandomVariable[] accruals = new RandomVariable[numberOfPeriods+1];
+		accruals[0] = randomVariableFactory.createRandomVariable(1.0);
+		for(int periodIndex = 0; periodIndex < numberOfPeriods; periodIndex++) {
+			final double periodStart	= getLiborPeriod(periodIndex);
+			final double periodEnd		= getLiborPeriod(periodIndex+1);
+			accruals[periodIndex+1] = accruals[periodIndex].accrue(getLIBOR(process, periodEnd, periodStart, periodEnd), periodEnd - periodStart);
+		}
+		return accruals;
 	}
 }
 
@@ -5,10 +5,12 @@
  */
 package com.albertozanon.MercurioModel;
 
+import java.io.Serializable;
 import java.util.Map;
 
 import net.finmath.montecarlo.RandomVariableFactory;
 import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
 import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.time.TimeDiscretization;
@@ -52,9 +54,11 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 
 	private boolean isCalibrateable = false;
 
-	// A lazy init cache
-	private transient RandomVariable[][] volatility;
-	private transient Object volatilityLazyInitLock = new Object();
+	// Parameter independent data, shared between clones with modified parameters
+	private final TimeToMaturityGrid timeToMaturityGrid;
+
+	// A lazy init cache of the volatility surface [timeIndex][liborIndex], published without lock (the surface is immutable once built)
+	private transient volatile RandomVariable[][] volatility;
 
 	/**
 	 * Creates the volatility model &sigma;<sub>i</sub>(t<sub>j</sub>) = ( a + b * (T<sub>i</sub>-t<sub>j</sub>) ) * exp(-c (T<sub>i</sub>-t<sub>j</sub>)) + d
@@ -76,6 +80,7 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 		this.c = c;
 		this.d = d;
 		this.isCalibrateable = isCalibrateable;
+		this.timeToMaturityGrid = new TimeToMaturityGrid(timeDiscretization, liborPeriodDiscretization);
 	}
 
 	/**
@@ -113,6 +118,21 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 		this.c = abstractRandomVariableFactory.createRandomVariable(c);
 		this.d = abstractRandomVariableFactory.createRandomVariable(d);
 		this.isCalibrateable = isCalibrateable;
+		this.timeToMaturityGrid = new TimeToMaturityGrid(timeDiscretization, liborPeriodDiscretization);
+	}
+
+	/*
+	 * Constructor used for clones with modified parameters, sharing the parameter independent time to maturity grid.
+	 */
+	private LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(final LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification model, final RandomVariable a, final RandomVariable b, final RandomVariable c, final RandomVariable d) {
+		super(model.getTimeDiscretization(), model.getLiborPeriodDiscretization());
+		this.abstractRandomVariableFactory = model.abstractRandomVariableFactory;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		this.isCalibrateable = model.isCalibrateable;
+		this.timeToMaturityGrid = model.timeToMaturityGrid;
 	}
 
 	/**
@@ -151,38 +171,46 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 			return this;
 		}
 
-		return new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(
-				abstractRandomVariableFactory,
-				getTimeDiscretization(),
-				getLiborPeriodDiscretization(),
-				parameter[0],
-				parameter[1],
-				parameter[2],
-				parameter[3],
-				isCalibrateable
-				);
+		return new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(this, parameter[0], parameter[1], parameter[2], parameter[3]);
 	}
 
 	@Override
 	public RandomVariable getVolatility(final int timeIndex, final int liborIndex) {
+		RandomVariable[][] volatility = this.volatility;
+		if(volatility == null) {
+			/*
+			 * Build the full surface. Threads racing here may build it more than once, but all build the same values,
+			 * hence reads never block.
+			 */
+			volatility = createVolatilitySurface();
+			this.volatility = volatility;
+		}
 
-		synchronized (volatilityLazyInitLock) {
-			if(volatility == null) {
-				volatility = new RandomVariable[getTimeDiscretization().getNumberOfTimeSteps()][getLiborPeriodDiscretization().getNumberOfTimeSteps()];
-			} // NB:: getTimeDiscretization ritorna la timeDiscretization ovvero la discretizzaz. del SIMULATION TIME
+		return volatility[timeIndex][liborIndex];
+	}
 
-			if(volatility[timeIndex][liborIndex] == null) {
-				final double time             = getTimeDiscretization().getTime(timeIndex);
-//---> MERCURIO
-			//	final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex);
-				final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex+1);
-				final double timeToMaturity   = maturity-time;
+	/*
+	 * Calculate the volatility ( a + b (T_{i+1}-t_{j}) ) exp(-c (T_{i+1}-t_{j})) + d for all (timeIndex, liborIndex).
+	 */
+	private RandomVariable[][] createVolatilitySurface() {
+		// The exponential decay only depends on the (deterministic) value of c, hence it is shared with clones bumping other parameters
+		final double[][] exponentialDecay = c.isDeterministic() && !(c instanceof RandomVariableDifferentiable) ? timeToMaturityGrid.getExponentialDecay(c.doubleValue()) : null;
+
+		final RandomVariable[][] volatility = new RandomVariable[getTimeDiscretization().getNumberOfTimes()][getLiborPeriodDiscretization().getNumberOfTimeSteps()];
+		// NB:: getTimeDiscretization ritorna la timeDiscretization ovvero la discretizzaz. del SIMULATION TIME
+		for(int timeIndex=0; timeIndex<volatility.length; timeIndex++) {
+			for(int liborIndex=0; liborIndex<volatility[timeIndex].length; liborIndex++) {
+				final double timeToMaturity   = timeToMaturityGrid.getTimeToMaturity(timeIndex, liborIndex);
 
 				RandomVariable volatilityInstanteaneous;
 				if(timeToMaturity <= 0)
 				{
 					volatilityInstanteaneous = abstractRandomVariableFactory.createRandomVariable(0.0);   // This forward rate is already fixed, no volatility
 				}
+				else if(exponentialDecay != null)
+				{
+					volatilityInstanteaneous = (a.addProduct(b, timeToMaturity)).mult(exponentialDecay[timeIndex][liborIndex]).add(d);
+				}
 				else
 				{
 					volatilityInstanteaneous = (a.addProduct(b, timeToMaturity)).mult(c.mult(-timeToMaturity).exp()).add(d);
@@ -190,23 +218,14 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 
 				volatility[timeIndex][liborIndex] = volatilityInstanteaneous;
 			}
-
-			return volatility[timeIndex][liborIndex];
 		}
+
+		return volatility;
 	}
 
 	@Override
 	public Object clone() {
-		return new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(
-				abstractRandomVariableFactory,
-				super.getTimeDiscretization(),
-				super.getLiborPeriodDiscretization(),
-				a,
-				b,
-				c,
-				d,
-				isCalibrateable
-				);
+		return new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(this, a, b, c, d);
 	}
 
 	@Override
@@ -253,12 +272,58 @@ public class LIBORVolatilityModelFourParameterExponentialFormWithMercurioModific
 		return newModel;
 	}
 
-	/*
-	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-		in.defaultReadObject();
+	/**
+	 * The time to maturity \( T_{i+1}-t_{j} \) on the time discretization and the LIBOR period discretization and the exponential decay
+	 * \( \exp(-c (T_{i+1}-t_{j})) \) for the most recently used values of the parameter c (the least recently used value is evicted when the cache is full).
+	 *
+	 * The grid does not depend on the parameters a, b, c, d. It is shared between the clones created by <code>getCloneWithModifiedParameter</code>,
+	 * e.g., by the finite difference bumps of a calibration, where most bumps reuse the exponential decay of the same c.
+	 */
+	private static class TimeToMaturityGrid implements Serializable {
+
+		private static final long serialVersionUID = 5164950870271626441L;
+
+		private static final int maxNumberOfExponentialDecays = 16;
+
+		private final double[][] timeToMaturity;
+		private final Map<Double, double[][]> exponentialDecays = new LeastRecentlyUsedCache<>(maxNumberOfExponentialDecays);
+
+		TimeToMaturityGrid(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization) {
+			timeToMaturity = new double[timeDiscretization.getNumberOfTimes()][liborPeriodDiscretization.getNumberOfTimeSteps()];
+			for(int timeIndex=0; timeIndex<timeToMaturity.length; timeIndex++) {
+				final double time             = timeDiscretization.getTime(timeIndex);
+				for(int liborIndex=0; liborIndex<timeToMaturity[timeIndex].length; liborIndex++) {
+//---> MERCURIO
+				//	final double maturity         = liborPeriodDiscretization.getTime(liborIndex);
+					final double maturity         = liborPeriodDiscretization.getTime(liborIndex+1);
+					timeToMaturity[timeIndex][liborIndex] = maturity-time;
+				}
+			}
+		}
+
+		double getTimeToMaturity(final int timeIndex, final int liborIndex) {
+			return timeToMaturity[timeIndex][liborIndex];
+		}
+
+		double[][] getExponentialDecay(final double c) {
+			double[][] exponentialDecay;
+			synchronized(exponentialDecays) {
+				exponentialDecay = exponentialDecays.get(c);
+			}
+			if(exponentialDecay == null) {
+				exponentialDecay = new double[timeToMaturity.length][];
+				for(int timeIndex=0; timeIndex<timeToMaturity.length; timeIndex++) {
+					exponentialDecay[timeIndex] = new double[timeToMaturity[timeIndex].length];
+					for(int liborIndex=0; liborIndex<timeToMaturity[timeIndex].length; liborIndex++) {
+						exponentialDecay[timeIndex][liborIndex] = Math.exp(c * -timeToMaturity[timeIndex][liborIndex]);
+					}
+				}
 
-		// Init transient fields
-		volatilityLazyInitLock = new Object();
+				synchronized(exponentialDecays) {
+					exponentialDecays.put(c, exponentialDecay);
+				}
+			}
+			return exponentialDecay;
+		}
 	}
-	 */
 }
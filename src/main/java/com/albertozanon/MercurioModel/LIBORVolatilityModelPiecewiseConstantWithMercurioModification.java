@@ -21,12 +21,16 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 
 	private static final long serialVersionUID = 3258093488453501312L;
 
+	private static final int NO_PARAMETER = -2;
+
 	private final RandomVariableFactory	abstractRandomVariableFactory;
 
 	private final TimeDiscretization	simulationTimeDiscretization;
 	private final TimeDiscretization	timeToMaturityDiscretization;
 
-	private final Map<Integer, Map<Integer, Integer>> 	indexMap = new ConcurrentHashMap<>();
+	// The index map and the index table do not depend on the parameters and are shared (immutable) between clones with modified parameters.
+	private final Map<Integer, Map<Integer, Integer>> 	indexMap;
+	private final int[][]	parameterIndexTable;			// parameterIndexTable[timeIndex][liborIndex], -1 for fixed rates
 	private RandomVariable[] volatility;
 	private final	boolean		isCalibrateable;
 
@@ -35,6 +39,8 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 
 		abstractRandomVariableFactory = new RandomVariableFromArrayFactory();
 
+		indexMap = new ConcurrentHashMap<>();
+
 		/*
 		 * Build index map
 		 */
@@ -71,6 +77,8 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 		this.simulationTimeDiscretization = simulationTimeDiscretization;
 		this.timeToMaturityDiscretization = timeToMaturityDiscretization;
 		this.isCalibrateable = isCalibrateable;
+
+		parameterIndexTable = createParameterIndexTable();
 	}
 
 	public LIBORVolatilityModelPiecewiseConstantWithMercurioModification(final RandomVariableFactory abstractRandomVariableFactory, final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final TimeDiscretization simulationTimeDiscretization, final TimeDiscretization timeToMaturityDiscretization, final double[][] volatility, final boolean isCalibrateable) {
@@ -78,6 +86,8 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 
 		this.abstractRandomVariableFactory = abstractRandomVariableFactory;
 
+		indexMap = new ConcurrentHashMap<>();
+
 		/*
 		 * Build index map
 		 */
@@ -106,6 +116,8 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 		this.simulationTimeDiscretization = simulationTimeDiscretization;
 		this.timeToMaturityDiscretization = timeToMaturityDiscretization;
 		this.isCalibrateable = isCalibrateable;
+
+		parameterIndexTable = createParameterIndexTable();
 	}
 	
 	// ----------> IMPORTANTE
@@ -118,6 +130,8 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 
 		this.abstractRandomVariableFactory = abstractRandomVariableFactory;
 
+		indexMap = new ConcurrentHashMap<>();
+
 		/*
 		 * Build index map 
 		 */
@@ -158,6 +172,34 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 		this.simulationTimeDiscretization = simulationTimeDiscretization;
 		this.timeToMaturityDiscretization = timeToMaturityDiscretization;
 		this.isCalibrateable = isCalibrateable;
+
+		parameterIndexTable = createParameterIndexTable();
+	}
+
+	/*
+	 * Constructor used for clones with modified parameters, sharing the parameter independent index map and index table.
+	 */
+	private LIBORVolatilityModelPiecewiseConstantWithMercurioModification(final LIBORVolatilityModelPiecewiseConstantWithMercurioModification model, final RandomVariable[] volatility) {
+		super(model.getTimeDiscretization(), model.getLiborPeriodDiscretization());
+
+		abstractRandomVariableFactory = model.abstractRandomVariableFactory;
+		simulationTimeDiscretization = model.simulationTimeDiscretization;
+		timeToMaturityDiscretization = model.timeToMaturityDiscretization;
+		indexMap = model.indexMap;
+		parameterIndexTable = model.parameterIndexTable;
+		isCalibrateable = model.isCalibrateable;
+
+		final int numberOfParameters = model.volatility.length;
+		if(volatility.length == 1) {
+			this.volatility = new RandomVariable[numberOfParameters];
+			Arrays.fill(this.volatility, volatility[0]);
+		}
+		else if(volatility.length == numberOfParameters) {
+			this.volatility = volatility.clone();
+		}
+		else {
+			throw new IllegalArgumentException("Volatility length does not match number of free parameters.");
+		}
 	}
 
 	public LIBORVolatilityModelPiecewiseConstantWithMercurioModification(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final TimeDiscretization simulationTimeDiscretization, final TimeDiscretization timeToMaturityDiscretization, final double[] volatility, final boolean isCalibrateable) {
@@ -187,34 +229,36 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 
 	@Override
 	public LIBORVolatilityModel getCloneWithModifiedParameter(final RandomVariable[] parameter) {
-		return new LIBORVolatilityModelPiecewiseConstantWithMercurioModification(
-				super.getTimeDiscretization(),
-				super.getLiborPeriodDiscretization(),
-				simulationTimeDiscretization,
-				timeToMaturityDiscretization,
-				parameter,
-				isCalibrateable
-				);
+		return new LIBORVolatilityModelPiecewiseConstantWithMercurioModification(this, parameter);
 	}
 
 	@Override
 	public RandomVariable getVolatility(final int timeIndex, final int liborIndex) {
-		final double time             = getTimeDiscretization().getTime(timeIndex);	
-//----->	
-//MERCURIO:
-//		final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex);
-		final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex+1);
-		final double timeToMaturity   = maturity-time;
-
-		double volatilityInstanteaneous;
-		if(timeToMaturity <= 0)
-		{
-			volatilityInstanteaneous = 0.0;   // This forward rate is already fixed, no volatility
+		final int parameterIndex = parameterIndexTable[timeIndex][liborIndex];
+		if(parameterIndex < 0) {
+			if(parameterIndex == NO_PARAMETER) {
+				throw new IllegalArgumentException("No volatility parameter for timeIndex " + timeIndex + " and liborIndex " + liborIndex + ".");
+			}
 
-			return abstractRandomVariableFactory == null ? new Scalar(0.0) : abstractRandomVariableFactory.createRandomVariable(time, volatilityInstanteaneous);
+			// This forward rate is already fixed, no volatility
+			final double time = getTimeDiscretization().getTime(timeIndex);
+			return abstractRandomVariableFactory == null ? new Scalar(0.0) : abstractRandomVariableFactory.createRandomVariable(time, 0.0);
 		}
-		else
-		{
+		return volatility[parameterIndex];
+	}
+
+	/*
+	 * Build the table of parameter indices for each (timeIndex, liborIndex) of the model discretization,
+	 * such that getVolatility does not require a search in the simulation time and time to maturity discretization.
+	 */
+	private int[][] createParameterIndexTable() {
+		final TimeDiscretization timeDiscretization = getTimeDiscretization();
+		final TimeDiscretization liborPeriodDiscretization = getLiborPeriodDiscretization();
+
+		final int[][] parameterIndexTable = new int[timeDiscretization.getNumberOfTimes()][liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int timeIndex=0; timeIndex<parameterIndexTable.length; timeIndex++) {
+			final double time             = timeDiscretization.getTime(timeIndex);
+
 			int timeIndexSimulationTime = simulationTimeDiscretization.getTimeIndexNearestLessOrEqual(time);
 			if(timeIndexSimulationTime < 0) {
 				timeIndexSimulationTime = 0;
@@ -222,30 +266,39 @@ public class LIBORVolatilityModelPiecewiseConstantWithMercurioModification exten
 			if(timeIndexSimulationTime >= simulationTimeDiscretization.getNumberOfTimes()) {
 				timeIndexSimulationTime--;
 			}
+			final Map<Integer, Integer> timeToMaturityIndexing = indexMap.get(timeIndexSimulationTime);
 
-			int timeIndexTimeToMaturity = timeToMaturityDiscretization.getTimeIndexNearestLessOrEqual(timeToMaturity);
-			if(timeIndexTimeToMaturity < 0) {
-				timeIndexTimeToMaturity = 0;
-			}
-			if(timeIndexTimeToMaturity >= timeToMaturityDiscretization.getNumberOfTimes()) {
-				timeIndexTimeToMaturity--;
-			}
+			for(int liborIndex=0; liborIndex<parameterIndexTable[timeIndex].length; liborIndex++) {
+//----->	
+//MERCURIO:
+//				final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex);
+				final double maturity         = liborPeriodDiscretization.getTime(liborIndex+1);
+				final double timeToMaturity   = maturity-time;
+
+				if(timeToMaturity <= 0) {
+					parameterIndexTable[timeIndex][liborIndex] = -1;   // This forward rate is already fixed, no volatility
+					continue;
+				}
 
-			final int parameterIndex = indexMap.get(timeIndexSimulationTime).get(timeIndexTimeToMaturity);
-			return volatility[parameterIndex];
+				int timeIndexTimeToMaturity = timeToMaturityDiscretization.getTimeIndexNearestLessOrEqual(timeToMaturity);
+				if(timeIndexTimeToMaturity < 0) {
+					timeIndexTimeToMaturity = 0;
+				}
+				if(timeIndexTimeToMaturity >= timeToMaturityDiscretization.getNumberOfTimes()) {
+					timeIndexTimeToMaturity--;
+				}
+
+				// Combinations without a parameter are reported when requested in getVolatility
+				final Integer parameterIndex = timeToMaturityIndexing.get(timeIndexTimeToMaturity);
+				parameterIndexTable[timeIndex][liborIndex] = parameterIndex != null ? parameterIndex : NO_PARAMETER;
+			}
 		}
+		return parameterIndexTable;
 	}
 
 	@Override
 	public Object clone() {
-		return new LIBORVolatilityModelPiecewiseConstantWithMercurioModification(
-				super.getTimeDiscretization(),
-				super.getLiborPeriodDiscretization(),
-				simulationTimeDiscretization,
-				timeToMaturityDiscretization,
-				volatility.clone(),
-				isCalibrateable
-				);
+		return new LIBORVolatilityModelPiecewiseConstantWithMercurioModification(this, volatility);
 	}
 
 
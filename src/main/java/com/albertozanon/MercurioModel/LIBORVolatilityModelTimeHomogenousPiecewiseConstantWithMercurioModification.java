@@ -26,11 +26,16 @@ public class LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModi
 
 	private static final long serialVersionUID = -1942151065049237807L;
 
+	private static final RandomVariable ZERO = new Scalar(0.0);
+
 	private final RandomVariableFactory	abstractRandomVariableFactory;
 
 	private final TimeDiscretization timeToMaturityDiscretization;
 	private final RandomVariable[] volatility;
 
+	// The parameter index for each (timeIndex, liborIndex), -1 for fixed rates. It only depends on the discretizations and is shared between clones.
+	private final int[][] parameterIndexTable;
+
 	/**
 	 * Create a piecewise constant volatility model, where
 	 * \( \sigma(t,T) = sigma_{i} \) where \( i = \max \{ j : \tau_{j} \leq T-t \} \) and
@@ -55,6 +60,7 @@ public class LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModi
 		this.abstractRandomVariableFactory = abstractRandomVariableFactory;
 		this.timeToMaturityDiscretization = timeToMaturityDiscretization;
 		this.volatility = volatility;
+		this.parameterIndexTable = createParameterIndexTable(timeDiscretization, liborPeriodDiscretization, timeToMaturityDiscretization);
 	}
 
 	/**
@@ -95,6 +101,23 @@ public class LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModi
 		this.abstractRandomVariableFactory = abstractRandomVariableFactory;
 		this.timeToMaturityDiscretization = timeToMaturityDiscretization;
 		this.volatility = abstractRandomVariableFactory.createRandomVariableArray(volatility);
+		this.parameterIndexTable = createParameterIndexTable(timeDiscretization, liborPeriodDiscretization, timeToMaturityDiscretization);
+	}
+
+	/*
+	 * Constructor used for clones with modified parameters, sharing the parameter index table.
+	 */
+	private LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(final LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification model, final RandomVariable[] volatility) {
+		super(model.getTimeDiscretization(), model.getLiborPeriodDiscretization());
+
+		if(model.volatility.length != volatility.length) {
+			throw new IllegalArgumentException("volatility.length should equal timeToMaturityDiscretization.getNumberOfTimes() .");
+		}
+
+		this.abstractRandomVariableFactory = model.abstractRandomVariableFactory;
+		this.timeToMaturityDiscretization = model.timeToMaturityDiscretization;
+		this.volatility = volatility;
+		this.parameterIndexTable = model.parameterIndexTable;
 	}
 
 	/**
@@ -120,56 +143,71 @@ public class LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModi
 
 	@Override
 	public LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification getCloneWithModifiedParameter(final RandomVariable[] parameter) {
-		return new LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(
-				abstractRandomVariableFactory,
-				super.getTimeDiscretization(),
-				super.getLiborPeriodDiscretization(),
-				timeToMaturityDiscretization,
-				parameter
-				);
+		return new LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(this, parameter);
 	}
 
 	@Override
 	public RandomVariable getVolatility(final int timeIndex, final int liborIndex) {
-		// Create a very simple volatility model here
-		final double time             = getTimeDiscretization().getTime(timeIndex);
-		
-//---> MERCURIO:
-		//final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex);
-		final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex+1);
-		final double timeToMaturity   = maturity-time;
-
-		RandomVariable volatilityInstanteaneous;
-		if(timeToMaturity <= 0)
-		{
-			volatilityInstanteaneous = new Scalar(0.0);   // This forward rate is already fixed, no volatility
+		final int parameterIndex = parameterIndexTable[timeIndex][liborIndex];
+		return parameterIndex < 0 ? ZERO : volatility[parameterIndex];		// A fixed forward rate has no volatility
+	}
+
+	/**
+	 * Returns the volatilities of all forward rates for a given time index, i.e., the vector
+	 * \( ( \sigma_{0}(t_{j}), \ldots, \sigma_{n-1}(t_{j}) ) \), where the volatility of a fixed forward rate is zero.
+	 *
+	 * @param timeIndex The time index \( j \) of the simulation time discretization.
+	 * @return The volatilities, indexed by the liborIndex.
+	 */
+	public RandomVariable[] getVolatilities(final int timeIndex) {
+		final int[] parameterIndices = parameterIndexTable[timeIndex];
+
+		final RandomVariable[] volatilities = new RandomVariable[parameterIndices.length];
+		for(int liborIndex=0; liborIndex<volatilities.length; liborIndex++) {
+			volatilities[liborIndex] = parameterIndices[liborIndex] < 0 ? ZERO : volatility[parameterIndices[liborIndex]];
 		}
-		else
-		{
-			int timeIndexTimeToMaturity = timeToMaturityDiscretization.getTimeIndex(timeToMaturity);
-			if(timeIndexTimeToMaturity < 0) {
-				timeIndexTimeToMaturity = -timeIndexTimeToMaturity-1-1;
-			}
-			if(timeIndexTimeToMaturity < 0) {
-				timeIndexTimeToMaturity = 0;
-			}
-			if(timeIndexTimeToMaturity >= timeToMaturityDiscretization.getNumberOfTimes()) {
-				timeIndexTimeToMaturity--;
+		return volatilities;
+	}
+
+	/*
+	 * Map each (timeIndex, liborIndex) to the index i = max { j : tau_j <= T_{i+1}-t } of the volatility, or -1 if the forward rate is fixed.
+	 */
+	private static int[][] createParameterIndexTable(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final TimeDiscretization timeToMaturityDiscretization) {
+		final int[][] parameterIndexTable = new int[timeDiscretization.getNumberOfTimes()][liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int timeIndex=0; timeIndex<parameterIndexTable.length; timeIndex++) {
+			final double time             = timeDiscretization.getTime(timeIndex);
+			for(int liborIndex=0; liborIndex<parameterIndexTable[timeIndex].length; liborIndex++) {
+//---> MERCURIO:
+				//final double maturity         = liborPeriodDiscretization.getTime(liborIndex);
+				final double maturity         = liborPeriodDiscretization.getTime(liborIndex+1);
+				final double timeToMaturity   = maturity-time;
+
+				if(timeToMaturity <= 0)
+				{
+					parameterIndexTable[timeIndex][liborIndex] = -1;   // This forward rate is already fixed, no volatility
+				}
+				else
+				{
+					int timeIndexTimeToMaturity = timeToMaturityDiscretization.getTimeIndex(timeToMaturity);
+					if(timeIndexTimeToMaturity < 0) {
+						timeIndexTimeToMaturity = -timeIndexTimeToMaturity-1-1;
+					}
+					if(timeIndexTimeToMaturity < 0) {
+						timeIndexTimeToMaturity = 0;
+					}
+					if(timeIndexTimeToMaturity >= timeToMaturityDiscretization.getNumberOfTimes()) {
+						timeIndexTimeToMaturity--;
+					}
+					parameterIndexTable[timeIndex][liborIndex] = timeIndexTimeToMaturity;
+				}
 			}
-			volatilityInstanteaneous = volatility[timeIndexTimeToMaturity];
 		}
-
-		return volatilityInstanteaneous;
+		return parameterIndexTable;
 	}
 
 	@Override
 	public Object clone() {
-		return new LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(
-				super.getTimeDiscretization(),
-				super.getLiborPeriodDiscretization(),
-				timeToMaturityDiscretization,
-				volatility.clone()
-				);
+		return new LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(this, volatility.clone());
 	}
 
 	@Override
@@ -0,0 +1,38 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An access ordered map holding at most <code>maximumSize</code> entries, evicting the least recently used entry.
+ * The map is not synchronized.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+class LeastRecentlyUsedCache<K, V> extends LinkedHashMap<K, V> {
+
+	private static final long serialVersionUID = -3325071467270186522L;
+
+	private final int maximumSize;
+
+	/**
+	 * Creates a cache holding at most <code>maximumSize</code> entries.
+	 *
+	 * @param maximumSize The maximum number of entries.
+	 */
+	LeastRecentlyUsedCache(final int maximumSize) {
+		super(maximumSize+1, 1.0f, true);
+		this.maximumSize = maximumSize;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+		return size() > maximumSize;
+	}
+}
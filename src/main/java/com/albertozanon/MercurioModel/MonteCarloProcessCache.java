@@ -0,0 +1,116 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.finmath.montecarlo.process.MonteCarloProcess;
+
+/**
+ * A small lock-free cache associating a value with a <code>MonteCarloProcess</code>.
+ *
+ * The cache holds the most recently used processes (identified by reference) via weak references,
+ * such that models shared by several threads pricing against different processes do not evict
+ * each others cached values. Entries are published as an immutable list, such that reads do not
+ * require a lock.
+ *
+ * Values should be immutable (or be safely publishable), since they may be read by any thread.
+ *
+ * @param <V> The type of the cached value.
+ */
+public class MonteCarloProcessCache<V> {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private static final class Entry<V> {
+		private final WeakReference<MonteCarloProcess> process;
+		private final V value;
+
+		private Entry(final MonteCarloProcess process, final V value) {
+			this.process = new WeakReference<>(process);
+			this.value = value;
+		}
+	}
+
+	private final int capacity;
+	private final AtomicReference<List<Entry<V>>> entries = new AtomicReference<>(Collections.emptyList());
+
+	/**
+	 * Creates a cache holding values for at most <code>capacity</code> processes.
+	 *
+	 * @param capacity The maximum number of processes for which a value is kept.
+	 */
+	public MonteCarloProcessCache(final int capacity) {
+		super();
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Creates a cache holding values for at most 8 processes.
+	 */
+	public MonteCarloProcessCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the value cached for the given process.
+	 *
+	 * @param process The process.
+	 * @return The cached value or null, if no value is cached for this process.
+	 */
+	public V get(final MonteCarloProcess process) {
+		for(final Entry<V> entry : entries.get()) {
+			if(entry.process.get() == process) {
+				return entry.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Associates the given value with the given process, if no value is associated with this process yet.
+	 * If the cache is full the least recently added process is evicted.
+	 *
+	 * @param process The process.
+	 * @param value The value.
+	 * @return The value associated with the process after this call (the existing value if there was one).
+	 */
+	public V putIfAbsent(final MonteCarloProcess process, final V value) {
+		while(true) {
+			final List<Entry<V>> current = entries.get();
+
+			final List<Entry<V>> updated = new ArrayList<>(Math.min(current.size()+1, capacity));
+			updated.add(new Entry<>(process, value));
+			for(final Entry<V> entry : current) {
+				final MonteCarloProcess entryProcess = entry.process.get();
+				if(entryProcess == process) {
+					return entry.value;
+				}
+				if(entryProcess != null && updated.size() < capacity) {
+					updated.add(entry);
+				}
+			}
+
+			if(entries.compareAndSet(current, Collections.unmodifiableList(updated))) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached values.
+	 */
+	public void clear() {
+		entries.set(Collections.emptyList());
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.products.AbstractLIBORMonteCarloProduct;
+import net.finmath.montecarlo.interestrate.products.SwaptionAnalyticApproximation.ValueUnit;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Analytic approximation of the value of a swaption in the {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}
+ * (the approximation of <code>SwaptionAnalyticApproximation</code>, see ISBN 0470047224).
+ *
+ * The log-normal volatility of the swap rate \( S \) is approximated by
+ * \[
+ * 	\sigma^{2} T = \sum_{i,j} \frac{\partial \log(S)}{\partial \log(L_{i})} \frac{\partial \log(S)}{\partial \log(L_{j})} \int_{0}^{T} \lambda_{i}(t) \cdot \lambda_{j}(t) \mathrm{d}t ,
+ * \]
+ * where \( T \) is the option maturity and the derivatives are evaluated at the initial forward rates.
+ * A period of the swap may span several LIBOR periods.
+ *
+ * In contrast to <code>SwaptionAnalyticApproximation</code> the integrated covariance is read element wise from the packed storage of the model
+ * (see {@link LIBORMarketModelFromCovarianceModelWithMercurioModification#getIntegratedLIBORCovariancePacked(TimeDiscretization)}),
+ * such that the full cube <code>double[timeIndex][component1][component2]</code> is never created.
+ *
+ * The approximation uses the initial curves of the model, i.e., it is an approximation of the value as of time 0.
+ */
+public class SwaptionAnalyticApproximationWithMercurioModification extends AbstractLIBORMonteCarloProduct {
+
+	private final double		swaprate;
+	private final double[]		swapTenor;
+	private final ValueUnit		valueUnit;
+
+	/**
+	 * Create the analytic approximation of a swaption.
+	 *
+	 * @param swaprate The strike swap rate of the swaption.
+	 * @param swapTenor The swap tenor in doubles, the first time being the option maturity (the times have to be part of the LIBOR period discretization).
+	 * @param valueUnit The unit of the value returned by the <code>getValue</code> method (<code>VALUE</code> or <code>VOLATILITYLOGNORMAL</code>).
+	 */
+	public SwaptionAnalyticApproximationWithMercurioModification(final double swaprate, final double[] swapTenor, final ValueUnit valueUnit) {
+		super();
+		this.swaprate = swaprate;
+		this.swapTenor = swapTenor.clone();
+		this.valueUnit = valueUnit;
+	}
+
+	/**
+	 * This method returns the (deterministic) value of the product within the specified model.
+	 * The model has to be a simulation of a {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}. The simulated paths are not used,
+	 * the integrated covariance is taken on the time discretization of the simulation.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed.
+	 * @param model The model used to price the product.
+	 * @return The random variable representing the value of the product discounted to evaluation time
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	@Override
+	public RandomVariable getValue(final double evaluationTime, final LIBORModelMonteCarloSimulationModel model) throws CalculationException {
+		if(!(model.getModel() instanceof LIBORMarketModelFromCovarianceModelWithMercurioModification)) {
+			throw new IllegalArgumentException("Analytic approximation requires a LIBORMarketModelFromCovarianceModelWithMercurioModification.");
+		}
+		return model.getRandomVariableForConstant(getValue(evaluationTime, model.getTimeDiscretization(), (LIBORMarketModelFromCovarianceModelWithMercurioModification)model.getModel()));
+	}
+
+	/**
+	 * This method returns the value of the product within the specified model.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed (has to be 0).
+	 * @param timeDiscretization The time discretization on which the covariance is integrated.
+	 * @param model The model used to price the product.
+	 * @return The value of the product in the unit specified by the <code>valueUnit</code>.
+	 */
+	public double getValue(final double evaluationTime, final TimeDiscretization timeDiscretization, final LIBORMarketModelFromCovarianceModelWithMercurioModification model) {
+		if(evaluationTime > 0) {
+			throw new IllegalArgumentException("Forward start evaluation currently not supported.");
+		}
+
+		final TimeDiscretization liborPeriodDiscretization = model.getLiborPeriodDiscretization();
+		final double optionMaturity = swapTenor[0];
+		final int swapStartIndex	= liborPeriodDiscretization.getTimeIndex(swapTenor[0]);
+		final int swapEndIndex		= liborPeriodDiscretization.getTimeIndex(swapTenor[swapTenor.length-1]);
+		if(swapStartIndex < 0 || swapEndIndex <= swapStartIndex) {
+			throw new IllegalArgumentException("Swap tenor [" + swapTenor[0] + ", " + swapTenor[swapTenor.length-1] + "] is not part of the LIBOR period discretization.");
+		}
+
+		/*
+		 * Discount factors (relative to the swap start), annuity and swap rate from the initial forward rates
+		 */
+		final double[] forwards = new double[swapEndIndex-swapStartIndex];
+		final double[] discountFactors = new double[swapEndIndex-swapStartIndex+1];
+		discountFactors[0] = 1.0;
+		for(int periodIndex = 0; periodIndex < forwards.length; periodIndex++) {
+			final double periodStart = liborPeriodDiscretization.getTime(swapStartIndex+periodIndex);
+			final double periodLength = liborPeriodDiscretization.getTimeStep(swapStartIndex+periodIndex);
+			forwards[periodIndex] = model.getForwardRateCurve().getForward(model.getAnalyticModel(), periodStart, periodLength);
+			discountFactors[periodIndex+1] = discountFactors[periodIndex] / (1.0 + forwards[periodIndex] * periodLength);
+		}
+
+		// Annuities of the swap periods following each swap period start (the last element is zero, the first is the annuity of the swap)
+		final double[] swapAnnuitiesFromEnd = new double[swapTenor.length];
+		for(int swapPeriodIndex = swapTenor.length-2; swapPeriodIndex >= 0; swapPeriodIndex--) {
+			final int periodEndIndex = liborPeriodDiscretization.getTimeIndex(swapTenor[swapPeriodIndex+1]);
+			if(periodEndIndex < 0) {
+				throw new IllegalArgumentException("Swap tenor time " + swapTenor[swapPeriodIndex+1] + " is not part of the LIBOR period discretization.");
+			}
+			swapAnnuitiesFromEnd[swapPeriodIndex] = swapAnnuitiesFromEnd[swapPeriodIndex+1] + (swapTenor[swapPeriodIndex+1] - swapTenor[swapPeriodIndex]) * discountFactors[periodEndIndex-swapStartIndex];
+		}
+		final double swapAnnuity = swapAnnuitiesFromEnd[0];
+		final double forwardSwaprate = (discountFactors[0] - discountFactors[forwards.length]) / swapAnnuity;
+
+		/*
+		 * Derivative of log(S) with respect to log(L_i): the discount factors of the swap periods ending after the start of period i depend on L_i
+		 */
+		final double[] logSwaprateDerivative = new double[forwards.length];
+		int swapPeriodIndex = 0;
+		for(int periodIndex = 0; periodIndex < forwards.length; periodIndex++) {
+			final double periodStart = liborPeriodDiscretization.getTime(swapStartIndex+periodIndex);
+			while(swapTenor[swapPeriodIndex+1] <= periodStart) {
+				swapPeriodIndex++;
+			}
+			final double periodLength = liborPeriodDiscretization.getTimeStep(swapStartIndex+periodIndex);
+			final double logForwardBondDerivative = forwards[periodIndex] * periodLength / (1.0 + forwards[periodIndex] * periodLength);
+			logSwaprateDerivative[periodIndex] = logForwardBondDerivative * (discountFactors[forwards.length] / (discountFactors[0] - discountFactors[forwards.length]) + swapAnnuitiesFromEnd[swapPeriodIndex] / swapAnnuity);
+		}
+
+		/*
+		 * Integrated variance of log(S) up to the option maturity
+		 */
+		final int timeIndex = timeDiscretization.getTimeIndexNearestLessOrEqual(optionMaturity)-1;
+		double integratedVariance = 0.0;
+		if(timeIndex >= 0) {
+			final LIBORMarketModelFromCovarianceModelWithMercurioModification.IntegratedLIBORCovariance integratedLIBORCovariance = model.getIntegratedLIBORCovariancePacked(timeDiscretization);
+			for(int periodIndex1 = 0; periodIndex1 < forwards.length; periodIndex1++) {
+				for(int periodIndex2 = 0; periodIndex2 < forwards.length; periodIndex2++) {
+					final double integratedCovariance = integratedLIBORCovariance.get(timeIndex, swapStartIndex+periodIndex1, swapStartIndex+periodIndex2);
+					integratedVariance += logSwaprateDerivative[periodIndex1] * logSwaprateDerivative[periodIndex2] * integratedCovariance;
+				}
+			}
+		}
+		final double volatility = optionMaturity > 0 ? Math.sqrt(integratedVariance / optionMaturity) : 0.0;
+
+		if(valueUnit == ValueUnit.VOLATILITYLOGNORMAL) {
+			return volatility;
+		}
+		else if(valueUnit == ValueUnit.VALUE) {
+			// The annuity is relative to the swap start, discount to time 0 with the initial forward rates
+			double discountFactorToSwapStart = 1.0;
+			for(int periodIndex = 0; periodIndex < swapStartIndex; periodIndex++) {
+				final double periodLength = liborPeriodDiscretization.getTimeStep(periodIndex);
+				discountFactorToSwapStart /= 1.0 + model.getForwardRateCurve().getForward(model.getAnalyticModel(), liborPeriodDiscretization.getTime(periodIndex), periodLength) * periodLength;
+			}
+			return AnalyticFormulas.blackModelSwaptionValue(forwardSwaprate, volatility, optionMaturity, swaprate, swapAnnuity * discountFactorToSwapStart);
+		}
+		else {
+			throw new IllegalArgumentException("Value unit " + valueUnit + " unsupported.");
+		}
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModel;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Factor reduction of a (large) symmetric positive semi-definite correlation matrix using only the eigenvectors belonging to the
+ * \( k \) largest eigenvalues.
+ * <br>
+ * The eigenvectors are calculated by a subspace iteration (block power iteration with Rayleigh-Ritz projection), which requires
+ * \( O(N^{2} p) \) operations per iteration with a block size \( p \) slightly larger than \( k \), instead of the \( O(N^{3}) \)
+ * operations of a full eigen-decomposition.
+ * <br>
+ * The factor reduction follows {@link net.finmath.functions.LinearAlgebra#factorReduction(double[][], int)}: the factors are given by
+ * the eigenvectors scaled by the square root of the (non-negative) eigenvalues, the rows are renormalized to unit length
+ * (such that the reduced matrix is a correlation matrix) and the factors are orthogonalized again.
+ * The sign of each factor is chosen such that the sum of its components is non-negative.
+ */
+final class TruncatedEigenDecomposition {
+
+	private static final int		maxNumberOfIterations	= 1000;
+	private static final int		oversampling			= 8;
+	private static final double		accuracy				= 1E-13;
+	private static final double		accuracyMinimum			= 1E-8;
+
+	private TruncatedEigenDecomposition() {
+	}
+
+	/**
+	 * Returns the factor matrix <code>[component][factor]</code> of the factor reduction of the given correlation matrix.
+	 *
+	 * @param correlationMatrix The symmetric correlation matrix.
+	 * @param numberOfFactors The number of factors \( k \).
+	 * @return The factor matrix with <code>numberOfFactors</code> columns (or less if the matrix is smaller).
+	 */
+	static double[][] factorReduction(final double[][] correlationMatrix, final int numberOfFactors) {
+		return factorReduction(correlationMatrix, numberOfFactors, new double[Math.min(numberOfFactors, correlationMatrix.length)]);
+	}
+
+	/**
+	 * Returns the factor matrix <code>[component][factor]</code> of the factor reduction of the given correlation matrix and
+	 * stores the largest eigenvalues (in decreasing order) of the correlation matrix in the given array.
+	 *
+	 * @param correlationMatrix The symmetric correlation matrix.
+	 * @param numberOfFactors The number of factors \( k \).
+	 * @param eigenvalues Array receiving the <code>min(numberOfFactors, correlationMatrix.length)</code> largest eigenvalues.
+	 * @return The factor matrix with <code>numberOfFactors</code> columns (or less if the matrix is smaller).
+	 * @throws ArithmeticException Thrown if the subspace iteration does not converge.
+	 */
+	static double[][] factorReduction(final double[][] correlationMatrix, final int numberOfFactors, final double[] eigenvalues) {
+		final int size = correlationMatrix.length;
+		final int numberOfFactorsEffective = Math.min(numberOfFactors, size);
+
+		/*
+		 * Eigenvectors of the largest eigenvalues
+		 */
+		final double[][] eigenvectors = new double[size][numberOfFactorsEffective];
+		System.arraycopy(getLargestEigenvalues(correlationMatrix, numberOfFactorsEffective, eigenvectors), 0, eigenvalues, 0, numberOfFactorsEffective);
+
+		final double[][] factorMatrix = new double[size][numberOfFactorsEffective];
+		for(int factor=0; factor<numberOfFactorsEffective; factor++) {
+			final double scaling = Math.sqrt(Math.max(eigenvalues[factor], 0.0));
+			for(int row=0; row<size; row++) {
+				factorMatrix[row][factor] = eigenvectors[row][factor] * scaling;
+			}
+		}
+
+		/*
+		 * Renormalize rows
+		 */
+		for(int row=0; row<size; row++) {
+			double sumSquared = 0;
+			for(int factor=0; factor<numberOfFactorsEffective; factor++) {
+				sumSquared += factorMatrix[row][factor] * factorMatrix[row][factor];
+			}
+			if(sumSquared != 0) {
+				final double norm = Math.sqrt(sumSquared);
+				for(int factor=0; factor<numberOfFactorsEffective; factor++) {
+					factorMatrix[row][factor] /= norm;
+				}
+			}
+			else {
+				// This is a rare case: The factor reduction of a completely decorrelated system to 1 factor
+				Arrays.fill(factorMatrix[row], 1.0 / Math.sqrt(numberOfFactorsEffective));
+			}
+		}
+
+		/*
+		 * Orthogonalize again: if F^T F = W D W^T then F W has orthogonal columns and (F W)(F W)^T = F F^T.
+		 */
+		final double[][] gramMatrix = new double[numberOfFactorsEffective][numberOfFactorsEffective];
+		for(int factor1=0; factor1<numberOfFactorsEffective; factor1++) {
+			for(int factor2=0; factor2<=factor1; factor2++) {
+				double sum = 0.0;
+				for(int row=0; row<size; row++) {
+					sum += factorMatrix[row][factor1] * factorMatrix[row][factor2];
+				}
+				gramMatrix[factor1][factor2] = sum;
+				gramMatrix[factor2][factor1] = sum;
+			}
+		}
+		final double[][] rotation = new double[numberOfFactorsEffective][numberOfFactorsEffective];
+		getEigenDecompositionSymmetric(gramMatrix, rotation);
+
+		final double[][] factorMatrixOrthogonal = multiply(factorMatrix, rotation);
+		normalizeSigns(factorMatrixOrthogonal);
+
+		return factorMatrixOrthogonal;
+	}
+
+	/**
+	 * Returns the largest eigenvalues of a symmetric matrix in decreasing order.
+	 *
+	 * @param matrix The symmetric matrix.
+	 * @param numberOfEigenvalues The number of eigenvalues (at most the size of the matrix).
+	 * @return The <code>numberOfEigenvalues</code> largest eigenvalues.
+	 * @throws ArithmeticException Thrown if the subspace iteration does not converge.
+	 */
+	static double[] getLargestEigenvalues(final double[][] matrix, final int numberOfEigenvalues) {
+		return getLargestEigenvalues(matrix, numberOfEigenvalues, new double[matrix.length][numberOfEigenvalues]);
+	}
+
+	/*
+	 * Subspace iteration for the largest eigenvalues of the symmetric matrix. The eigenvectors are stored in eigenvectors[row][index].
+	 * If the residuals do not reach the accuracy within the maximum number of iterations, the result is accepted if the residuals are
+	 * below accuracyMinimum (relative to the largest eigenvalue), otherwise an ArithmeticException is thrown.
+	 */
+	private static double[] getLargestEigenvalues(final double[][] matrix, final int numberOfEigenvalues, final double[][] eigenvectors) {
+		final int size = matrix.length;
+		final int blockSize = Math.min(size, numberOfEigenvalues + oversampling);
+
+		// Deterministic start vectors (spanning low frequency modes, which dominate correlation matrices)
+		double[][] basis = new double[size][blockSize];
+		for(int row=0; row<size; row++) {
+			for(int column=0; column<blockSize; column++) {
+				basis[row][column] = Math.cos(Math.PI * (row + 0.5) * column / size) + 1E-3 * Math.sin(row * (column + 1.0));
+			}
+		}
+		orthonormalize(basis);
+
+		final double[][] ritzVectors = new double[blockSize][blockSize];
+		double maxResidualOfLastIteration = Double.POSITIVE_INFINITY;
+		double scaleOfLastIteration = 0.0;
+		for(int iteration=0; iteration<maxNumberOfIterations; iteration++) {
+			// Rayleigh-Ritz projection H = Q^T A Q, Ritz vectors Q W and their image A Q W
+			final double[][] image = multiply(matrix, basis);
+			final double[][] projection = multiplyTransposed(basis, image);
+			final double[] ritzValues = getEigenDecompositionSymmetric(projection, ritzVectors);
+			final double[][] ritzVectorsImage = multiply(image, ritzVectors);
+
+			// Converged if the residuals | A v - lambda v | of the requested Ritz pairs are small
+			final double[][] ritzVectorsFull = multiply(basis, ritzVectors);
+			double maxResidual = 0.0;
+			for(int index=0; index<numberOfEigenvalues; index++) {
+				double residual = 0.0;
+				for(int row=0; row<size; row++) {
+					final double difference = ritzVectorsImage[row][index] - ritzValues[index] * ritzVectorsFull[row][index];
+					residual += difference * difference;
+				}
+				maxResidual = Math.max(maxResidual, Math.sqrt(residual));
+			}
+			maxResidualOfLastIteration = maxResidual;
+			scaleOfLastIteration = Math.abs(ritzValues[0]);
+			if(maxResidual <= accuracy * scaleOfLastIteration) {
+				break;
+			}
+
+			basis = ritzVectorsImage;
+			orthonormalize(basis);
+		}
+		if(!(maxResidualOfLastIteration <= accuracyMinimum * scaleOfLastIteration)) {
+			throw new ArithmeticException("Subspace iteration for the " + numberOfEigenvalues + " largest eigenvalues did not converge within " + maxNumberOfIterations + " iterations (residual " + maxResidualOfLastIteration + ", largest eigenvalue " + scaleOfLastIteration + ").");
+		}
+
+		/*
+		 * Final Rayleigh-Ritz projection on the converged subspace.
+		 */
+		final double[][] projection = multiplyTransposed(basis, multiply(matrix, basis));
+		final double[] eigenvaluesBlock = getEigenDecompositionSymmetric(projection, ritzVectors);
+		final double[][] eigenvectorsBlock = multiply(basis, ritzVectors);
+
+		for(int row=0; row<size; row++) {
+			System.arraycopy(eigenvectorsBlock[row], 0, eigenvectors[row], 0, numberOfEigenvalues);
+		}
+		return Arrays.copyOf(eigenvaluesBlock, numberOfEigenvalues);
+	}
+
+	/*
+	 * Cyclic Jacobi method for a small symmetric matrix. Returns the eigenvalues in decreasing order and stores the
+	 * corresponding eigenvectors as columns of eigenvectors[row][index].
+	 */
+	private static double[] getEigenDecompositionSymmetric(final double[][] symmetricMatrix, final double[][] eigenvectors) {
+		final int size = symmetricMatrix.length;
+		final double[][] matrix = new double[size][];
+		for(int row=0; row<size; row++) {
+			matrix[row] = symmetricMatrix[row].clone();
+		}
+
+		final double[][] rotation = new double[size][size];
+		for(int row=0; row<size; row++) {
+			rotation[row][row] = 1.0;
+		}
+
+		for(int sweep=0; sweep<100; sweep++) {
+			double offDiagonal = 0.0;
+			double diagonal = 0.0;
+			for(int row=0; row<size; row++) {
+				diagonal += matrix[row][row] * matrix[row][row];
+				for(int column=row+1; column<size; column++) {
+					offDiagonal += matrix[row][column] * matrix[row][column];
+				}
+			}
+			if(offDiagonal <= 1E-30 * diagonal || offDiagonal == 0.0) {
+				break;
+			}
+
+			for(int p=0; p<size; p++) {
+				for(int q=p+1; q<size; q++) {
+					if(matrix[p][q] == 0.0) {
+						continue;
+					}
+					final double theta = (matrix[q][q] - matrix[p][p]) / (2.0 * matrix[p][q]);
+					final double t = Math.signum(theta == 0.0 ? 1.0 : theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+					final double c = 1.0 / Math.sqrt(t * t + 1.0);
+					final double s = t * c;
+
+					for(int k=0; k<size; k++) {
+						final double mkp = matrix[k][p];
+						final double mkq = matrix[k][q];
+						matrix[k][p] = c * mkp - s * mkq;
+						matrix[k][q] = s * mkp + c * mkq;
+					}
+					for(int k=0; k<size; k++) {
+						final double mpk = matrix[p][k];
+						final double mqk = matrix[q][k];
+						matrix[p][k] = c * mpk - s * mqk;
+						matrix[q][k] = s * mpk + c * mqk;
+					}
+					for(int k=0; k<size; k++) {
+						final double rkp = rotation[k][p];
+						final double rkq = rotation[k][q];
+						rotation[k][p] = c * rkp - s * rkq;
+						rotation[k][q] = s * rkp + c * rkq;
+					}
+				}
+			}
+		}
+
+		// Sort by decreasing eigenvalue
+		final Integer[] order = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+		Arrays.sort(order, Comparator.comparingDouble((Integer index) -> matrix[index][index]).reversed());
+
+		final double[] eigenvalues = new double[size];
+		for(int index=0; index<size; index++) {
+			eigenvalues[index] = matrix[order[index]][order[index]];
+			for(int row=0; row<size; row++) {
+				eigenvectors[row][index] = rotation[row][order[index]];
+			}
+		}
+		return eigenvalues;
+	}
+
+	/*
+	 * Modified Gram-Schmidt orthonormalization of the columns of the matrix.
+	 */
+	private static void orthonormalize(final double[][] matrix) {
+		final int size = matrix.length;
+		final int numberOfColumns = matrix[0].length;
+		for(int column=0; column<numberOfColumns; column++) {
+			for(int previous=0; previous<column; previous++) {
+				double projection = 0.0;
+				for(int row=0; row<size; row++) {
+					projection += matrix[row][column] * matrix[row][previous];
+				}
+				for(int row=0; row<size; row++) {
+					matrix[row][column] -= projection * matrix[row][previous];
+				}
+			}
+			double norm = 0.0;
+			for(int row=0; row<size; row++) {
+				norm += matrix[row][column] * matrix[row][column];
+			}
+			norm = Math.sqrt(norm);
+			for(int row=0; row<size; row++) {
+				matrix[row][column] = norm > 0 ? matrix[row][column] / norm : 0.0;
+			}
+		}
+	}
+
+	/*
+	 * Make the sum of the components of each column non-negative.
+	 */
+	private static void normalizeSigns(final double[][] matrix) {
+		for(int column=0; column<matrix[0].length; column++) {
+			double sum = 0.0;
+			for(final double[] row : matrix) {
+				sum += row[column];
+			}
+			if(sum < 0) {
+				for(final double[] row : matrix) {
+					row[column] = -row[column];
+				}
+			}
+		}
+	}
+
+	private static double[][] multiply(final double[][] left, final double[][] right) {
+		final int inner = right.length;
+		final int numberOfColumns = right[0].length;
+		final double[][] product = new double[left.length][numberOfColumns];
+		for(int row=0; row<left.length; row++) {
+			final double[] leftRow = left[row];
+			final double[] productRow = product[row];
+			for(int k=0; k<inner; k++) {
+				final double value = leftRow[k];
+				if(value == 0.0) {
+					continue;
+				}
+				final double[] rightRow = right[k];
+				for(int column=0; column<numberOfColumns; column++) {
+					productRow[column] += value * rightRow[column];
+				}
+			}
+		}
+		return product;
+	}
+
+	/*
+	 * Calculates left^T right.
+	 */
+	private static double[][] multiplyTransposed(final double[][] left, final double[][] right) {
+		final int numberOfRows = left[0].length;
+		final int numberOfColumns = right[0].length;
+		final double[][] product = new double[numberOfRows][numberOfColumns];
+		for(int k=0; k<left.length; k++) {
+			for(int row=0; row<numberOfRows; row++) {
+				final double value = left[k][row];
+				for(int column=0; column<numberOfColumns; column++) {
+					product[row][column] += value * right[k][column];
+				}
+			}
+		}
+		return product;
+	}
+}
@@ -5,14 +5,20 @@
  */
 package com.albertozanon.MercurioModel;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.finmath.exception.CalculationException;
+import net.finmath.functions.LinearAlgebra;
 import net.finmath.marketdata.model.curves.ForwardCurve;
 import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
 import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.stochastic.Scalar;
+import net.finmath.time.TimeDiscretization;
 
 /**
  * Volatility reduction model build on top of a standard covariance model.
@@ -25,6 +31,18 @@ public class VolatilityReductionMercurioModel extends AbstractLIBORCovarianceMod
 	private static final long serialVersionUID = 4522227972747028512L;
 	private final AbstractLIBORCovarianceModelParametric covarianceModel;
 
+	// The volatility reduction g(t_j) of each component [timeIndex][component] (shared between clones with modified parameters)
+	private final double[][] volatilityReduction;
+
+	// True if the factor loadings of the base model do not depend on the realization (only then a pseudo inverse may be cached for a time index)
+	private final boolean isStateIndependent;
+
+	// Pseudo inverses [timeIndex][factor][component] of deterministic reduced factor loading matrices of a state independent base model
+	private final Map<Integer, double[][]> factorLoadingPseudoInverses = new ConcurrentHashMap<>();
+
+	// Pseudo inverses of the most recently requested factor loading matrices, which are not cached for their time index
+	private transient volatile PseudoInverseForRealization lastPseudoInverseForRealization;
+
 	/**
 	 * Volatility reduction model build on top of a standard covariance model.
 	 *
@@ -33,12 +51,52 @@ public class VolatilityReductionMercurioModel extends AbstractLIBORCovarianceMod
 	public VolatilityReductionMercurioModel(final AbstractLIBORCovarianceModelParametric covarianceModel) {
 		super(covarianceModel.getTimeDiscretization(), covarianceModel.getLiborPeriodDiscretization(), covarianceModel.getNumberOfFactors());
 		this.covarianceModel	= covarianceModel;
+		this.volatilityReduction = createVolatilityReductionTable(covarianceModel.getTimeDiscretization(), covarianceModel.getLiborPeriodDiscretization());
+		this.isStateIndependent = isStateIndependent(covarianceModel);
+	}
+
+	/*
+	 * Constructor used for clones where the discretizations do not change, sharing the volatility reduction table.
+	 */
+	private VolatilityReductionMercurioModel(final AbstractLIBORCovarianceModelParametric covarianceModel, final double[][] volatilityReduction) {
+		super(covarianceModel.getTimeDiscretization(), covarianceModel.getLiborPeriodDiscretization(), covarianceModel.getNumberOfFactors());
+		this.covarianceModel	= covarianceModel;
+		this.volatilityReduction = volatilityReduction;
+		this.isStateIndependent = isStateIndependent(covarianceModel);
+	}
+
+	/*
+	 * Returns true if the factor loadings of the given covariance model do not depend on the realization, i.e., for a covariance model
+	 * given by a volatility and a correlation model (possibly with volatility reduction). Other models (e.g. local volatility models) are considered state dependent.
+	 */
+	private static boolean isStateIndependent(final AbstractLIBORCovarianceModelParametric covarianceModel) {
+		if(covarianceModel instanceof VolatilityReductionMercurioModel) {
+			return ((VolatilityReductionMercurioModel)covarianceModel).isStateIndependent;
+		}
+		return covarianceModel instanceof LIBORCovarianceModelFromVolatilityAndCorrelation;
+	}
+
+	/*
+	 * The volatility reduction function g(t)=min(\frac{(T_{i+1}-t)^+}{T_{i+1}-T_i},1) on the time discretization.
+	 * The reduction thus apply only on the accrual period [T_i,T_{i+1}], otherwise = 1.
+	 */
+	private static double[][] createVolatilityReductionTable(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization) {
+		final double[][] volatilityReduction = new double[timeDiscretization.getNumberOfTimes()][liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int timeIndex = 0; timeIndex < volatilityReduction.length; timeIndex++) {
+			final double simulationTime =  timeDiscretization.getTime(timeIndex);
+			for(int component = 0; component < volatilityReduction[timeIndex].length; component++) {
+				final double liborEndTime = liborPeriodDiscretization.getTime(component+1);
+				final double liborStartTime = liborPeriodDiscretization.getTime(component);
+				volatilityReduction[timeIndex][component] = Math.min(Math.max(liborEndTime-simulationTime, 0)/(liborEndTime-liborStartTime), 1);
+			}
+		}
+		return volatilityReduction;
 	}
 
 
 	@Override
 	public Object clone() {
-		return new VolatilityReductionMercurioModel((AbstractLIBORCovarianceModelParametric) covarianceModel.clone());
+		return new VolatilityReductionMercurioModel((AbstractLIBORCovarianceModelParametric) covarianceModel.clone(), volatilityReduction);
 	}
 
 	/**
@@ -75,7 +133,7 @@ public class VolatilityReductionMercurioModel extends AbstractLIBORCovarianceMod
 		if(parameters == null || parameters.length == 0) {
 			return this;
 		}
-			return new VolatilityReductionMercurioModel(covarianceModel.getCloneWithModifiedParameters(parameters));
+			return new VolatilityReductionMercurioModel(covarianceModel.getCloneWithModifiedParameters(parameters), volatilityReduction);
 	}
 
 	@Override
@@ -89,27 +147,155 @@ public class VolatilityReductionMercurioModel extends AbstractLIBORCovarianceMod
 		final RandomVariable[] factorLoading = covarianceModel.getFactorLoading(timeIndex, component, realizationAtTimeIndex);
 
 		if(realizationAtTimeIndex != null && realizationAtTimeIndex[component] != null) {
-			final double simulationTime =  getTimeDiscretization().getTime(timeIndex);
-			final double liborEndTime = getLiborPeriodDiscretization().getTime(component+1);
-			final double liborStartTime = getLiborPeriodDiscretization().getTime(component);
-			
-/*
- *  		apply volatility reduction function on the factorLoading of covarianceModel.
- *   		volatility reduction function g(t)=min(\frac{(T_{i+1}-t)^+}{T_{j+1}-T_j},1) 
- *   		the reduction thus apply only on the accrual period [T_i,T_{i+1}], otherwise = 1.
- */			
-			final double Volatilityreduction = Math.min(Math.max(liborEndTime-simulationTime, 0)/(liborEndTime-liborStartTime), 1);		
-			for (int factorIndex = 0; factorIndex < factorLoading.length; factorIndex++) {
-				factorLoading[factorIndex] = factorLoading[factorIndex].mult(Volatilityreduction);
+			// apply volatility reduction function on the factorLoading of covarianceModel.
+			final double Volatilityreduction = volatilityReduction[timeIndex][component];
+			if(Volatilityreduction != 1.0) {
+				for (int factorIndex = 0; factorIndex < factorLoading.length; factorIndex++) {
+					factorLoading[factorIndex] = factorLoading[factorIndex].mult(Volatilityreduction);
+				}
 			}
 		}
 
 		return factorLoading;
 	}
 
+	/*
+	 * The factor loadings [component][factor] of all components for a given time index, i.e., the rows getFactorLoading(timeIndex, component, realizationAtTimeIndex)
+	 * of the factor loading matrix. Components where the volatility reduction is zero (i.e., fixed rates) are not evaluated and their entry is null.
+	 */
+	private RandomVariable[][] getFactorLoadings(final int timeIndex, final RandomVariable[] realizationAtTimeIndex) {
+		final RandomVariable[][] factorLoadings = new RandomVariable[volatilityReduction[timeIndex].length][];
+		for(int component = 0; component < factorLoadings.length; component++) {
+			final boolean isReduced = realizationAtTimeIndex != null && realizationAtTimeIndex[component] != null;
+			if(isReduced && volatilityReduction[timeIndex][component] == 0.0) {
+				continue;
+			}
+			factorLoadings[component] = getFactorLoading(timeIndex, component, realizationAtTimeIndex);
+		}
+		return factorLoadings;
+	}
+
+	/**
+	 * Returns the pseudo inverse of the (reduced) factor loading matrix. The pseudo inverse is calculated in the least square sense,
+	 * hence it is well defined if the factor loadings of fixed components vanish. If the base covariance model is state independent
+	 * (see {@link #getBaseCovarianceModel()}) the deterministic pseudo inverse is calculated once for each time index. Otherwise it is calculated
+	 * (path by path, if the factor loadings are stochastic) once for each time index and realization, such that the loop over all components
+	 * and factors requires a single calculation.
+	 */
 	@Override
 	public RandomVariable getFactorLoadingPseudoInverse(final int timeIndex, final int component, final int factor, final RandomVariable[] realizationAtTimeIndex) {
-		throw new UnsupportedOperationException();
+		final boolean isCacheableForTimeIndex = isStateIndependent && realizationAtTimeIndex != null && !Arrays.asList(realizationAtTimeIndex).contains(null);
+
+		// Only pseudo inverses of a state independent model are cached for a time index, hence a cached value does not require the factor loadings
+		if(isCacheableForTimeIndex) {
+			final double[][] factorLoadingPseudoInverse = factorLoadingPseudoInverses.get(timeIndex);
+			if(factorLoadingPseudoInverse != null) {
+				return new Scalar(factorLoadingPseudoInverse[factor][component]);
+			}
+		}
+
+		final PseudoInverseForRealization pseudoInverseForRealization = lastPseudoInverseForRealization;
+		if(pseudoInverseForRealization != null && pseudoInverseForRealization.isFor(timeIndex, realizationAtTimeIndex)) {
+			return pseudoInverseForRealization.get(getTimeDiscretization().getTime(timeIndex), factor, component);
+		}
+
+		final RandomVariable[][] factorLoadings = getFactorLoadings(timeIndex, realizationAtTimeIndex);
+
+		boolean isDeterministic = true;
+		int numberOfPaths = 1;
+		for(final RandomVariable[] factorLoading : factorLoadings) {
+			if(factorLoading == null) {
+				continue;
+			}
+			for(final RandomVariable oneFactor : factorLoading) {
+				isDeterministic &= oneFactor.isDeterministic();
+				numberOfPaths = Math.max(numberOfPaths, oneFactor.size());
+			}
+		}
+
+		if(isDeterministic) {
+			final double[][] factorLoadingPseudoInverse = LinearAlgebra.pseudoInverse(getFactorLoadingMatrix(factorLoadings, 0));
+			if(isCacheableForTimeIndex) {
+				factorLoadingPseudoInverses.putIfAbsent(timeIndex, factorLoadingPseudoInverse);
+			}
+			else {
+				final double[][][] factorLoadingPseudoInverseOnSinglePath = new double[factorLoadingPseudoInverse.length][factorLoadingPseudoInverse[0].length][];
+				for(int factorIndex = 0; factorIndex < factorLoadingPseudoInverse.length; factorIndex++) {
+					for(int componentIndex = 0; componentIndex < factorLoadingPseudoInverse[factorIndex].length; componentIndex++) {
+						factorLoadingPseudoInverseOnSinglePath[factorIndex][componentIndex] = new double[] { factorLoadingPseudoInverse[factorIndex][componentIndex] };
+					}
+				}
+				lastPseudoInverseForRealization = new PseudoInverseForRealization(timeIndex, realizationAtTimeIndex, factorLoadingPseudoInverseOnSinglePath, true);
+			}
+			return new Scalar(factorLoadingPseudoInverse[factor][component]);
+		}
+		else {
+			// Pseudo inverses [factor][component][path], calculated once per path
+			final double[][][] factorLoadingPseudoInverse = new double[getNumberOfFactors()][factorLoadings.length][numberOfPaths];
+			for(int path = 0; path < numberOfPaths; path++) {
+				final double[][] factorLoadingPseudoInverseOnPath = LinearAlgebra.pseudoInverse(getFactorLoadingMatrix(factorLoadings, path));
+				for(int factorIndex = 0; factorIndex < factorLoadingPseudoInverse.length; factorIndex++) {
+					for(int componentIndex = 0; componentIndex < factorLoadingPseudoInverse[factorIndex].length; componentIndex++) {
+						factorLoadingPseudoInverse[factorIndex][componentIndex][path] = factorLoadingPseudoInverseOnPath[factorIndex][componentIndex];
+					}
+				}
+			}
+			lastPseudoInverseForRealization = new PseudoInverseForRealization(timeIndex, realizationAtTimeIndex, factorLoadingPseudoInverse, false);
+			return new RandomVariableFromDoubleArray(getTimeDiscretization().getTime(timeIndex), factorLoadingPseudoInverse[factor][component]);
+		}
+	}
+
+	/*
+	 * The path wise pseudo inverses [factor][component][path] for a time index and a realization (the random variables are compared by identity).
+	 * If the pseudo inverse is deterministic, it is stored as a single path.
+	 */
+	private static class PseudoInverseForRealization {
+		private final int					timeIndex;
+		private final RandomVariable[]		realizationAtTimeIndex;
+		private final double[][][]			factorLoadingPseudoInverse;
+		private final boolean				isDeterministic;
+
+		PseudoInverseForRealization(final int timeIndex, final RandomVariable[] realizationAtTimeIndex, final double[][][] factorLoadingPseudoInverse, final boolean isDeterministic) {
+			this.timeIndex = timeIndex;
+			this.realizationAtTimeIndex = realizationAtTimeIndex != null ? realizationAtTimeIndex.clone() : null;
+			this.factorLoadingPseudoInverse = factorLoadingPseudoInverse;
+			this.isDeterministic = isDeterministic;
+		}
+
+		RandomVariable get(final double time, final int factor, final int component) {
+			if(isDeterministic) {
+				return new Scalar(factorLoadingPseudoInverse[factor][component][0]);
+			}
+			return new RandomVariableFromDoubleArray(time, factorLoadingPseudoInverse[factor][component]);
+		}
+
+		boolean isFor(final int timeIndex, final RandomVariable[] realizationAtTimeIndex) {
+			if(this.timeIndex != timeIndex || this.realizationAtTimeIndex == null || realizationAtTimeIndex == null || this.realizationAtTimeIndex.length != realizationAtTimeIndex.length) {
+				return false;
+			}
+			for(int component = 0; component < realizationAtTimeIndex.length; component++) {
+				if(this.realizationAtTimeIndex[component] != realizationAtTimeIndex[component]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * The factor loading matrix [component][factor] on a given path, where the rows of components without factor loading are zero.
+	 */
+	private double[][] getFactorLoadingMatrix(final RandomVariable[][] factorLoadings, final int path) {
+		final double[][] factorLoadingMatrix = new double[factorLoadings.length][getNumberOfFactors()];
+		for(int component = 0; component < factorLoadings.length; component++) {
+			if(factorLoadings[component] == null) {
+				continue;
+			}
+			for(int factor = 0; factor < factorLoadings[component].length; factor++) {
+				factorLoadingMatrix[component][factor] = factorLoadings[component][factor].get(path);
+			}
+		}
+		return factorLoadingMatrix;
 	}
 
 	@Override
@@ -7,8 +7,12 @@ package com.albertozanon.TimeHomogeneouLMM;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.marketdata.model.AnalyticModel;
@@ -57,6 +61,19 @@ import net.finmath.time.TimeDiscretizationFromArray;
  * 			May be used to limit the simulated valued to prevent values attaining POSITIVE_INFINITY and
  * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
  *		</li>
+ * 		<li>
+ * 			<code>isCheckStateVariablesForNaN</code>: An optional <code>Boolean</code>. If true (default), the drift calculation checks if the state variables or integrated variances became NaN (not a number)
+ * 			when the tenor discretization changes and throws an <code>IllegalArgumentException</code>. The check requires one reduction over the paths per such time step and may be disabled.
+ *		</li>
+ * 		<li>
+ * 			<code>randomVariableFactory</code>: An optional <code>RandomVariableFactory</code> used to create the random variables of the model
+ * 			(constants, initial state and state variables). Default is <code>RandomVariableFromArrayFactory</code>.
+ *		</li>
+ * 		<li>
+ * 			<code>backwardAccrualPeriodDiscretization</code>: An optional <code>TimeDiscretization</code> of the accrual periods of backward looking rates.
+ * 			If given, the log of the accrual \( \prod_{k} (1 + L(T_{k},T_{k+1};T_{k}) (T_{k+1}-T_{k})) \) of each accrual period is simulated as an additional state component,
+ * 			see {@link #getBackward(MonteCarloProcess, double, double, double)}.
+ *		</li>
  * </ul>
  * <br>
  *
@@ -78,19 +95,103 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 	private final TimeDiscretization[]		liborPeriodDiscretizations;
 	private final Integer[]							numberOfDiscretizationIntervalls;
 
+	// Refined tenor discretization for each time of the finest tenor discretization liborPeriodDiscretizations[0] (immutable, shared by clones)
+	private final TimeDiscretization[]		liborPeriodDiscretizationsForTenorIndex;
+
 	private String							forwardCurveName;
 	private final AnalyticModel			curveModel;
 
 	private final ForwardCurve			forwardRateCurve;
 	private final DiscountCurve			discountCurve;
 
-	private final RandomVariableFactory	randomVariableFactory = new RandomVariableFromArrayFactory();
+	private final RandomVariableFactory	randomVariableFactory;
+
+	private boolean						isCheckStateVariablesForNaN = true;
+
+	// Accrual periods of backward looking rates, whose log accruals are simulated as additional state components after the integrated variances (may be null)
+	private final TimeDiscretization		backwardAccrualPeriodDiscretization;
 
 	private TermStructureCovarianceModelInterface	covarianceModel;
 
-	// Cache for the numeraires, needs to be invalidated if process changes
-	private final ConcurrentHashMap<Integer, RandomVariable>	numeraires;
-	private MonteCarloProcess									numerairesProcess = null;
+	// Scaled tenor times and tenor refinement weights of the covariance model (replaced together with the covariance model, shared by clones using the same covariance model)
+	private ScaledTenorTimes						scaledTenorTimes;
+
+	// Cache for the numeraires (including the adjustment for discounting) for each process and requested time
+	private final Map<MonteCarloProcess, Map<Double, RandomVariable>>	numeraires = Collections.synchronizedMap(new WeakHashMap<>());
+
+	// Cache for the accruals of backward looking rates: for each process and start index of the accrual period the accruals up to the following times of the finest tenor discretization
+	private final Map<MonteCarloProcess, Map<Integer, List<RandomVariable>>>	accruals = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Creates a model for given covariance.
+	 *
+	 * Creates a discretized Heath-Jarrow-Morton model / LIBOR market model with dynamic tenor refinement, see
+	 * <a href="https://papers.ssrn.com/sol3/papers.cfm?abstract_id=2884699">https://papers.ssrn.com/sol3/papers.cfm?abstract_id=2884699</a>.
+	 * <br>
+	 * If calibrationItems in non-empty and the covariance model is a parametric model,
+	 * the covariance will be replaced by a calibrate version of the same model, i.e.,
+	 * the LIBOR Market Model will be calibrated.
+	 * <br>
+	 * The map <code>properties</code> allows to configure the model. The following keys may be used:
+	 * <ul>
+	 * 		<li>
+	 * 			<code>liborCap</code>: An optional <code>Double</code> value applied as a cap to the LIBOR rates.
+	 * 			May be used to limit the simulated valued to prevent values attaining POSITIVE_INFINITY and
+	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
+	 *		</li>
+	 * 		<li>
+	 * 			<code>isCheckStateVariablesForNaN</code>: An optional <code>Boolean</code>. If true (default), the drift calculation checks if the state variables or integrated variances became NaN (not a number).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>randomVariableFactory</code>: An optional <code>RandomVariableFactory</code> used to create the random variables of the model.
+	 * 			Default is <code>RandomVariableFromArrayFactory</code>.
+	 *		</li>
+	 * 		<li>
+	 * 			<code>backwardAccrualPeriodDiscretization</code>: An optional <code>TimeDiscretization</code> of the accrual periods of backward looking rates,
+	 * 			which are simulated as additional state components. The periods have to be part of the finest tenor discretization.
+	 *		</li>
+	 * 		<li>
+	 * 			<code>calibrationParameters</code>: Possible values:
+	 * 			<ul>
+	 * 				<li>
+	 * 					<code>Map&lt;String,Object&gt;</code> a parameter map with the following key/value pairs:
+	 * 					<ul>
+	 *				 		<li>
+	 * 							<code>accuracy</code>: <code>Double</code> specifying the required solver accuracy.
+	 * 						</li>
+	 *				 		<li>
+	 * 							<code>maxIterations</code>: <code>Integer</code> specifying the maximum iterations for the solver.
+	 * 						</li>
+	 *					</ul>
+	 *				</li>
+	 *			</ul>
+	 *		</li>
+	 * </ul>
+	 *
+	 * @param liborPeriodDiscretizations A vector of tenor discretizations of the interest rate curve into forward rates (tenor structure), finest first.
+	 * @param numberOfDiscretizationIntervalls A vector of number of periods to be taken from the liborPeriodDiscretizations.
+	 * @param analyticModel The associated analytic model of this model (containing the associated market data objects like curve).
+	 * @param forwardRateCurve The initial values for the forward rates.
+	 * @param discountCurve The discount curve to use. This will create an LMM model with a deterministic zero-spread discounting adjustment.
+	 * @param covarianceModel The covariance model to use.
+	 * @param calibrationProducts The vector of calibration items (a union of a product, target value and weight) for the objective function sum weight(i) * (modelValue(i)-targetValue(i).
+	 * @param properties Key value map specifying properties like <code>measure</code> and <code>stateSpace</code>.
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	public LIBORMarketModelWithTenorRefinement(
+			final TimeDiscretization[]		liborPeriodDiscretizations,
+			final Integer[]							numberOfDiscretizationIntervalls,
+			final AnalyticModel				analyticModel,
+			final ForwardCurve				forwardRateCurve,
+			final DiscountCurve				discountCurve,
+			final TermStructureCovarianceModelInterface	covarianceModel,
+			final CalibrationProduct[]					calibrationProducts,
+			final Map<String, ?>						properties
+			) throws CalculationException {
+		this(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve,
+				properties != null && properties.containsKey("randomVariableFactory") ? (RandomVariableFactory)properties.get("randomVariableFactory") : new RandomVariableFromArrayFactory(),
+				covarianceModel, calibrationProducts, properties);
+	}
 
 	/**
 	 * Creates a model for given covariance.
@@ -110,6 +211,13 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>isCheckStateVariablesForNaN</code>: An optional <code>Boolean</code>. If true (default), the drift calculation checks if the state variables or integrated variances became NaN (not a number).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>backwardAccrualPeriodDiscretization</code>: An optional <code>TimeDiscretization</code> of the accrual periods of backward looking rates,
+	 * 			which are simulated as additional state components. The periods have to be part of the finest tenor discretization.
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -132,6 +240,7 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 	 * @param analyticModel The associated analytic model of this model (containing the associated market data objects like curve).
 	 * @param forwardRateCurve The initial values for the forward rates.
 	 * @param discountCurve The discount curve to use. This will create an LMM model with a deterministic zero-spread discounting adjustment.
+	 * @param randomVariableFactory The random variable factory used to create the random variables of the model (constants, initial state and state variables).
 	 * @param covarianceModel The covariance model to use.
 	 * @param calibrationProducts The vector of calibration items (a union of a product, target value and weight) for the objective function sum weight(i) * (modelValue(i)-targetValue(i).
 	 * @param properties Key value map specifying properties like <code>measure</code> and <code>stateSpace</code>.
@@ -143,6 +252,7 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 			final AnalyticModel				analyticModel,
 			final ForwardCurve				forwardRateCurve,
 			final DiscountCurve				discountCurve,
+			final RandomVariableFactory		randomVariableFactory,
 			final TermStructureCovarianceModelInterface	covarianceModel,
 			final CalibrationProduct[]					calibrationProducts,
 			final Map<String, ?>						properties
@@ -152,13 +262,30 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		if(properties != null && properties.containsKey("calibrationParameters")) {
 			calibrationParameters	= (Map<String,Object>)properties.get("calibrationParameters");
 		}
+		if(properties != null && properties.containsKey("isCheckStateVariablesForNaN")) {
+			isCheckStateVariablesForNaN	= (Boolean)properties.get("isCheckStateVariablesForNaN");
+		}
+		if(properties != null && properties.containsKey("backwardAccrualPeriodDiscretization")) {
+			backwardAccrualPeriodDiscretization	= (TimeDiscretization)properties.get("backwardAccrualPeriodDiscretization");
+			for(final double accrualTime : backwardAccrualPeriodDiscretization) {
+				if(liborPeriodDiscretizations[0].getTimeIndex(accrualTime) < 0) {
+					throw new IllegalArgumentException("Backward accrual period discretization contains the time " + accrualTime + ", which is not part of the finest tenor discretization.");
+				}
+			}
+		}
+		else {
+			backwardAccrualPeriodDiscretization	= null;
+		}
 
 		this.liborPeriodDiscretizations	= liborPeriodDiscretizations;
 		this.numberOfDiscretizationIntervalls = numberOfDiscretizationIntervalls;
+		liborPeriodDiscretizationsForTenorIndex = createLiborPeriodDiscretizations(liborPeriodDiscretizations, numberOfDiscretizationIntervalls);
 		curveModel					= analyticModel;
 		this.forwardRateCurve	= forwardRateCurve;
 		this.discountCurve		= discountCurve;
+		this.randomVariableFactory	= randomVariableFactory;
 		this.covarianceModel	= covarianceModel;
+		scaledTenorTimes		= new ScaledTenorTimes(covarianceModel, liborPeriodDiscretizations[0], liborPeriodDiscretizationsForTenorIndex);
 
 		// Perform calibration, if data is given
 		if(calibrationProducts != null && calibrationProducts.length > 0) {
@@ -171,9 +298,31 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 			}
 
 			this.covarianceModel    = covarianceModelParametric.getCloneCalibrated(this, calibrationProducts, calibrationParameters);
+			scaledTenorTimes		= new ScaledTenorTimes(this.covarianceModel, liborPeriodDiscretizations[0], liborPeriodDiscretizationsForTenorIndex);
 		}
+	}
 
-		numeraires = new ConcurrentHashMap<>();
+	/**
+	 * Creates a model with a modified covariance model, sharing the (immutable) refined tenor discretizations of the given model.
+	 * The scaled tenor times and tenor refinement weights are shared if the covariance model is the one of the given model,
+	 * otherwise they are created for the new covariance model.
+	 *
+	 * @param model The model to clone.
+	 * @param randomVariableFactory The random variable factory to use.
+	 * @param covarianceModel The covariance model to use.
+	 */
+	private LIBORMarketModelWithTenorRefinement(final LIBORMarketModelWithTenorRefinement model, final RandomVariableFactory randomVariableFactory, final TermStructureCovarianceModelInterface covarianceModel) {
+		liborPeriodDiscretizations		= model.liborPeriodDiscretizations;
+		numberOfDiscretizationIntervalls	= model.numberOfDiscretizationIntervalls;
+		liborPeriodDiscretizationsForTenorIndex = model.liborPeriodDiscretizationsForTenorIndex;
+		curveModel				= model.curveModel;
+		forwardRateCurve		= model.forwardRateCurve;
+		discountCurve			= model.discountCurve;
+		this.randomVariableFactory	= randomVariableFactory;
+		this.covarianceModel	= covarianceModel;
+		scaledTenorTimes		= covarianceModel == model.covarianceModel ? model.scaledTenorTimes : new ScaledTenorTimes(covarianceModel, liborPeriodDiscretizations[0], liborPeriodDiscretizationsForTenorIndex);
+		isCheckStateVariablesForNaN	= model.isCheckStateVariablesForNaN;
+		backwardAccrualPeriodDiscretization	= model.backwardAccrualPeriodDiscretization;
 	}
 
 	/**
@@ -183,12 +332,25 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 	 * part of the tenor discretization, the numeraire uses a linear interpolation of the reciprocal
 	 * value. See ISBN 0470047224 for details.
 	 *
+	 * The numeraires (including the deterministic adjustment for the discount curve) are cached for each process and requested time.
+	 * The cache is thread safe, such that concurrent valuations using the same model share the numeraires.
+	 *
 	 * @param time Time time <i>t</i> for which the numeraire should be returned <i>N(t)</i>.
 	 * @return The numeraire at the specified time as <code>RandomVariable</code>
 	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
 	 */
 	@Override
 	public RandomVariable getNumeraire(final MonteCarloProcess process, final double time) throws CalculationException {
+		final Map<Double, RandomVariable> numerairesOfProcess = numeraires.computeIfAbsent(process, key -> new ConcurrentHashMap<>());
+
+		/*
+		 * Check if numeraire is part of the cache
+		 */
+		final RandomVariable numeraireCached = numerairesOfProcess.get(time);
+		if(numeraireCached != null) {
+			return numeraireCached;
+		}
+
 		final int timeIndex = liborPeriodDiscretizations[0].getTimeIndex(time);
 		final TimeDiscretization liborPeriodDiscretization = liborPeriodDiscretizations[0];
 		if(timeIndex < 0) {
@@ -200,121 +362,143 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 			}
 
 			final double alpha = (time-liborPeriodDiscretization.getTime(lowerIndex)) / (liborPeriodDiscretization.getTime(upperIndex) - liborPeriodDiscretization.getTime(lowerIndex));
-			RandomVariable numeraire = getNumeraire(process, liborPeriodDiscretization.getTime(upperIndex)).log().mult(alpha).add(getNumeraire(process, liborPeriodDiscretization.getTime(lowerIndex)).log().mult(1.0-alpha)).exp();
-
-			/*
-			 * Adjust for discounting, i.e. funding or collateralization
-			 */
-			if(discountCurve != null) {
-				// This includes a control for zero bonds
-				final double deterministicNumeraireAdjustment = numeraire.invert().getAverage() / discountCurve.getDiscountFactor(curveModel, time);
-				numeraire = numeraire.mult(deterministicNumeraireAdjustment);
-			}
+			final RandomVariable numeraireUpper = getNumeraire(process, liborPeriodDiscretization.getTime(upperIndex));
+			final RandomVariable numeraireLower = getNumeraire(process, liborPeriodDiscretization.getTime(lowerIndex));
 
-			return numeraire;
+			return numerairesOfProcess.computeIfAbsent(time, key -> getNumeraireAdjustedForDiscounting(numeraireUpper.log().mult(alpha).add(numeraireLower.log().mult(1.0-alpha)).exp(), time));
 		}
 
 		/*
-		 * Calculate the numeraire, when time is part of liborPeriodDiscretization
+		 * Calculate the numeraire, when time is part of liborPeriodDiscretization: the accrual of the fine periods from the first time
+		 * (the deterministic adjustments of the previous numeraires cancel in the adjustment of the numeraire, hence the accrual is used without them).
 		 */
+		return numerairesOfProcess.computeIfAbsent(time, key -> getNumeraireAdjustedForDiscounting(getAccrual(process, time, liborPeriodDiscretization.getTime(0), time), time));
+	}
 
-		/*
-		 * Check if numeraire cache is values (i.e. process did not change)
-		 */
-		if(process != numerairesProcess) {
-			numeraires.clear();
-			numerairesProcess = process;
-		}
-
-		/*
-		 * Check if numeraire is part of the cache
-		 */
-		RandomVariable numeraire = numeraires.get(timeIndex);
-		if(numeraire == null) {
-			/*
-			 * Calculate the numeraire for timeIndex
-			 */
-			if(timeIndex == 0) {
-				numeraire = process.getStochasticDriver().getRandomVariableForConstant(1.0);
-			}
-			else {
-				// Initialize to previous numeraire
-				numeraire = getNumeraire(process, liborPeriodDiscretizations[0].getTime(timeIndex-1));
-
-				final double periodStart	= liborPeriodDiscretizations[0].getTime(timeIndex-1);
-				final double periodEnd	= liborPeriodDiscretizations[0].getTime(timeIndex);
-				final RandomVariable libor = getLIBOR(process, periodStart, periodStart, periodEnd);
-
-				numeraire = numeraire.accrue(libor, periodEnd-periodStart);
-			}
-
-			// Cache the numeraire
-			numeraires.put(timeIndex, numeraire);
-		}
-
-		/*
-		 * Adjust for discounting, i.e. funding or collateralization
-		 */
-		if(discountCurve != null) {
-			// This includes a control for zero bonds
-			final double deterministicNumeraireAdjustment = numeraire.invert().getAverage() / discountCurve.getDiscountFactor(curveModel, time);
-			numeraire = numeraire.mult(deterministicNumeraireAdjustment);
+	/*
+	 * Adjust for discounting, i.e. funding or collateralization
+	 */
+	private RandomVariable getNumeraireAdjustedForDiscounting(final RandomVariable numeraire, final double time) {
+		if(discountCurve == null) {
+			return numeraire;
 		}
 
-		return numeraire;
+		// This includes a control for zero bonds
+		final double deterministicNumeraireAdjustment = numeraire.invert().getAverage() / discountCurve.getDiscountFactor(curveModel, time);
+		return numeraire.mult(deterministicNumeraireAdjustment);
 	}
 
 	@Override
 	public RandomVariable[] getInitialState(MonteCarloProcess process) {
 		final RandomVariable[] initialStateRandomVariable = new RandomVariable[getNumberOfComponents()];
 		for(int componentIndex=0; componentIndex<getNumberOfComponents(); componentIndex++) {
-			initialStateRandomVariable[componentIndex] = process.getStochasticDriver().getRandomVariableForConstant(0.0);
+			initialStateRandomVariable[componentIndex] = randomVariableFactory.createRandomVariable(0.0);
 		}
 		return initialStateRandomVariable;
 	}
 
 
-	public RandomVariable getAccrual(MonteCarloProcess process, double time, double periodStart, double periodEnd) {
+	/**
+	 * Return the accrual \( \prod_{k} (1 + L(T_{k},T_{k+1};T_{k}) (T_{k+1}-T_{k})) \) of the fine periods \( [T_{k},T_{k+1}] \) of the finest tenor discretization
+	 * from <code>periodStart</code> to <code>time</code>. If <code>time</code> is not a time of the finest tenor discretization, the accrual to the next time is returned.
+	 *
+	 * The accruals are calculated iteratively and cached for each process and period start, such that the accruals of overlapping requests (e.g. for the same period start and
+	 * different times) are calculated only once.
+	 *
+	 * @param process The discretization process generating this model.
+	 * @param time The end of the accrual.
+	 * @param periodStart The start of the accrual period (a time of the finest tenor discretization).
+	 * @param periodEnd The end of the accrual period.
+	 * @return The accrual from <code>periodStart</code> to <code>time</code>.
+	 */
+	public RandomVariable getAccrual(final MonteCarloProcess process, final double time, final double periodStart, final double periodEnd) {
+		final TimeDiscretization tenorDiscretization = liborPeriodDiscretizations[0];
 
-		int startIndex = liborPeriodDiscretizations[0].getTimeIndex(periodStart);
-		int timeIndex =  liborPeriodDiscretizations[0].getTimeIndex(time);
-		ConcurrentHashMap<Integer, RandomVariable> dailyAccrual = new ConcurrentHashMap<>();
-		
+		final int startIndex = tenorDiscretization.getTimeIndex(periodStart);
+		int timeIndex = tenorDiscretization.getTimeIndex(time);
 		if(timeIndex < 0) {
-			timeIndex=-timeIndex-1;
-			System.out.println("let's see if interpolation is needed"); 
+			timeIndex = -timeIndex-1;
+		}
+		if(startIndex < 0 || timeIndex < startIndex || timeIndex >= tenorDiscretization.getNumberOfTimes()) {
+			throw new IllegalArgumentException("Accrual requested from " + periodStart + " to " + time + ". Unsupported (the period has to be part of the finest tenor discretization).");
 		}
-		
-		RandomVariable backward = dailyAccrual.get(timeIndex);
-		if(backward == null) { 
-			if(timeIndex == startIndex) {
-				backward = process.getStochasticDriver().getRandomVariableForConstant(1.0);
+
+		final Map<Integer, List<RandomVariable>> accrualsOfProcess = accruals.computeIfAbsent(process, key -> new ConcurrentHashMap<>());
+		final List<RandomVariable> accrualsOfPeriod = accrualsOfProcess.computeIfAbsent(startIndex, key -> new ArrayList<>());
+		synchronized(accrualsOfPeriod) {
+			if(accrualsOfPeriod.isEmpty()) {
+				accrualsOfPeriod.add(process.getStochasticDriver().getRandomVariableForConstant(1.0));
 			}
-			else {
-				backward = getAccrual(process, liborPeriodDiscretizations[0].getTime(timeIndex-1), periodStart, periodEnd);
-	
-				double periodStartFine	= liborPeriodDiscretizations[0].getTime(timeIndex-1);
-				double periodEndFine	= liborPeriodDiscretizations[0].getTime(timeIndex);
-				double dt=periodEndFine-periodStartFine; 
-				RandomVariable libor = getLIBOR(process, periodStartFine, periodStartFine, periodEndFine);
-				
-				backward = backward.accrue(libor, dt); 		
-				}
-			
-			dailyAccrual.put(timeIndex, backward);
+
+			// Extend the accruals up to timeIndex
+			while(accrualsOfPeriod.size() <= timeIndex-startIndex) {
+				final int periodIndex = startIndex + accrualsOfPeriod.size()-1;
+				final double periodStartFine	= tenorDiscretization.getTime(periodIndex);
+				final double periodEndFine		= tenorDiscretization.getTime(periodIndex+1);
+				final RandomVariable libor = getLIBOR(process, periodStartFine, periodStartFine, periodEndFine);
+
+				accrualsOfPeriod.add(accrualsOfPeriod.get(accrualsOfPeriod.size()-1).accrue(libor, periodEndFine-periodStartFine));
+			}
+
+			return accrualsOfPeriod.get(timeIndex-startIndex);
 		}
-		
-		return backward;
 	}
-	
+
+	/**
+	 * Return the backward looking rate \( \frac{1}{T_{e}-T_{s}} ( \prod_{k} (1 + L(T_{k},T_{k+1};T_{k}) (T_{k+1}-T_{k})) - 1 ) \) of the period \( [T_{s},T_{e}] \),
+	 * compounding the rates of the fine periods of the finest tenor discretization up to <code>time</code> or <code>periodEnd</code>, whichever is smaller.
+	 *
+	 * If the period is an accrual period of the property <code>backwardAccrualPeriodDiscretization</code>, the log of the accrual is a state component of the process
+	 * and the rate is obtained from a single process value (at the first simulation time greater or equal to <code>time</code> or <code>periodEnd</code>, whichever is smaller).
+	 * Otherwise the accrual is calculated from the forward rates of the fine periods, see {@link #getAccrual(MonteCarloProcess, double, double, double)}.
+	 *
+	 * @param process The discretization process generating this model.
+	 * @param time The evaluation time.
+	 * @param periodStart The period start.
+	 * @param periodEnd The period end.
+	 * @return The backward looking rate.
+	 */
 	@Override
 	public RandomVariable getBackward(MonteCarloProcess process, double time, double periodStart, double periodEnd) {
-		
-		RandomVariable accrual = getAccrual(process,time,periodStart,periodEnd);
+		final int accrualPeriodIndex = getBackwardAccrualPeriodIndex(periodStart, periodEnd);
+		if(accrualPeriodIndex >= 0) {
+			int timeIndex = process.getTimeIndex(Math.min(time, periodEnd));
+			if(timeIndex < 0) {
+				timeIndex = -timeIndex-1;
+			}
+			if(timeIndex < process.getTimeDiscretization().getNumberOfTimes()) {
+				try {
+					final RandomVariable logAccrual = process.getProcessValue(timeIndex, 2*getNumberOfLibors()+accrualPeriodIndex);
+					return logAccrual.exp().sub(1.0).div(periodEnd-periodStart);
+				}
+				catch(final CalculationException e) {
+					throw new RuntimeException("Calculation of backward looking rate failed.", e);
+				}
+			}
+		}
+
+		// Accrual up to time, but not beyond the period end (as for the state component)
+		final RandomVariable accrual = getAccrual(process,Math.min(time, periodEnd),periodStart,periodEnd);
 
 		return accrual.sub(1).div(periodEnd-periodStart);
 	}
 
+	/*
+	 * Index of the accrual period [periodStart, periodEnd] in the backward accrual period discretization or -1 if the period is not simulated as a state component.
+	 */
+	private int getBackwardAccrualPeriodIndex(final double periodStart, final double periodEnd) {
+		if(backwardAccrualPeriodDiscretization == null) {
+			return -1;
+		}
+
+		final int periodStartIndex = backwardAccrualPeriodDiscretization.getTimeIndex(periodStart);
+		if(periodStartIndex < 0 || backwardAccrualPeriodDiscretization.getTimeIndex(periodEnd) != periodStartIndex+1) {
+			return -1;
+		}
+
+		return periodStartIndex;
+	}
+
 	
 	/**
 	 * Return the complete vector of the drift for the time index timeIndex, given that current state is realizationAtTimeIndex.
@@ -374,18 +558,16 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		 * Standard HJM drift part of log-forward-bond
 		 */
 		final TimeDiscretization liborPeriodDiscretization = getLiborPeriodDiscretization(timeNext);
+		final int tenorIndexNext = getTenorIndex(timeNext);
 		// Calculate drift for the component componentIndex (starting at firstLiborIndex, others are zero)
 		for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
 			drift[componentIndex] = zero;
 
-			final double						periodStart		= liborPeriodDiscretization.getTime(componentIndex);
-			final double						periodLength	= liborPeriodDiscretization.getTimeStep(componentIndex);
-			final double						periodEnd		= periodStart + periodLength;
-			final double						tenorTime		= covarianceModel.getScaledTenorTime(periodStart, periodEnd);
+			final double						tenorTime		= scaledTenorTimes.getScaledTenorTimeOfRefinedPeriod(tenorIndexNext, componentIndex);
 
 			// @TODO Document that factorLoading componentIndexing is on time discretization of t+1 for interval (t,t+1)
 			final RandomVariable[]	factorLoading   	= getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
-			final double weight = getWeightForTenorRefinement(periodStart,periodStart,periodStart,periodEnd);
+			final double weight = scaledTenorTimes.getTenorRefinementWeightOfRefinedPeriod(tenorIndexNext, componentIndex);
 			for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
 				drift[componentIndex] = drift[componentIndex].addProduct(covarianceFactorSums[factorIndex].addProduct(factorLoading[factorIndex], weight),factorLoading[factorIndex]);
 				variances[componentIndex] = variances[componentIndex].addProduct(factorLoading[factorIndex], factorLoading[factorIndex]);
@@ -394,71 +576,190 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		}
 
 		/*
-		 * Change of tenor discretization - impact on log-forward-bond
+		 * Integrated variance - drift part
 		 */
-		final TimeDiscretization liborPeriodDiscretizationPrevious = getLiborPeriodDiscretization(time);
 		for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
-			final double						periodStart		= liborPeriodDiscretization.getTime(componentIndex);
-			final double						periodLength	= liborPeriodDiscretization.getTimeStep(componentIndex);
-			final double						periodEnd		= periodStart + periodLength;
+			drift[getNumberOfLibors()+componentIndex] = variances[componentIndex];
+		}
 
-			final double						periodStartPrevious		= liborPeriodDiscretizationPrevious.getTime(componentIndex);
-			final double						periodLengthPrevious	= liborPeriodDiscretizationPrevious.getTimeStep(componentIndex);
-			final double						periodEndPrevious		= periodStartPrevious + periodLengthPrevious;
+		/*
+		 * Change of tenor discretization - impact on log-forward-bond and integrated variance
+		 */
+		final TimeDiscretization liborPeriodDiscretizationPrevious = getLiborPeriodDiscretization(time);
+		addDriftOfTenorRefinement(drift, timeStep, realizationAtTimeIndex, zero, liborPeriodDiscretizationPrevious, getTenorIndex(time), liborPeriodDiscretization, tenorIndexNext);
 
-			if(periodStartPrevious == periodStart && periodEndPrevious == periodEnd) {
+		/*
+		 * Log accruals of backward looking rates - drift part
+		 */
+		if(backwardAccrualPeriodDiscretization != null) {
+			addDriftOfBackwardAccruals(drift, time, timeNext, realizationAtTimeIndex, liborPeriodDiscretizationPrevious);
+		}
+
+		return drift;
+	}
+
+	/**
+	 * Adds the drift of the log accruals of the backward accrual periods, which are the state components following the integrated variances.
+	 *
+	 * In the time step \( [t_{i},t_{i+1}] \) with \( T_{j} \leq t_{i} &lt; T_{j+1} \), \( T_{j} \) being the times of the finest tenor discretization,
+	 * the log accrual of an accrual period grows by
+	 * \( \frac{\Delta}{T_{j+1}-T_{j}} \log(1 + L(T_{j},T_{j+1};t_{i}) (T_{j+1}-T_{j})) \), where \( \Delta \) is the length of the overlap of the time step with the accrual period.
+	 * If the simulation times are the times of the finest tenor discretization, the log accrual at the end of the accrual period is the log of
+	 * \( \prod_{k} (1 + L(T_{k},T_{k+1};T_{k}) (T_{k+1}-T_{k})) \), as calculated by {@link #getAccrual(MonteCarloProcess, double, double, double)}.
+	 *
+	 * @param drift The drift vector to which the drift is added.
+	 * @param time The time <i>t<sub>i</sub></i>.
+	 * @param timeNext The time <i>t<sub>i+1</sub></i>.
+	 * @param stateVariables The state vector at time <i>t<sub>i</sub></i>.
+	 * @param liborPeriodDiscretization The refined tenor discretization at time <i>t<sub>i</sub></i>.
+	 */
+	private void addDriftOfBackwardAccruals(final RandomVariable[] drift, final double time, final double timeNext, final RandomVariable[] stateVariables, final TimeDiscretization liborPeriodDiscretization) {
+		RandomVariable shortRate = null;
+		for(int accrualPeriodIndex=0; accrualPeriodIndex<backwardAccrualPeriodDiscretization.getNumberOfTimeSteps(); accrualPeriodIndex++) {
+			final double overlap = Math.min(timeNext, backwardAccrualPeriodDiscretization.getTime(accrualPeriodIndex+1)) - Math.max(time, backwardAccrualPeriodDiscretization.getTime(accrualPeriodIndex));
+			if(overlap <= 0) {
 				continue;
 			}
 
-			final RandomVariable		stateVariablePrevious	= getStateVariable(process, timeIndex, periodStartPrevious,	periodEndPrevious);
-			final RandomVariable		stateVariable			= getStateVariable(process, timeIndex, periodStart, 			periodEnd);
+			if(shortRate == null) {
+				// Continuously compounded rate of the fine period containing time (see getLIBOR)
+				final TimeDiscretization tenorDiscretization = liborPeriodDiscretizations[0];
+				final int tenorIndex = getTenorIndex(time);
+				final double periodStart	= tenorDiscretization.getTime(tenorIndex);
+				final double periodEnd		= tenorDiscretization.getTime(tenorIndex+1);
+				final double initialValue = Math.log(1+forwardRateCurve.getForward(curveModel, periodStart)*(forwardRateCurve.getPaymentOffset(periodStart))) / forwardRateCurve.getPaymentOffset(periodStart);
+				final RandomVariable stateVariable = getStateVariableForPeriod(liborPeriodDiscretization, stateVariables, periodStart, periodEnd);
 
-			if(Double.isNaN(stateVariable.getAverage()) || Double.isNaN(stateVariablePrevious.getAverage())) {
-				throw new IllegalArgumentException("The model parameters resulted in a state variable becoming NaN (not a number).");
+				shortRate = stateVariable.mult(scaledTenorTimes.getScaledTenorTime(periodStart, periodEnd) / (periodEnd-periodStart)).add(initialValue);
 			}
 
-			// Shift in indexing and/or tenor refinement
-			drift[componentIndex] = drift[componentIndex].add(stateVariable.sub(stateVariablePrevious).div(timeStep));
+			drift[2*getNumberOfLibors()+accrualPeriodIndex] = shortRate.mult(overlap / (timeNext-time));
 		}
+	}
 
-		/*
-		 * Integrated variance - drift part
-		 */
-		for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
-			drift[getNumberOfLibors()+componentIndex] = variances[componentIndex];
+
+	/**
+	 * Adds the drift resulting from the change of the refined tenor discretization from <code>liborPeriodDiscretization</code> (at time <i>t<sub>i</sub></i>)
+	 * to <code>liborPeriodDiscretizationNext</code> (at time <i>t<sub>i+1</sub></i>) to the log-forward-bond and integrated variance components.
+	 *
+	 * The state variables of the periods of <code>liborPeriodDiscretizationNext</code> are calculated from the state vector at <i>t<sub>i</sub></i>
+	 * in a single pass: the sum of the scaled state variables over full periods is the difference of two prefix sums, the positions of the periods
+	 * in <code>liborPeriodDiscretization</code> are found by merging the two (sorted) discretizations.
+	 *
+	 * If <code>isCheckStateVariablesForNaN</code> is true, an <code>IllegalArgumentException</code> is thrown if a state variable or integrated variance
+	 * of <code>liborPeriodDiscretization</code> is NaN on some path.
+	 *
+	 * @param drift The drift vector to which the drift is added.
+	 * @param timeStep The time step <i>t<sub>i+1</sub>-t<sub>i</sub></i>.
+	 * @param stateVariables The state vector at time <i>t<sub>i</sub></i>.
+	 * @param zero The random variable zero.
+	 * @param liborPeriodDiscretization The refined tenor discretization at time <i>t<sub>i</sub></i>.
+	 * @param tenorIndex The tenor index of <code>liborPeriodDiscretization</code>.
+	 * @param liborPeriodDiscretizationNext The refined tenor discretization at time <i>t<sub>i+1</sub></i>.
+	 * @param tenorIndexNext The tenor index of <code>liborPeriodDiscretizationNext</code>.
+	 */
+	private void addDriftOfTenorRefinement(final RandomVariable[] drift, final double timeStep, final RandomVariable[] stateVariables, final RandomVariable zero,
+			final TimeDiscretization liborPeriodDiscretization, final int tenorIndex, final TimeDiscretization liborPeriodDiscretizationNext, final int tenorIndexNext) {
+
+		// Position of the times of liborPeriodDiscretizationNext in liborPeriodDiscretization (as in TimeDiscretization.getTimeIndex)
+		final int[] timeIndices = new int[liborPeriodDiscretizationNext.getNumberOfTimes()];
+		boolean isTenorChanged = false;
+		int position = 0;
+		for(int timeIndexNext=0; timeIndexNext<timeIndices.length; timeIndexNext++) {
+			final double time = liborPeriodDiscretizationNext.getTime(timeIndexNext);
+			while(position < liborPeriodDiscretization.getNumberOfTimes() && liborPeriodDiscretization.getTime(position) < time) {
+				position++;
+			}
+			timeIndices[timeIndexNext] = position < liborPeriodDiscretization.getNumberOfTimes() && liborPeriodDiscretization.getTime(position) == time ? position : -position-1;
+			isTenorChanged |= timeIndices[timeIndexNext] != timeIndexNext;
+		}
+		if(!isTenorChanged) {
+			return;
 		}
 
-		/*
-		 * Change of tenor discretization - impact on integrated variance
-		 */
-		for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
-			final double						periodStart		= liborPeriodDiscretization.getTime(componentIndex);
-			final double						periodLength	= liborPeriodDiscretization.getTimeStep(componentIndex);
-			final double						periodEnd		= periodStart + periodLength;
+		// Prefix sums of the scaled state variables
+		final int numberOfPeriods = Math.min(liborPeriodDiscretization.getNumberOfTimeSteps(), getNumberOfLibors());
+		final RandomVariable[] scaledStateVariableSums = new RandomVariable[numberOfPeriods+1];
+		scaledStateVariableSums[0] = zero;
+		for(int periodIndex=0; periodIndex<numberOfPeriods; periodIndex++) {
+			scaledStateVariableSums[periodIndex+1] = scaledStateVariableSums[periodIndex].addProduct(stateVariables[periodIndex], scaledTenorTimes.getScaledTenorTimeOfRefinedPeriod(tenorIndex, periodIndex));
+		}
 
-			final double						periodStartPrevious		= liborPeriodDiscretizationPrevious.getTime(componentIndex);
-			final double						periodLengthPrevious	= liborPeriodDiscretizationPrevious.getTimeStep(componentIndex);
-			final double						periodEndPrevious		= periodStartPrevious + periodLengthPrevious;
+		// A NaN in any state variable or integrated variance of the periods propagates to the sum, which is checked by a single reduction
+		if(isCheckStateVariablesForNaN) {
+			RandomVariable stateVariableAndIntegratedVarianceSum = scaledStateVariableSums[numberOfPeriods];
+			for(int periodIndex=0; periodIndex<numberOfPeriods; periodIndex++) {
+				stateVariableAndIntegratedVarianceSum = stateVariableAndIntegratedVarianceSum.add(stateVariables[getNumberOfLibors()+periodIndex]);
+			}
+			if(Double.isNaN(stateVariableAndIntegratedVarianceSum.getAverage())) {
+				throw new IllegalArgumentException("The model parameters resulted in a state variable becoming NaN (not a number).");
+			}
+		}
 
-			if(periodStartPrevious == periodStart && periodEndPrevious == periodEnd) {
+		for(int componentIndex=0; componentIndex<liborPeriodDiscretizationNext.getNumberOfTimeSteps(); componentIndex++) {
+			if(timeIndices[componentIndex] == componentIndex && timeIndices[componentIndex+1] == componentIndex+1) {
 				continue;
 			}
 
-			final RandomVariable		stateVariablePrevious	= getIntegratedVariance(process, timeIndex, periodStartPrevious, periodEndPrevious);
-			final RandomVariable		stateVariable			= getIntegratedVariance(process, timeIndex, periodStart, 		periodEnd);
+			final double periodStart	= liborPeriodDiscretizationNext.getTime(componentIndex);
+			final double periodEnd		= liborPeriodDiscretizationNext.getTime(componentIndex+1);
 
-			if(Double.isNaN(stateVariable.getAverage()) || Double.isNaN(stateVariablePrevious.getAverage())) {
-				throw new IllegalArgumentException("The model parameters resulted in a state variable becoming NaN (not a number).");
+			/*
+			 * State variable of the period (see getStateVariable)
+			 */
+			int periodStartIndex	= timeIndices[componentIndex];
+			int periodEndIndex		= timeIndices[componentIndex+1];
+
+			RandomVariable shortPeriodStartStateVariable = null;
+			double shortPeriodStartTenor = 0.0;
+			if(periodStartIndex < 0) {
+				periodStartIndex = -periodStartIndex-1;
+				if(periodStartIndex >= liborPeriodDiscretization.getNumberOfTimes()) {
+					throw new IllegalArgumentException();
+				}
+				final double shortPeriodEnd = liborPeriodDiscretization.getTime(periodStartIndex);
+				final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(liborPeriodDiscretization.getTime(periodStartIndex-1), shortPeriodEnd, periodStart, shortPeriodEnd);
+				shortPeriodStartStateVariable = stateVariables[periodStartIndex-1].addProduct(stateVariables[getNumberOfLibors()+periodStartIndex-1], tenorRefinementWeight);
+				shortPeriodStartTenor = scaledTenorTimes.getScaledTenorTime(periodStart, shortPeriodEnd);
+			}
+
+			RandomVariable shortPeriodEndStateVariable = null;
+			double shortPeriodEndTenor = 0.0;
+			if(periodEndIndex < 0) {
+				periodEndIndex = -periodEndIndex-1;
+				final double shortPeriodStart = liborPeriodDiscretization.getTime(periodEndIndex-1);
+				final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(shortPeriodStart, liborPeriodDiscretization.getTime(periodEndIndex), shortPeriodStart, periodEnd);
+				shortPeriodEndStateVariable = stateVariables[periodEndIndex-1].addProduct(stateVariables[getNumberOfLibors()+periodEndIndex-1], tenorRefinementWeight);
+				shortPeriodEndTenor = scaledTenorTimes.getScaledTenorTime(shortPeriodStart, periodEnd);
+				periodEndIndex--;
+			}
+
+			RandomVariable stateVariableSum = periodEndIndex > periodStartIndex ? scaledStateVariableSums[periodEndIndex].sub(scaledStateVariableSums[periodStartIndex]) : zero;
+			if(shortPeriodStartStateVariable != null) {
+				stateVariableSum = stateVariableSum.addProduct(shortPeriodStartStateVariable, shortPeriodStartTenor);
+			}
+			if(shortPeriodEndStateVariable != null) {
+				stateVariableSum = stateVariableSum.addProduct(shortPeriodEndStateVariable, shortPeriodEndTenor);
+			}
+			final RandomVariable stateVariable = stateVariableSum.div(scaledTenorTimes.getScaledTenorTimeOfRefinedPeriod(tenorIndexNext, componentIndex));
+
+			// Shift in indexing and/or tenor refinement (the period componentIndex of liborPeriodDiscretization has the state variable stateVariables[componentIndex])
+			drift[componentIndex] = drift[componentIndex].add(stateVariable.sub(stateVariables[componentIndex]).div(timeStep));
+
+			/*
+			 * Integrated variance of the period (see getIntegratedVariance)
+			 */
+			final int varianceStartIndex	= timeIndices[componentIndex] >= 0 ? timeIndices[componentIndex] : -timeIndices[componentIndex]-1-1;
+			final int varianceEndIndex		= timeIndices[componentIndex+1] >= 0 ? timeIndices[componentIndex+1] : -timeIndices[componentIndex+1]-1;
+			if(varianceEndIndex != varianceStartIndex+1) {
+				throw new IllegalArgumentException();
 			}
 
 			// Shift in indexing
-			drift[getNumberOfLibors()+componentIndex] = drift[getNumberOfLibors()+componentIndex].add(stateVariable.sub(stateVariablePrevious).div(timeStep));
+			drift[getNumberOfLibors()+componentIndex] = drift[getNumberOfLibors()+componentIndex].add(stateVariables[getNumberOfLibors()+varianceStartIndex].sub(stateVariables[getNumberOfLibors()+componentIndex]).div(timeStep));
 		}
-
-		return drift;
 	}
 
-
 	/**
 	 * @param timeIndex
 	 * @param periodStart
@@ -491,50 +792,6 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		return integratedVariance;
 	}
 
-	/**
-	 * @param periodStartPrevious
-	 * @param periodEndPrevious
-	 * @param periodStart
-	 * @param periodEnd
-	 * @return
-	 */
-	private double getWeightForTenorRefinement(final double periodStartPrevious, final double periodEndPrevious, final double periodStart, final double periodEnd) {
-		final TimeDiscretization numeriareDiscretization = liborPeriodDiscretizations[0];
-
-		final int periodStartPreviousIndex = numeriareDiscretization.getTimeIndex(periodStartPrevious);
-		final int periodEndPreviousIndex = numeriareDiscretization.getTimeIndex(periodEndPrevious);
-		int periodStartIndex = numeriareDiscretization.getTimeIndex(periodStart);
-		int periodEndIndex = numeriareDiscretization.getTimeIndex(periodEnd);
-
-		/// @TODO Need to improve LIBOR interpolation if required
-		if(periodStartIndex < 0) {
-			periodStartIndex = -periodStartIndex-1;
-		}
-		if(periodEndIndex < 0) {
-			periodEndIndex = -periodEndIndex-1-1;
-		}
-
-		double weight1 = 0.0;
-		for(int periodIndex = periodStartPreviousIndex; periodIndex<periodEndPreviousIndex; periodIndex++) {
-			final double deltaT = covarianceModel.getScaledTenorTime(numeriareDiscretization.getTime(periodIndex), numeriareDiscretization.getTime(periodIndex+1));
-			final double deltaTSum = covarianceModel.getScaledTenorTime(periodStartPrevious, numeriareDiscretization.getTime(periodIndex+1));
-			weight1 +=  deltaT * deltaTSum;
-		}
-
-		double weight2 = 0.0;
-		for(int periodIndex = periodStartIndex; periodIndex<periodEndIndex; periodIndex++) {
-			final double deltaT = covarianceModel.getScaledTenorTime(numeriareDiscretization.getTime(periodIndex), numeriareDiscretization.getTime(periodIndex+1));
-			final double deltaTSum = covarianceModel.getScaledTenorTime(periodStartPrevious, numeriareDiscretization.getTime(periodIndex+1));
-			weight2 +=  deltaT * deltaTSum;
-		}
-
-		if(weight1 > 0) {
-			return weight2 / covarianceModel.getScaledTenorTime(periodStart, periodEnd) - weight1 / covarianceModel.getScaledTenorTime(periodStartPrevious, periodEndPrevious);
-		} else {
-			return weight2 / covarianceModel.getScaledTenorTime(periodStart, periodEnd);
-		}
-	}
-
 	@Override
 	public	RandomVariable[]	getFactorLoading(final MonteCarloProcess process, final int timeIndex, final int componentIndex, final RandomVariable[] realizationAtTimeIndex)
 	{
@@ -572,9 +829,40 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
-	private TimeDiscretization getLiborPeriodDiscretization(final double time) {
+	/**
+	 * Returns the refined tenor discretization (the tenor structure of the state variables) used at a given simulation time.
+	 * The discretization starts at the largest time of the finest tenor discretization being less or equal to the given time.
+	 *
+	 * The discretizations are created once for every time of the finest tenor discretization, when the model is constructed.
+	 *
+	 * @param time The simulation time.
+	 * @return The refined tenor discretization.
+	 */
+	public TimeDiscretization getLiborPeriodDiscretization(final double time) {
+		return liborPeriodDiscretizationsForTenorIndex[getTenorIndex(time)];
+	}
+
+	/*
+	 * Index of the largest time of the finest tenor discretization being less or equal to the given time.
+	 */
+	private int getTenorIndex(final double time) {
+		return liborPeriodDiscretizations[0].getTimeIndexNearestLessOrEqual(time);
+	}
+
+	/*
+	 * Create the refined tenor discretization for each time of the finest tenor discretization.
+	 */
+	private static TimeDiscretization[] createLiborPeriodDiscretizations(final TimeDiscretization[] liborPeriodDiscretizations, final Integer[] numberOfDiscretizationIntervalls) {
+		final TimeDiscretization[] liborPeriodDiscretizationsForTenorIndex = new TimeDiscretization[liborPeriodDiscretizations[0].getNumberOfTimes()];
+		for(int tenorIndex=0; tenorIndex<liborPeriodDiscretizationsForTenorIndex.length; tenorIndex++) {
+			liborPeriodDiscretizationsForTenorIndex[tenorIndex] = createLiborPeriodDiscretization(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, tenorIndex);
+		}
+		return liborPeriodDiscretizationsForTenorIndex;
+	}
+
+	private static TimeDiscretization createLiborPeriodDiscretization(final TimeDiscretization[] liborPeriodDiscretizations, final Integer[] numberOfDiscretizationIntervalls, final int tenorIndex) {
 		final ArrayList<Double> tenorTimes = new ArrayList<>();
-		final double firstTime	= liborPeriodDiscretizations[0].getTime(liborPeriodDiscretizations[0].getTimeIndexNearestLessOrEqual(time));
+		final double firstTime	= liborPeriodDiscretizations[0].getTime(tenorIndex);
 		double lastTime		= firstTime;
 		tenorTimes.add(firstTime);
 		for(int discretizationLevelIndex = 0; discretizationLevelIndex<liborPeriodDiscretizations.length; discretizationLevelIndex++) {
@@ -607,10 +895,10 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 			}
 			final RandomVariable stateVariable = stateVariables[periodStartIndex-1];
 			final double shortPeriodEnd = liborPeriodDiscretization.getTime(periodStartIndex);
-			final double tenorRefinementWeight = getWeightForTenorRefinement(liborPeriodDiscretization.getTime(periodStartIndex-1), shortPeriodEnd, periodStart, shortPeriodEnd);
+			final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(liborPeriodDiscretization.getTime(periodStartIndex-1), shortPeriodEnd, periodStart, shortPeriodEnd);
 			final RandomVariable integratedVariance = stateVariables[getNumberOfLibors()+periodStartIndex-1];
 
-			final double tenor = covarianceModel.getScaledTenorTime(periodStart, shortPeriodEnd);
+			final double tenor = scaledTenorTimes.getScaledTenorTime(periodStart, shortPeriodEnd);
 			stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), tenor);
 		}
 
@@ -618,10 +906,10 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 			periodEndIndex = -periodEndIndex-1;
 			final RandomVariable stateVariable = stateVariables[periodEndIndex-1];
 			final double shortPeriodStart = liborPeriodDiscretization.getTime(periodEndIndex-1);
-			final double tenorRefinementWeight = getWeightForTenorRefinement(shortPeriodStart, liborPeriodDiscretization.getTime(periodEndIndex), shortPeriodStart, periodEnd);
+			final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(shortPeriodStart, liborPeriodDiscretization.getTime(periodEndIndex), shortPeriodStart, periodEnd);
 			final RandomVariable integratedVariance = stateVariables[getNumberOfLibors()+periodEndIndex-1];
 
-			final double tenor = covarianceModel.getScaledTenorTime(shortPeriodStart, periodEnd);
+			final double tenor = scaledTenorTimes.getScaledTenorTime(shortPeriodStart, periodEnd);
 			stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), tenor);
 			periodEndIndex--;
 		}
@@ -629,10 +917,10 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		for(int periodIndex = periodStartIndex; periodIndex<periodEndIndex; periodIndex++) {
 			final RandomVariable stateVariable = stateVariables[periodIndex];
 
-			final double tenor = covarianceModel.getScaledTenorTime(liborPeriodDiscretization.getTime(periodIndex), liborPeriodDiscretization.getTime(periodIndex+1));
+			final double tenor = scaledTenorTimes.getScaledTenorTime(liborPeriodDiscretization.getTime(periodIndex), liborPeriodDiscretization.getTime(periodIndex+1));
 			stateVariableSum = stateVariableSum.addProduct(stateVariable, tenor);
 		}
-		final double tenor = covarianceModel.getScaledTenorTime(periodStart, periodEnd);
+		final double tenor = scaledTenorTimes.getScaledTenorTime(periodStart, periodEnd);
 		stateVariableSum = stateVariableSum.div(tenor);
 
 		return stateVariableSum;
@@ -651,6 +939,7 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		// @TODO Make getLiborPeriodDiscretization to use timeIndex
 		final double time = process.getTimeDiscretization().getTime(timeIndex);
 		final TimeDiscretization liborPeriodDiscretization = this.getLiborPeriodDiscretization(time);
+		final int tenorIndex = getTenorIndex(time);
 		//		return getStateVariableForPeriod(liborPeriodDiscretization, stateVariables, periodStart, periodEnd);
 
 		int periodStartIndex = liborPeriodDiscretization.getTimeIndex(periodStart);
@@ -667,29 +956,29 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 				}
 				final RandomVariable stateVariable = process.getProcessValue(timeIndex, periodStartIndex-1);
 				final double shortPeriodEnd = liborPeriodDiscretization.getTime(periodStartIndex);
-				final double tenorRefinementWeight = getWeightForTenorRefinement(liborPeriodDiscretization.getTime(periodStartIndex-1), shortPeriodEnd, periodStart, shortPeriodEnd);
+				final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(liborPeriodDiscretization.getTime(periodStartIndex-1), shortPeriodEnd, periodStart, shortPeriodEnd);
 				final RandomVariable integratedVariance = getIntegratedVariance(process, timeIndex, liborPeriodDiscretization.getTime(periodStartIndex-1), liborPeriodDiscretization.getTime(periodStartIndex));
 
-				stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), covarianceModel.getScaledTenorTime(periodStart, shortPeriodEnd));
+				stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), scaledTenorTimes.getScaledTenorTime(periodStart, shortPeriodEnd));
 			}
 
 			if(periodEndIndex < 0) {
 				periodEndIndex = -periodEndIndex-1;
 				final RandomVariable stateVariable = process.getProcessValue(timeIndex, periodEndIndex-1);
 				final double shortPeriodStart = liborPeriodDiscretization.getTime(periodEndIndex-1);
-				final double tenorRefinementWeight = getWeightForTenorRefinement(shortPeriodStart, liborPeriodDiscretization.getTime(periodEndIndex), shortPeriodStart, periodEnd);
+				final double tenorRefinementWeight = scaledTenorTimes.getWeightForTenorRefinement(shortPeriodStart, liborPeriodDiscretization.getTime(periodEndIndex), shortPeriodStart, periodEnd);
 				final RandomVariable integratedVariance = getIntegratedVariance(process, timeIndex, liborPeriodDiscretization.getTime(periodEndIndex-1), liborPeriodDiscretization.getTime(periodEndIndex));
 
-				stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), covarianceModel.getScaledTenorTime(shortPeriodStart,periodEnd));
+				stateVariableSum = stateVariableSum.addProduct(stateVariable.addProduct(integratedVariance, tenorRefinementWeight), scaledTenorTimes.getScaledTenorTime(shortPeriodStart,periodEnd));
 				periodEndIndex--;
 			}
 
 			for(int periodIndex = periodStartIndex; periodIndex<periodEndIndex; periodIndex++) {
 				final RandomVariable stateVariable = process.getProcessValue(timeIndex, periodIndex);
 
-				stateVariableSum = stateVariableSum.addProduct(stateVariable, covarianceModel.getScaledTenorTime(liborPeriodDiscretization.getTime(periodIndex), liborPeriodDiscretization.getTime(periodIndex+1)));
+				stateVariableSum = stateVariableSum.addProduct(stateVariable, scaledTenorTimes.getScaledTenorTimeOfRefinedPeriod(tenorIndex, periodIndex));
 			}
-			stateVariableSum = stateVariableSum.div(covarianceModel.getScaledTenorTime(periodStart,periodEnd));
+			stateVariableSum = stateVariableSum.div(scaledTenorTimes.getScaledTenorTime(periodStart,periodEnd));
 		} catch (final CalculationException e) {
 		}
 
@@ -712,7 +1001,7 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 	{
 		RandomVariable stateVariable = getStateVariable(process, timeIndex, periodStart, periodEnd);
 		final double initialValue = Math.log(1+forwardRateCurve.getForward(curveModel, periodStart)*(forwardRateCurve.getPaymentOffset(periodStart))) / forwardRateCurve.getPaymentOffset(periodStart);
-		final double tenorTime = covarianceModel.getScaledTenorTime(periodStart, periodEnd);
+		final double tenorTime = scaledTenorTimes.getScaledTenorTime(periodStart, periodEnd);
 
 		stateVariable = stateVariable.mult(tenorTime).add(initialValue*(periodEnd-periodStart));
 		final RandomVariable libor = stateVariable.exp().sub(1.0).div(periodEnd-periodStart);
@@ -722,7 +1011,8 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 
 	@Override
 	public int getNumberOfComponents() {
-		return 2 * this.getLiborPeriodDiscretization(0.0).getNumberOfTimeSteps();
+		final int numberOfBackwardAccrualPeriods = backwardAccrualPeriodDiscretization != null ? backwardAccrualPeriodDiscretization.getNumberOfTimeSteps() : 0;
+		return 2 * this.getLiborPeriodDiscretization(0.0).getNumberOfTimeSteps() + numberOfBackwardAccrualPeriods;
 	}
 
 	@Override
@@ -768,15 +1058,14 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 
 	@Override
 	public TermStructureModel getCloneWithModifiedData(final Map<String, Object> dataModified) throws CalculationException {
-		final CalibrationProduct[] calibrationItems = null;
-		final Map<String, ?> properties = null;
-
 		TermStructureCovarianceModelInterface covarianceModel = this.covarianceModel;
 		if(dataModified.containsKey("covarianceModel")) {
 			covarianceModel = (TermStructureCovarianceModelInterface)dataModified.get("covarianceModel");
 		}
 
-		return new LIBORMarketModelWithTenorRefinement(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, curveModel, forwardRateCurve, discountCurve, covarianceModel, calibrationItems, properties);
+		final RandomVariableFactory randomVariableFactory = (RandomVariableFactory)dataModified.getOrDefault("randomVariableFactory", this.randomVariableFactory);
+
+		return new LIBORMarketModelWithTenorRefinement(this, randomVariableFactory, covarianceModel);
 	}
 
 	/**
@@ -788,6 +1077,187 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		return covarianceModel;
 	}
 
+	/**
+	 * Scaled tenor times and tenor refinement weights of a covariance model for periods of the finest tenor discretization.
+	 *
+	 * The values for the periods of a refined tenor discretization are created on first use of its tenor index
+	 * and are looked up by the tenor index and period index. Values for other periods of the finest tenor discretization are memoized on first use
+	 * (in caches which are cleared if they exceed a maximum size).
+	 * Values for periods not being part of the finest tenor discretization are calculated from the covariance model.
+	 */
+	private static final class ScaledTenorTimes {
+
+		private static final int	maxNumberOfCachedValues	= 1 << 16;
+
+		private final TermStructureCovarianceModelInterface	covarianceModel;
+		private final TimeDiscretization						tenorDiscretization;
+		private final TimeDiscretization[]					liborPeriodDiscretizationsForTenorIndex;
+
+		private final double[]			scaledTenorTimeSteps;			// [periodIndex] of the finest tenor discretization
+		private final RefinedPeriods[]	refinedPeriodsForTenorIndex;	// [tenorIndex], created on first use
+
+		private final Map<Long, Double>	scaledTenorTimeCache		= new ConcurrentHashMap<>();
+		private final Map<Long, Double>	tenorRefinementWeightCache	= new ConcurrentHashMap<>();
+
+		/**
+		 * The scaled tenor times and tenor refinement weights [periodIndex] of the periods of a refined tenor discretization.
+		 */
+		private static final class RefinedPeriods {
+			private final double[]	scaledTenorTimes;
+			private final double[]	tenorRefinementWeights;
+
+			private RefinedPeriods(final double[] scaledTenorTimes, final double[] tenorRefinementWeights) {
+				this.scaledTenorTimes = scaledTenorTimes;
+				this.tenorRefinementWeights = tenorRefinementWeights;
+			}
+		}
+
+		ScaledTenorTimes(final TermStructureCovarianceModelInterface covarianceModel, final TimeDiscretization tenorDiscretization, final TimeDiscretization[] liborPeriodDiscretizationsForTenorIndex) {
+			this.covarianceModel		= covarianceModel;
+			this.tenorDiscretization	= tenorDiscretization;
+			this.liborPeriodDiscretizationsForTenorIndex = liborPeriodDiscretizationsForTenorIndex;
+
+			scaledTenorTimeSteps = new double[tenorDiscretization.getNumberOfTimeSteps()];
+			for(int periodIndex=0; periodIndex<scaledTenorTimeSteps.length; periodIndex++) {
+				scaledTenorTimeSteps[periodIndex] = covarianceModel.getScaledTenorTime(tenorDiscretization.getTime(periodIndex), tenorDiscretization.getTime(periodIndex+1));
+			}
+
+			refinedPeriodsForTenorIndex = new RefinedPeriods[liborPeriodDiscretizationsForTenorIndex.length];
+		}
+
+		/**
+		 * @param tenorIndex The index of the refined tenor discretization (the index of its start time in the finest tenor discretization).
+		 * @param periodIndex The index of the period in the refined tenor discretization.
+		 * @return The scaled tenor time of the period.
+		 */
+		double getScaledTenorTimeOfRefinedPeriod(final int tenorIndex, final int periodIndex) {
+			return getRefinedPeriods(tenorIndex).scaledTenorTimes[periodIndex];
+		}
+
+		/**
+		 * @param tenorIndex The index of the refined tenor discretization (the index of its start time in the finest tenor discretization).
+		 * @param periodIndex The index of the period in the refined tenor discretization.
+		 * @return The tenor refinement weight of the period, i.e., <code>getWeightForTenorRefinement(periodStart, periodStart, periodStart, periodEnd)</code>.
+		 */
+		double getTenorRefinementWeightOfRefinedPeriod(final int tenorIndex, final int periodIndex) {
+			return getRefinedPeriods(tenorIndex).tenorRefinementWeights[periodIndex];
+		}
+
+		/*
+		 * The values of the refined tenor discretization of a tenor index, created on first use. Threads racing here create the same values
+		 * (the final fields of RefinedPeriods guarantee that a published object is seen completely initialized).
+		 */
+		private RefinedPeriods getRefinedPeriods(final int tenorIndex) {
+			RefinedPeriods refinedPeriods = refinedPeriodsForTenorIndex[tenorIndex];
+			if(refinedPeriods == null) {
+				// Most periods of the refined tenor discretizations are shared among the tenor indices, their values are calculated once through the memoization.
+				final TimeDiscretization liborPeriodDiscretization = liborPeriodDiscretizationsForTenorIndex[tenorIndex];
+				final double[] scaledTenorTimes = new double[liborPeriodDiscretization.getNumberOfTimeSteps()];
+				final double[] tenorRefinementWeights = new double[liborPeriodDiscretization.getNumberOfTimeSteps()];
+				for(int periodIndex=0; periodIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); periodIndex++) {
+					final double periodStart	= liborPeriodDiscretization.getTime(periodIndex);
+					final double periodEnd		= liborPeriodDiscretization.getTime(periodIndex+1);
+					scaledTenorTimes[periodIndex] = getScaledTenorTime(periodStart, periodEnd);
+					tenorRefinementWeights[periodIndex] = getWeightForTenorRefinement(periodStart, periodStart, periodStart, periodEnd);
+				}
+				refinedPeriods = new RefinedPeriods(scaledTenorTimes, tenorRefinementWeights);
+				refinedPeriodsForTenorIndex[tenorIndex] = refinedPeriods;
+			}
+			return refinedPeriods;
+		}
+
+		/*
+		 * Get a memoized value, calculating it if absent. The cache is cleared if it reaches its maximum size.
+		 */
+		private static double getCachedValue(final Map<Long, Double> cache, final long key, final DoubleSupplier valueSupplier) {
+			Double value = cache.get(key);
+			if(value == null) {
+				value = valueSupplier.getAsDouble();
+				if(cache.size() >= maxNumberOfCachedValues) {
+					cache.clear();
+				}
+				cache.put(key, value);
+			}
+			return value;
+		}
+
+		double getScaledTenorTime(final double periodStart, final double periodEnd) {
+			final int periodStartIndex = tenorDiscretization.getTimeIndex(periodStart);
+			final int periodEndIndex = tenorDiscretization.getTimeIndex(periodEnd);
+			if(periodStartIndex < 0 || periodEndIndex < 0) {
+				return covarianceModel.getScaledTenorTime(periodStart, periodEnd);
+			}
+
+			return getScaledTenorTime(periodStartIndex, periodEndIndex);
+		}
+
+		private double getScaledTenorTime(final int periodStartIndex, final int periodEndIndex) {
+			if(periodEndIndex == periodStartIndex+1) {
+				return scaledTenorTimeSteps[periodStartIndex];
+			}
+
+			final long key = ((long)periodStartIndex << 32) | periodEndIndex;
+			return getCachedValue(scaledTenorTimeCache, key, () -> covarianceModel.getScaledTenorTime(tenorDiscretization.getTime(periodStartIndex), tenorDiscretization.getTime(periodEndIndex)));
+		}
+
+		double getWeightForTenorRefinement(final double periodStartPrevious, final double periodEndPrevious, final double periodStart, final double periodEnd) {
+			final int periodStartPreviousIndex = tenorDiscretization.getTimeIndex(periodStartPrevious);
+			final int periodEndPreviousIndex = tenorDiscretization.getTimeIndex(periodEndPrevious);
+			final int periodStartIndex = tenorDiscretization.getTimeIndex(periodStart);
+			final int periodEndIndex = tenorDiscretization.getTimeIndex(periodEnd);
+
+			// The key packs the four indices into 16 bits each
+			if(periodStartPreviousIndex < 0 || periodEndPreviousIndex < 0 || periodStartIndex < 0 || periodEndIndex < 0 || tenorDiscretization.getNumberOfTimes() > 0xFFFF) {
+				return createWeightForTenorRefinement(periodStartPrevious, periodEndPrevious, periodStart, periodEnd);
+			}
+
+			final long key = ((long)periodStartPreviousIndex << 48) | ((long)periodEndPreviousIndex << 32) | ((long)periodStartIndex << 16) | periodEndIndex;
+			return getCachedValue(tenorRefinementWeightCache, key, () -> createWeightForTenorRefinement(periodStartPrevious, periodEndPrevious, periodStart, periodEnd));
+		}
+
+		/**
+		 * @param periodStartPrevious
+		 * @param periodEndPrevious
+		 * @param periodStart
+		 * @param periodEnd
+		 * @return
+		 */
+		private double createWeightForTenorRefinement(final double periodStartPrevious, final double periodEndPrevious, final double periodStart, final double periodEnd) {
+			final int periodStartPreviousIndex = tenorDiscretization.getTimeIndex(periodStartPrevious);
+			final int periodEndPreviousIndex = tenorDiscretization.getTimeIndex(periodEndPrevious);
+			int periodStartIndex = tenorDiscretization.getTimeIndex(periodStart);
+			int periodEndIndex = tenorDiscretization.getTimeIndex(periodEnd);
+
+			/// @TODO Need to improve LIBOR interpolation if required
+			if(periodStartIndex < 0) {
+				periodStartIndex = -periodStartIndex-1;
+			}
+			if(periodEndIndex < 0) {
+				periodEndIndex = -periodEndIndex-1-1;
+			}
+
+			double weight1 = 0.0;
+			for(int periodIndex = periodStartPreviousIndex; periodIndex<periodEndPreviousIndex; periodIndex++) {
+				final double deltaT = scaledTenorTimeSteps[periodIndex];
+				final double deltaTSum = getScaledTenorTime(periodStartPrevious, tenorDiscretization.getTime(periodIndex+1));
+				weight1 +=  deltaT * deltaTSum;
+			}
+
+			double weight2 = 0.0;
+			for(int periodIndex = periodStartIndex; periodIndex<periodEndIndex; periodIndex++) {
+				final double deltaT = scaledTenorTimeSteps[periodIndex];
+				final double deltaTSum = getScaledTenorTime(periodStartPrevious, tenorDiscretization.getTime(periodIndex+1));
+				weight2 +=  deltaT * deltaTSum;
+			}
+
+			if(weight1 > 0) {
+				return weight2 / getScaledTenorTime(periodStart, periodEnd) - weight1 / getScaledTenorTime(periodStartPrevious, periodEndPrevious);
+			} else {
+				return weight2 / getScaledTenorTime(periodStart, periodEnd);
+			}
+		}
+	}
+
 
 }
 
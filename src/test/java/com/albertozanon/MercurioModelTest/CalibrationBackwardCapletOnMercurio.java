@@ -87,6 +87,7 @@ import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
 import net.finmath.montecarlo.interestrate.products.AbstractLIBORMonteCarloProduct;
 import net.finmath.montecarlo.interestrate.products.Caplet;
 import com.albertozanon.MercurioModel.CapletOnBackwardLookingRate;
+import com.albertozanon.MercurioModel.CapletOnBackwardLookingRateAnalyticApproximation;
 import net.finmath.montecarlo.interestrate.products.SwaptionSimple;
 import net.finmath.montecarlo.interestrate.products.Caplet.ValueUnit;
 import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
@@ -112,6 +113,14 @@ public class CalibrationBackwardCapletOnMercurio {
 
 	private final int numberOfPaths		= 40000;
 	private final int numberOfFactors	= 1;
+	// If not NaN, the number of factors is the smallest number explaining this share of the variance of the correlation (e.g. 0.995), instead of numberOfFactors.
+	private final double explainedVarianceTarget	= Double.NaN;
+
+	// If true (opt-in), the model is first calibrated to the analytic approximation of the backward caplets, followed by a short Monte-Carlo refinement.
+	private final boolean	isUseAnalyticPreCalibration				= false;
+	private final int		maxIterationsMonteCarloRefinement		= 10;
+	// If true, the Jacobian of the Monte-Carlo calibration is calculated by adjoint automatic differentiation (calibrating to prices instead of volatilities).
+	private final boolean	isUseAdjointDerivatives					= false;
 
 	private static DecimalFormat formatterValue		= new DecimalFormat(" ##0.0000%;-##0.0000%", new DecimalFormatSymbols(Locale.ENGLISH));
 	private static DecimalFormat formatterParam		= new DecimalFormat(" #0.00000; -#0.00000", new DecimalFormatSymbols(Locale.ENGLISH));
@@ -120,12 +129,35 @@ public class CalibrationBackwardCapletOnMercurio {
 	
 
 	public CalibrationProduct createCalibrationItem( double weight, double maturity, final double targetVolatility, final ForwardCurve forwardCurve, final DiscountCurve discountCurve) throws CalculationException {
+		return createCalibrationItem(weight, maturity, targetVolatility, forwardCurve, discountCurve, false);
+	}
+
+	public CalibrationProduct createCalibrationItem( double weight, double maturity, final double targetVolatility, final ForwardCurve forwardCurve, final DiscountCurve discountCurve, final boolean isAnalyticApproximation) throws CalculationException {
 		double strike = 0.004783;
 		double dtLibor= 0.5;
 		double maturityMinusLengthLibor = maturity - dtLibor;
+		if(isAnalyticApproximation) {
+			CapletOnBackwardLookingRateAnalyticApproximation capletBackward = new CapletOnBackwardLookingRateAnalyticApproximation(maturityMinusLengthLibor, dtLibor, strike, dtLibor, false);
+			return new CalibrationProduct(capletBackward, targetVolatility, weight);
+		}
 		CapletOnBackwardLookingRate capletBackward = new CapletOnBackwardLookingRate(maturityMinusLengthLibor, dtLibor, strike, dtLibor, false);			
 		return new CalibrationProduct(capletBackward, targetVolatility, weight);
 	}
+
+	/*
+	 * Calibration item with the target given as price (used with adjoint derivatives). The price is obtained from the normal volatility
+	 * using the convention of CapletOnBackwardLookingRate.
+	 */
+	public CalibrationProduct createCalibrationItemValue( double weight, double maturity, final double targetVolatility, final ForwardCurve forwardCurve, final AnalyticModel curveModel) throws CalculationException {
+		double strike = 0.004783;
+		double dtLibor= 0.5;
+		double maturityMinusLengthLibor = maturity - dtLibor;
+		final double forward = forwardCurve.getForward(curveModel, maturityMinusLengthLibor, dtLibor);
+		final double discountFactor = new DiscountCurveFromForwardCurve(forwardCurve).getDiscountFactor(curveModel, maturity);
+		final double targetValue = AnalyticFormulas.bachelierOptionValue(forward * discountFactor, targetVolatility, maturityMinusLengthLibor, strike, dtLibor);
+		CapletOnBackwardLookingRate capletBackward = new CapletOnBackwardLookingRate(maturityMinusLengthLibor, dtLibor, strike, dtLibor, false, CapletOnBackwardLookingRate.ValueUnit.VALUE);
+		return new CalibrationProduct(capletBackward, targetValue, weight);
+	}
 	
 	public static void main(final String[] args) throws CalculationException, SolverException {
 		final CalibrationBackwardCapletOnMercurio test = new CalibrationBackwardCapletOnMercurio();
@@ -146,6 +178,8 @@ public class CalibrationBackwardCapletOnMercurio {
 
 		final ArrayList<String>			calibrationItemNames	= new ArrayList<>();
 		final ArrayList<CalibrationProduct>	calibrationProducts		= new ArrayList<>();
+		final ArrayList<CalibrationProduct>	calibrationProductsAnalytic	= new ArrayList<>();
+		final ArrayList<CalibrationProduct>	calibrationProductsValue	= new ArrayList<>();
 
 		final String[] atmExpiries = {"1Y", "18M", "2Y", "3Y", "4Y", "5Y", "7Y", "10Y", "15Y", "20Y", "25Y", "30Y" };
 
@@ -173,6 +207,8 @@ public class CalibrationBackwardCapletOnMercurio {
 			final double	weight = 1.0;
 
 			calibrationProducts.add(createCalibrationItem(weight, exercise, targetVolatility, forwardCurve, discountCurve));
+			calibrationProductsAnalytic.add(createCalibrationItem(weight, exercise, targetVolatility, forwardCurve, discountCurve, true));
+			calibrationProductsValue.add(createCalibrationItemValue(weight, exercise, targetVolatility, forwardCurve, curveModel));
 			calibrationItemNames.add(atmExpiries[i]);
 		}
 		final double lastTime	= 21.0;
@@ -181,10 +217,15 @@ public class CalibrationBackwardCapletOnMercurio {
 		final TimeDiscretization timeDiscretizationFromArray = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
 		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
 		
-		final BrownianMotion brownianMotion = new net.finmath.montecarlo.BrownianMotionLazyInit(timeDiscretizationFromArray, numberOfFactors, numberOfPaths, 31534  /* seed */);
 		LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretizationFromArray, liborPeriodDiscretization, 0.0002, 0.0005, 0.10, 0.0005, true);
 		
-		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretizationFromArray, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = Double.isNaN(explainedVarianceTarget)
+				? new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretizationFromArray, liborPeriodDiscretization, numberOfFactors, 0.05, false)
+				: LIBORCorrelationModelExponentialDecayWithMercurioModification.ofExplainedVariance(timeDiscretizationFromArray, liborPeriodDiscretization, explainedVarianceTarget, 0.05, false);
+		System.out.println("Number of factors: " + correlationModel.getNumberOfFactors() + "\t explained variance: " + formatterValue.format(correlationModel.getExplainedVariance()) + "\t residual correlation error: " + formatterDeviation.format(correlationModel.getResidualCorrelationError()));
+
+		// The Brownian motion has to match the number of factors of the correlation model
+		final BrownianMotion brownianMotion = new net.finmath.montecarlo.BrownianMotionLazyInit(timeDiscretizationFromArray, correlationModel.getNumberOfFactors(), numberOfPaths, 31534  /* seed */);
 		final AbstractLIBORCovarianceModelParametric covarianceModelParametric = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretizationFromArray, liborPeriodDiscretization, volatilityModel, correlationModel);
 
 		// Create blended local volatility model with fixed parameter (0=lognormal, > 1 = almost a normal model).
@@ -222,14 +263,48 @@ public class CalibrationBackwardCapletOnMercurio {
 		for(int i=0; i<calibrationItemNames.size(); i++) {
 			calibrationItemsLMM[i] = new CalibrationProduct(calibrationProducts.get(i).getProduct(),calibrationProducts.get(i).getTargetValue(),calibrationProducts.get(i).getWeight());
 		}
+		AbstractLIBORCovarianceModelParametric covarianceModelInitial = covarianceModelReducedVolatility;
+		Map<String, Object> propertiesMonteCarlo = properties;
+		if(isUseAnalyticPreCalibration) {
+			// Stage 1: calibration to the analytic approximation (does not require a simulation)
+			final CalibrationProduct[] calibrationItemsAnalytic = calibrationProductsAnalytic.toArray(new CalibrationProduct[calibrationProductsAnalytic.size()]);
+			final LIBORMarketModelFromCovarianceModelWithMercurioModification mercurioModelPreCalibrated = LIBORMarketModelFromCovarianceModelWithMercurioModification.of(
+					liborPeriodDiscretization,
+					curveModel,
+					forwardCurve,
+					new DiscountCurveFromForwardCurve(forwardCurve),
+					randomVariableFactory,
+					covarianceModelReducedVolatility,
+					calibrationItemsAnalytic, properties);
+			covarianceModelInitial = (AbstractLIBORCovarianceModelParametric)mercurioModelPreCalibrated.getCovarianceModel();
+			System.out.println("Time required for analytic pre-calibration......: " + (System.currentTimeMillis()-millisCalibrationStart)/1000.0 + " s.");
+
+			// Stage 2: short Monte-Carlo refinement
+			final Map<String, Object> calibrationParametersRefinement = new HashMap<>(calibrationParameters);
+			calibrationParametersRefinement.put("optimizerFactory", new OptimizerFactoryLevenbergMarquardt(maxIterationsMonteCarloRefinement, accuracy, numberOfThreads));
+			calibrationParametersRefinement.put("maxIterations", maxIterationsMonteCarloRefinement);
+			propertiesMonteCarlo = new HashMap<>(properties);
+			propertiesMonteCarlo.put("calibrationParameters", calibrationParametersRefinement);
+		}
+		if(isUseAdjointDerivatives) {
+			// Implied volatilities do not carry derivatives, hence calibrate to prices
+			for(int i=0; i<calibrationItemNames.size(); i++) {
+				calibrationItemsLMM[i] = calibrationProductsValue.get(i);
+			}
+			final Map<String, Object> calibrationParametersAdjoint = new HashMap<>((Map<String, Object>)propertiesMonteCarlo.get("calibrationParameters"));
+			calibrationParametersAdjoint.put("isUseAdjointDerivatives", true);
+			propertiesMonteCarlo = new HashMap<>(propertiesMonteCarlo);
+			propertiesMonteCarlo.put("calibrationParameters", calibrationParametersAdjoint);
+		}
+
 		final LIBORMarketModel mercurioModelCalibrated = LIBORMarketModelFromCovarianceModelWithMercurioModification.of(
 				liborPeriodDiscretization,
 				curveModel,
 				forwardCurve,
 				new DiscountCurveFromForwardCurve(forwardCurve),
 				randomVariableFactory,
-				covarianceModelReducedVolatility,
-				calibrationItemsLMM, properties);
+				covarianceModelInitial,
+				calibrationItemsLMM, propertiesMonteCarlo);
 
 		final long millisCalibrationEnd = System.currentTimeMillis();
 //-------------------------------------------------------------------------------- fine calibrazione volatility------------------------------
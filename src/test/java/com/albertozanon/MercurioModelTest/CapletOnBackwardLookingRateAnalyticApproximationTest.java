@@ -0,0 +1,217 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.CapletOnBackwardLookingRate;
+import com.albertozanon.MercurioModel.CapletOnBackwardLookingRateAnalyticApproximation;
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.optimizer.OptimizerFactoryLevenbergMarquardt;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for {@link CapletOnBackwardLookingRateAnalyticApproximation}.
+ */
+public class CapletOnBackwardLookingRateAnalyticApproximationTest {
+
+	private static final int numberOfPaths		= 20000;
+	private static final int numberOfFactors	= 2;
+
+	private static final double lastTime	= 10.0;
+	private static final double dtLibor		= 0.5;
+	private static final double dt			= 0.03125;
+
+	private static final double[] fixings	= { 1.0, 2.0, 4.0, 7.0 };
+
+	public static void main(final String[] args) throws CalculationException {
+		final CapletOnBackwardLookingRateAnalyticApproximationTest test = new CapletOnBackwardLookingRateAnalyticApproximationTest();
+		test.testApproximationAgreesWithMonteCarloNormal();
+		test.testApproximationAgreesWithMonteCarloLogNormal();
+		test.testCovarianceModelOnOtherLiborPeriodDiscretization();
+		test.testAnalyticPreCalibration();
+	}
+
+	/**
+	 * Compares the normal implied volatility of the approximation with the Monte-Carlo value of {@link CapletOnBackwardLookingRate}
+	 * (normal state space, deterministic volatility with volatility reduction).
+	 */
+	@Test
+	public void testApproximationAgreesWithMonteCarloNormal() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = createCovarianceModel(timeDiscretization, liborPeriodDiscretization, new double[] { 0.004, 0.001, 0.30, 0.003 }, false);
+
+		assertApproximationAgreesWithMonteCarlo(createModel(covarianceModel, "NORMAL"), timeDiscretization, CapletOnBackwardLookingRate.ValueUnit.NORMALVOLATILITY);
+	}
+
+	/**
+	 * Compares the log-normal implied volatility of the approximation with the Monte-Carlo value of {@link CapletOnBackwardLookingRate}
+	 * (log-normal state space, deterministic volatility with volatility reduction).
+	 */
+	@Test
+	public void testApproximationAgreesWithMonteCarloLogNormal() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = createCovarianceModel(timeDiscretization, liborPeriodDiscretization, new double[] { 0.20, 0.05, 0.50, 0.15 }, false);
+
+		assertApproximationAgreesWithMonteCarlo(createModel(covarianceModel, "LOGNORMAL"), timeDiscretization, CapletOnBackwardLookingRate.ValueUnit.LOGNORMALVOLATILITY);
+	}
+
+	/**
+	 * Checks that the approximation looks up the factor loadings of a covariance model using another LIBOR period discretization
+	 * by the period start: the covariance model has an additional first period (i.e., the indices of the periods are shifted),
+	 * the periods of the caplets and their volatilities are the same.
+	 */
+	@Test
+	public void testCovarianceModelOnOtherLiborPeriodDiscretization() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final double[] liborPeriodTimesShifted = new double[liborPeriodDiscretization.getNumberOfTimes()+1];
+		liborPeriodTimesShifted[0] = 0.0;
+		liborPeriodTimesShifted[1] = 0.25;
+		for(int timeIndex = 1; timeIndex < liborPeriodDiscretization.getNumberOfTimes(); timeIndex++) {
+			liborPeriodTimesShifted[timeIndex+1] = liborPeriodDiscretization.getTime(timeIndex);
+		}
+		final TimeDiscretization liborPeriodDiscretizationShifted = new TimeDiscretizationFromArray(liborPeriodTimesShifted);
+
+		final double[] volatilityParameters = new double[] { 0.004, 0.001, 0.30, 0.003 };
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(createCovarianceModel(timeDiscretization, liborPeriodDiscretization, volatilityParameters, false), "NORMAL");
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelWithShiftedCovarianceModel = createModel(createCovarianceModel(timeDiscretization, liborPeriodDiscretizationShifted, volatilityParameters, false), "NORMAL");
+
+		for(final double fixing : fixings) {
+			final double strike = getForward(model, fixing);
+			final CapletOnBackwardLookingRateAnalyticApproximation caplet = new CapletOnBackwardLookingRateAnalyticApproximation(fixing, dtLibor, strike, dtLibor, false, CapletOnBackwardLookingRate.ValueUnit.NORMALVOLATILITY);
+
+			final double volatility = caplet.getValue(0.0, model);
+			final double volatilityWithShiftedCovarianceModel = caplet.getValue(0.0, modelWithShiftedCovarianceModel);
+
+			Assert.assertEquals("Volatility of backward caplet with fixing " + fixing, volatility, volatilityWithShiftedCovarianceModel, 1E-12 * volatility);
+		}
+	}
+
+	/**
+	 * Checks the analytic pre-calibration: calibrating to the approximation of backward caplets priced with given parameters
+	 * reproduces the target volatilities.
+	 */
+	@Test
+	public void testAnalyticPreCalibration() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelTarget = createModel(createCovarianceModel(timeDiscretization, liborPeriodDiscretization, new double[] { 0.004, 0.001, 0.30, 0.003 }, true), "NORMAL");
+
+		final double[] maturities = { 1.0, 1.5, 2.0, 3.0, 4.0, 5.0, 7.0, 9.0 };
+		final CalibrationProduct[] calibrationProducts = new CalibrationProduct[maturities.length];
+		for(int productIndex = 0; productIndex < maturities.length; productIndex++) {
+			final double strike = getForward(modelTarget, maturities[productIndex]);
+			final CapletOnBackwardLookingRateAnalyticApproximation caplet = new CapletOnBackwardLookingRateAnalyticApproximation(maturities[productIndex], dtLibor, strike, dtLibor, false);
+			calibrationProducts[productIndex] = new CalibrationProduct(caplet, caplet.getValue(0.0, modelTarget), 1.0);
+		}
+
+		final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, 10 /* numberOfPaths: the products do not use the paths */, 31415 /* seed */);
+		final Map<String, Object> calibrationParameters = new HashMap<>();
+		calibrationParameters.put("accuracy", 1E-12);
+		calibrationParameters.put("brownianMotion", brownianMotion);
+		calibrationParameters.put("optimizerFactory", new OptimizerFactoryLevenbergMarquardt(400, 1E-12, 1));
+		calibrationParameters.put("parameterStep", 1E-6);
+
+		final AbstractLIBORCovarianceModelParametric covarianceModelInitial = createCovarianceModel(timeDiscretization, liborPeriodDiscretization, new double[] { 0.002, 0.0, 0.10, 0.002 }, true);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelCalibrated = createModel(covarianceModelInitial, "NORMAL", calibrationProducts, calibrationParameters);
+
+		Assert.assertFalse("Parameters changed by calibration", Arrays.equals(covarianceModelInitial.getParameterAsDouble(), ((AbstractLIBORCovarianceModelParametric)modelCalibrated.getCovarianceModel()).getParameterAsDouble()));
+		for(int productIndex = 0; productIndex < calibrationProducts.length; productIndex++) {
+			final double volatilityTarget = calibrationProducts[productIndex].getTargetValue().getAverage();
+			final double volatilityCalibrated = ((CapletOnBackwardLookingRateAnalyticApproximation)calibrationProducts[productIndex].getProduct()).getValue(0.0, modelCalibrated);
+
+			Assert.assertEquals("Volatility of calibrated backward caplet " + maturities[productIndex], volatilityTarget, volatilityCalibrated, 1E-3 * volatilityTarget);
+		}
+	}
+
+	private static void assertApproximationAgreesWithMonteCarlo(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final TimeDiscretization timeDiscretization, final CapletOnBackwardLookingRate.ValueUnit valueUnit) throws CalculationException {
+		final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 31415 /* seed */);
+		final LIBORModelMonteCarloSimulationModel simulation = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(model, brownianMotion));
+
+		for(final double fixing : fixings) {
+			final double strike = getForward(model, fixing);
+
+			final double volatilityMonteCarlo = new CapletOnBackwardLookingRate(fixing, dtLibor, strike, dtLibor, false, valueUnit).getValue(simulation);
+			final double volatilityApproximation = new CapletOnBackwardLookingRateAnalyticApproximation(fixing, dtLibor, strike, dtLibor, false, valueUnit).getValue(simulation);
+
+			// The tolerance covers the Monte-Carlo error and the time discretization error of the volatility reduction
+			Assert.assertEquals("Volatility of backward caplet with fixing " + fixing, volatilityMonteCarlo, volatilityApproximation, 0.03 * volatilityMonteCarlo);
+		}
+	}
+
+	private static double getForward(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final double fixing) {
+		return model.getForwardRateCurve().getForward(model.getAnalyticModel(), fixing, dtLibor);
+	}
+
+	private static AbstractLIBORCovarianceModelParametric createCovarianceModel(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final double[] volatilityParameters, final boolean isCalibrateable) {
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, volatilityParameters[0], volatilityParameters[1], volatilityParameters[2], volatilityParameters[3], isCalibrateable);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+
+		return new VolatilityReductionMercurioModel(new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel));
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final AbstractLIBORCovarianceModelParametric covarianceModel, final String stateSpace) throws CalculationException {
+		return createModel(covarianceModel, stateSpace, null, null);
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final AbstractLIBORCovarianceModelParametric covarianceModel, final String stateSpace, final CalibrationProduct[] calibrationProducts, final Map<String, Object> calibrationParameters) throws CalculationException {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", stateSpace);
+		if(calibrationParameters != null) {
+			properties.put("calibrationParameters", calibrationParameters);
+		}
+
+		return LIBORMarketModelFromCovarianceModelWithMercurioModification.of(
+				liborPeriodDiscretization,
+				null /* analyticModel */,
+				forwardCurve,
+				new DiscountCurveFromForwardCurve(forwardCurve),
+				new RandomVariableFromArrayFactory(),
+				covarianceModel,
+				calibrationProducts,
+				properties);
+	}
+}
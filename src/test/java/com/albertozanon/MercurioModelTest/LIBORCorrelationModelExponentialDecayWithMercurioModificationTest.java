@@ -0,0 +1,229 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+
+import net.finmath.functions.LinearAlgebra;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for the factor reduction of {@link LIBORCorrelationModelExponentialDecayWithMercurioModification}.
+ */
+public class LIBORCorrelationModelExponentialDecayWithMercurioModificationTest {
+
+	private static final double dtLibor		= 0.25;
+	private static final double a			= 0.05;
+
+	public static void main(final String[] args) {
+		final LIBORCorrelationModelExponentialDecayWithMercurioModificationTest test = new LIBORCorrelationModelExponentialDecayWithMercurioModificationTest();
+		test.testTruncatedFactorReductionAgreesWithLinearAlgebra();
+		test.testCorrelationAndResidualCorrelationError();
+		test.testNumberOfFactorsForExplainedVariance();
+		test.testNumberOfFactorsForExplainedVarianceOfLargeTenor();
+		test.testExplainedVarianceOfAllFactors();
+		test.testExplainedVarianceOutOfRange();
+		test.testCloneWithModifiedParameterIsCalibrateable();
+	}
+
+	/**
+	 * Checks that the factor reduction of a large correlation matrix (which uses the truncated eigen-decomposition)
+	 * gives the same reduced correlation \( F F^{T} \) as {@link LinearAlgebra#factorReduction(double[][], int)}.
+	 */
+	@Test
+	public void testTruncatedFactorReductionAgreesWithLinearAlgebra() {
+		// 240 periods, i.e., the truncated eigen-decomposition is used for up to 24 factors
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 240, dtLibor);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 240, dtLibor);
+		final double[][] correlationMatrix = getCorrelationMatrix(liborPeriodDiscretization, a);
+
+		for(final int numberOfFactors : new int[] { 1, 3, 5, 10, 20 }) {
+			final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, a, false);
+			final double[][] factorMatrixReference = LinearAlgebra.factorReduction(correlationMatrix, numberOfFactors);
+
+			Assert.assertEquals("Number of factors", numberOfFactors, correlationModel.getNumberOfFactors());
+
+			double maxDeviation = 0.0;
+			for(int component1 = 0; component1 < correlationMatrix.length; component1++) {
+				for(int component2 = 0; component2 <= component1; component2++) {
+					double correlation = 0.0;
+					double correlationReference = 0.0;
+					for(int factor = 0; factor < numberOfFactors; factor++) {
+						correlation += correlationModel.getFactorLoading(0, factor, component1) * correlationModel.getFactorLoading(0, factor, component2);
+						correlationReference += factorMatrixReference[component1][factor] * factorMatrixReference[component2][factor];
+					}
+					maxDeviation = Math.max(maxDeviation, Math.abs(correlation - correlationReference));
+				}
+			}
+			Assert.assertEquals("Deviation of F F^T for " + numberOfFactors + " factors", 0.0, maxDeviation, 1E-8);
+		}
+	}
+
+	/**
+	 * Checks the correlation of the factor reduced model and the residual correlation error (both calculated when requested)
+	 * against the factor loadings and the correlation \( \tilde{\rho}_{i,j} \), for the decomposition by {@link LinearAlgebra} and the truncated one.
+	 */
+	@Test
+	public void testCorrelationAndResidualCorrelationError() {
+		for(final int numberOfPeriods : new int[] { 40, 240 }) {
+			final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, numberOfPeriods, dtLibor);
+			final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfPeriods, dtLibor);
+			final double[][] correlationMatrix = getCorrelationMatrix(liborPeriodDiscretization, a);
+
+			for(final int numberOfFactors : new int[] { 1, 3, 10 }) {
+				final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, a, false);
+
+				double residualCorrelationError = 0.0;
+				for(int component1 = 0; component1 < numberOfPeriods; component1++) {
+					for(int component2 = 0; component2 < numberOfPeriods; component2++) {
+						double correlation = 0.0;
+						for(int factor = 0; factor < numberOfFactors; factor++) {
+							correlation += correlationModel.getFactorLoading(0, factor, component1) * correlationModel.getFactorLoading(0, factor, component2);
+						}
+						if(component1 == component2) {
+							correlation = 1.0;
+						}
+						Assert.assertEquals("Correlation of components " + component1 + " and " + component2, correlation, correlationModel.getCorrelation(0, component1, component2), 1E-14);
+						residualCorrelationError = Math.max(residualCorrelationError, Math.abs(correlation - correlationMatrix[component1][component2]));
+					}
+				}
+				Assert.assertEquals("Residual correlation error for " + numberOfPeriods + " periods and " + numberOfFactors + " factors", residualCorrelationError, correlationModel.getResidualCorrelationError(), 1E-14);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the number of factors selected for a given explained variance is the smallest number of factors
+	 * whose explained variance reaches the target, and that {@link LIBORCorrelationModelExponentialDecayWithMercurioModification#ofExplainedVariance}
+	 * creates a model with this number of factors.
+	 */
+	@Test
+	public void testNumberOfFactorsForExplainedVariance() {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 40, dtLibor);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dtLibor);
+
+		for(final double decay : new double[] { 0.05, 0.5, 2.0 }) {
+			for(final double explainedVarianceTarget : new double[] { 0.9, 0.99, 0.999 }) {
+				assertNumberOfFactorsForExplainedVariance(timeDiscretization, liborPeriodDiscretization, decay, explainedVarianceTarget);
+			}
+		}
+	}
+
+	/**
+	 * Checks the selection of the number of factors for a tenor using the truncated eigen-decomposition.
+	 */
+	@Test
+	public void testNumberOfFactorsForExplainedVarianceOfLargeTenor() {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 240, dtLibor);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 240, dtLibor);
+
+		assertNumberOfFactorsForExplainedVariance(timeDiscretization, liborPeriodDiscretization, a, 0.995);
+	}
+
+	/**
+	 * Checks the boundary target 1.0: all factors are required, they explain the full variance and reproduce the correlation.
+	 * The explained variance has to be increasing in the number of factors.
+	 */
+	@Test
+	public void testExplainedVarianceOfAllFactors() {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 20, dtLibor);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 20, dtLibor);
+		final int numberOfPeriods = liborPeriodDiscretization.getNumberOfTimeSteps();
+
+		final int numberOfFactors = LIBORCorrelationModelExponentialDecayWithMercurioModification.getNumberOfFactorsForExplainedVariance(liborPeriodDiscretization, 1.0, a);
+		Assert.assertEquals("Number of factors for explained variance 1.0", numberOfPeriods, numberOfFactors);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = LIBORCorrelationModelExponentialDecayWithMercurioModification.ofExplainedVariance(timeDiscretization, liborPeriodDiscretization, 1.0, a, false);
+		Assert.assertEquals("Number of factors", numberOfPeriods, correlationModel.getNumberOfFactors());
+		Assert.assertEquals("Explained variance", 1.0, correlationModel.getExplainedVariance(), 1E-10);
+		Assert.assertEquals("Residual correlation error", 0.0, correlationModel.getResidualCorrelationError(), 1E-10);
+
+		double explainedVariancePrevious = 0.0;
+		for(int factors = 1; factors <= numberOfPeriods; factors++) {
+			final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModelWithFactors = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, factors, a, false);
+			Assert.assertTrue("Explained variance increasing", correlationModelWithFactors.getExplainedVariance() >= explainedVariancePrevious - 1E-12);
+			explainedVariancePrevious = correlationModelWithFactors.getExplainedVariance();
+		}
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModelWithOneFactor = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 1, a, false);
+		Assert.assertTrue("Explained variance of one factor below 1", correlationModelWithOneFactor.getExplainedVariance() < 1.0);
+		Assert.assertTrue("Residual correlation error of one factor positive", correlationModelWithOneFactor.getResidualCorrelationError() > 1E-6);
+	}
+
+	/**
+	 * Checks that targets outside (0,1] are rejected.
+	 */
+	@Test
+	public void testExplainedVarianceOutOfRange() {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 20, dtLibor);
+
+		for(final double explainedVarianceTarget : new double[] { 0.0, -0.5, 1.0 + 1E-6, Double.NaN }) {
+			try {
+				LIBORCorrelationModelExponentialDecayWithMercurioModification.getNumberOfFactorsForExplainedVariance(liborPeriodDiscretization, explainedVarianceTarget, a);
+				Assert.fail("Explained variance " + explainedVarianceTarget + " should be rejected.");
+			}
+			catch(final IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Checks that a clone with modified parameter of a calibrateable model is calibrateable, i.e., it returns its parameter and
+	 * may be modified again, while a model which is not calibrateable ignores the parameter.
+	 */
+	@Test
+	public void testCloneWithModifiedParameterIsCalibrateable() {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 20, dtLibor);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 20, dtLibor);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 3, a, true);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification clone = correlationModel.getCloneWithModifiedParameter(new RandomVariable[] { new Scalar(0.1) });
+		Assert.assertNotNull("Parameter of clone", clone.getParameter());
+		Assert.assertEquals("Parameter of clone", 0.1, clone.getParameter()[0].doubleValue(), 0.0);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification cloneOfClone = clone.getCloneWithModifiedParameter(new RandomVariable[] { new Scalar(0.2) });
+		Assert.assertEquals("Parameter of clone of clone", 0.2, cloneOfClone.getParameter()[0].doubleValue(), 0.0);
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModelWithModifiedParameter = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 3, 0.2, true);
+		Assert.assertEquals("Correlation of clone of clone", correlationModelWithModifiedParameter.getCorrelation(0, 0, 3), cloneOfClone.getCorrelation(0, 0, 3), 0.0);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModelNotCalibrateable = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 3, a, false);
+		Assert.assertNull("Parameter of model which is not calibrateable", correlationModelNotCalibrateable.getParameter());
+		Assert.assertSame("Clone of model which is not calibrateable", correlationModelNotCalibrateable, correlationModelNotCalibrateable.getCloneWithModifiedParameter(new RandomVariable[] { new Scalar(0.1) }));
+	}
+
+	private static void assertNumberOfFactorsForExplainedVariance(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final double decay, final double explainedVarianceTarget) {
+		final int numberOfFactors = LIBORCorrelationModelExponentialDecayWithMercurioModification.getNumberOfFactorsForExplainedVariance(liborPeriodDiscretization, explainedVarianceTarget, decay);
+
+		final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModel = LIBORCorrelationModelExponentialDecayWithMercurioModification.ofExplainedVariance(timeDiscretization, liborPeriodDiscretization, explainedVarianceTarget, decay, false);
+		Assert.assertEquals("Number of factors of ofExplainedVariance", numberOfFactors, correlationModel.getNumberOfFactors());
+		Assert.assertTrue("Explained variance " + correlationModel.getExplainedVariance() + " reaches target " + explainedVarianceTarget, correlationModel.getExplainedVariance() >= explainedVarianceTarget - 1E-12);
+
+		// One factor less does not reach the target
+		if(numberOfFactors > 1) {
+			final LIBORCorrelationModelExponentialDecayWithMercurioModification correlationModelWithLessFactors = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors-1, decay, false);
+			Assert.assertTrue("Explained variance with one factor less " + correlationModelWithLessFactors.getExplainedVariance() + " below target " + explainedVarianceTarget, correlationModelWithLessFactors.getExplainedVariance() < explainedVarianceTarget);
+		}
+	}
+
+	private static double[][] getCorrelationMatrix(final TimeDiscretization liborPeriodDiscretization, final double a) {
+		final int numberOfPeriods = liborPeriodDiscretization.getNumberOfTimeSteps();
+		final double[][] correlationMatrix = new double[numberOfPeriods][numberOfPeriods];
+		for(int row = 0; row < numberOfPeriods; row++) {
+			for(int col = 0; col < numberOfPeriods; col++) {
+				correlationMatrix[row][col] = Math.exp(-a * Math.abs(liborPeriodDiscretization.getTime(row+1) - liborPeriodDiscretization.getTime(col+1)));
+			}
+		}
+		return correlationMatrix;
+	}
+}
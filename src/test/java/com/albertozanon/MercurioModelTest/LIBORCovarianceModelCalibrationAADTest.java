@@ -0,0 +1,213 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.CapletOnBackwardLookingRate;
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORCovarianceModelCalibrationAAD;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.DisplacedLocalVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.optimizer.OptimizerFactoryLevenbergMarquardt;
+import net.finmath.optimizer.SolverException;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for {@link LIBORCovarianceModelCalibrationAAD} on the covariance and correlation models with Mercurio modification:
+ * the AAD derivatives of caplets on backward looking rates are compared with finite differences and
+ * a calibration with <code>isUseAdjointDerivatives</code> is compared with a calibration using a finite difference Jacobian.
+ */
+public class LIBORCovarianceModelCalibrationAADTest {
+
+	private static final int numberOfPaths		= 2000;
+	private static final int numberOfFactors	= 2;
+
+	private static final double lastTime	= 5.0;
+	private static final double dtLibor		= 0.5;
+	private static final double dt			= 0.125;
+
+	private static final double[] maturities	= { 1.0, 2.0, 3.0, 4.0 };
+
+	private final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+	private final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+	private final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 31415 /* seed */);
+
+	public static void main(final String[] args) throws CalculationException, SolverException {
+		final LIBORCovarianceModelCalibrationAADTest test = new LIBORCovarianceModelCalibrationAADTest();
+		test.testDerivativesOfFourParameterVolatilityModel();
+		test.testDerivativesOfTimeHomogenousPiecewiseConstantVolatilityModel();
+		test.testCalibrationAgreesWithFiniteDifferenceCalibration();
+	}
+
+	/**
+	 * Compares the AAD derivatives with finite differences for the four parameter volatility model
+	 * with displaced local volatility and volatility reduction.
+	 */
+	@Test
+	public void testDerivativesOfFourParameterVolatilityModel() throws CalculationException, SolverException {
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.004, 0.001, 0.30, 0.003, true);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = new VolatilityReductionMercurioModel(new DisplacedLocalVolatilityModel(createCovarianceModel(volatilityModel), 1.0/0.25, false /* isCalibrateable */));
+
+		assertDerivativesAgreeWithFiniteDifferences(covarianceModel);
+	}
+
+	/**
+	 * Compares the AAD derivatives with finite differences for the time homogeneous piecewise constant volatility model
+	 * with volatility reduction.
+	 */
+	@Test
+	public void testDerivativesOfTimeHomogenousPiecewiseConstantVolatilityModel() throws CalculationException, SolverException {
+		final TimeDiscretization timeToMaturityDiscretization = new TimeDiscretizationFromArray(0.0, 1.0, 2.0, 3.0, 4.0);
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelTimeHomogenousPiecewiseConstantWithMercurioModification(timeDiscretization, liborPeriodDiscretization, timeToMaturityDiscretization, new double[] { 0.005, 0.0045, 0.004, 0.0035, 0.003 });
+		final AbstractLIBORCovarianceModelParametric covarianceModel = new VolatilityReductionMercurioModel(createCovarianceModel(volatilityModel));
+
+		assertDerivativesAgreeWithFiniteDifferences(covarianceModel);
+	}
+
+	/**
+	 * Calibrates to caplet prices of a model with given parameters, once with <code>isUseAdjointDerivatives</code> and
+	 * once with a finite difference Jacobian. Both calibrations have to reproduce the target prices.
+	 */
+	@Test
+	public void testCalibrationAgreesWithFiniteDifferenceCalibration() throws CalculationException {
+		final LIBORVolatilityModel volatilityModelTarget = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.004, 0.001, 0.30, 0.003, true);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelTarget = createModel(new VolatilityReductionMercurioModel(createCovarianceModel(volatilityModelTarget)), null, null);
+		final CalibrationProduct[] calibrationProducts = createCalibrationProducts(modelTarget);
+
+		final LIBORVolatilityModel volatilityModelInitial = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.003, 0.0, 0.20, 0.002, true);
+		final AbstractLIBORCovarianceModelParametric covarianceModelInitial = new VolatilityReductionMercurioModel(createCovarianceModel(volatilityModelInitial));
+
+		final LIBORModelMonteCarloSimulationModel simulationAdjoint = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(
+				createModel(covarianceModelInitial, calibrationProducts, createCalibrationParameters(true)), brownianMotion));
+		final LIBORModelMonteCarloSimulationModel simulationFiniteDifference = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(
+				createModel(covarianceModelInitial, calibrationProducts, createCalibrationParameters(false)), brownianMotion));
+
+		for(int productIndex = 0; productIndex < calibrationProducts.length; productIndex++) {
+			final double valueTarget = calibrationProducts[productIndex].getTargetValue().getAverage();
+			final double valueAdjoint = calibrationProducts[productIndex].getProduct().getValue(0.0, simulationAdjoint).getAverage();
+			final double valueFiniteDifference = calibrationProducts[productIndex].getProduct().getValue(0.0, simulationFiniteDifference).getAverage();
+
+			Assert.assertEquals("Value of caplet " + maturities[productIndex] + " calibrated with AAD", valueTarget, valueAdjoint, 1E-3 * valueTarget);
+			Assert.assertEquals("Value of caplet " + maturities[productIndex] + " calibrated with finite differences", valueTarget, valueFiniteDifference, 1E-3 * valueTarget);
+		}
+	}
+
+	private void assertDerivativesAgreeWithFiniteDifferences(final AbstractLIBORCovarianceModelParametric covarianceModel) throws CalculationException, SolverException {
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(covarianceModel, null, null);
+		final CalibrationProduct[] calibrationProducts = createCalibrationProducts(model);
+		final LIBORCovarianceModelCalibrationAAD calibration = new LIBORCovarianceModelCalibrationAAD(model, covarianceModel, calibrationProducts, brownianMotion, 0, 0.0);
+
+		final double[] parameters = covarianceModel.getParameterAsDouble();
+		final double[][] derivatives = new double[parameters.length][calibrationProducts.length];
+		calibration.getValuesAndDerivatives(parameters, derivatives);
+
+		double maxDerivative = 0.0;
+		for(final double[] derivativesOfParameter : derivatives) {
+			for(final double derivative : derivativesOfParameter) {
+				maxDerivative = Math.max(maxDerivative, Math.abs(derivative));
+			}
+		}
+		Assert.assertTrue("Derivatives non-zero", maxDerivative > 0.0);
+
+		for(int parameterIndex = 0; parameterIndex < parameters.length; parameterIndex++) {
+			// Central finite differences with the same Brownian motion
+			final double shift = 1E-5 * Math.max(Math.abs(parameters[parameterIndex]), 1E-3);
+			final double[] parametersUp = parameters.clone();
+			final double[] parametersDown = parameters.clone();
+			parametersUp[parameterIndex] += shift;
+			parametersDown[parameterIndex] -= shift;
+
+			final double[] valuesUp = calibration.getValuesAndDerivatives(parametersUp, new double[parameters.length][calibrationProducts.length]);
+			final double[] valuesDown = calibration.getValuesAndDerivatives(parametersDown, new double[parameters.length][calibrationProducts.length]);
+
+			for(int productIndex = 0; productIndex < calibrationProducts.length; productIndex++) {
+				final double derivativeFiniteDifference = (valuesUp[productIndex] - valuesDown[productIndex]) / (2 * shift);
+
+				Assert.assertEquals("Derivative of caplet " + maturities[productIndex] + " with respect to parameter " + parameterIndex, derivativeFiniteDifference, derivatives[parameterIndex][productIndex], 1E-4 * maxDerivative);
+			}
+		}
+	}
+
+	private CalibrationProduct[] createCalibrationProducts(final LIBORMarketModelFromCovarianceModelWithMercurioModification model) throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel simulation = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(model, brownianMotion));
+
+		final CalibrationProduct[] calibrationProducts = new CalibrationProduct[maturities.length];
+		for(int productIndex = 0; productIndex < maturities.length; productIndex++) {
+			final double strike = model.getForwardRateCurve().getForward(model.getAnalyticModel(), maturities[productIndex], dtLibor);
+			final CapletOnBackwardLookingRate caplet = new CapletOnBackwardLookingRate(maturities[productIndex], dtLibor, strike, dtLibor, false, CapletOnBackwardLookingRate.ValueUnit.VALUE);
+			calibrationProducts[productIndex] = new CalibrationProduct(caplet, caplet.getValue(0.0, simulation).average(), 1.0);
+		}
+		return calibrationProducts;
+	}
+
+	private Map<String, Object> createCalibrationParameters(final boolean isUseAdjointDerivatives) {
+		final Map<String, Object> calibrationParameters = new HashMap<>();
+		calibrationParameters.put("accuracy", 1E-12);
+		calibrationParameters.put("maxIterations", 400);
+		calibrationParameters.put("brownianMotion", brownianMotion);
+		calibrationParameters.put("optimizerFactory", new OptimizerFactoryLevenbergMarquardt(400, 1E-12, 1));
+		calibrationParameters.put("parameterStep", 1E-6);
+		calibrationParameters.put("isUseAdjointDerivatives", isUseAdjointDerivatives);
+		return calibrationParameters;
+	}
+
+	private AbstractLIBORCovarianceModelParametric createCovarianceModel(final LIBORVolatilityModel volatilityModel) {
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+
+		return new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel);
+	}
+
+	private LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final AbstractLIBORCovarianceModelParametric covarianceModel, final CalibrationProduct[] calibrationProducts, final Map<String, Object> calibrationParameters) throws CalculationException {
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", "NORMAL");
+		if(calibrationParameters != null) {
+			properties.put("calibrationParameters", calibrationParameters);
+		}
+
+		return LIBORMarketModelFromCovarianceModelWithMercurioModification.of(
+				liborPeriodDiscretization,
+				null /* analyticModel */,
+				forwardCurve,
+				new DiscountCurveFromForwardCurve(forwardCurve),
+				new RandomVariableFromArrayFactory(),
+				covarianceModel,
+				calibrationProducts,
+				properties);
+	}
+}
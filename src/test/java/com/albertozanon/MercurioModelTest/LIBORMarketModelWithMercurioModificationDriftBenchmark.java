@@ -0,0 +1,214 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurve;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.DisplacedLocalVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.montecarlo.process.MonteCarloProcess;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Benchmark of the drift of the log-normal {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}.
+ *
+ * Compares a full path simulation with the variance of the log-normal drift adjustment accumulated in the loop over the factor loadings
+ * with one calculating the variance in a second pass through <code>LIBORCovarianceModel.getCovariance</code> (as the implementation did before),
+ * which builds the factor loadings of every component a second time.
+ */
+public class LIBORMarketModelWithMercurioModificationDriftBenchmark {
+
+	private static final int numberOfPaths		= 1000;
+	private static final int numberOfFactors	= 3;
+
+	private static final double lastTime	= 20.0;
+	private static final double dtLibor		= 0.25;
+	private static final double dt			= 0.0625;
+
+	private static final int numberOfWarmUps		= 3;
+	private static final int numberOfRepetitions	= 10;
+
+	private static final DecimalFormat formatterTime = new DecimalFormat("0.000");
+
+	public static void main(final String[] args) throws CalculationException {
+		benchmarkLogNormalDrift(false);
+		benchmarkLogNormalDrift(true);
+	}
+
+	/**
+	 * Compares the simulation time of the log-normal model with the variance accumulated in the drift loop with the one using a second pass.
+	 *
+	 * @param isDisplaced If true, the covariance model is state dependent (a displaced local volatility model), otherwise the factor loadings are read from a table.
+	 */
+	public static void benchmarkLogNormalDrift(final boolean isDisplaced) throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final AbstractLIBORCovarianceModelParametric covarianceModel = createCovarianceModel(timeDiscretization, liborPeriodDiscretization, isDisplaced);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(covarianceModel, false);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelWithSecondPass = createModel(covarianceModel, true);
+
+		final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 3141 /* seed */);
+
+		final double timeFused = getSimulationTime(model, brownianMotion);
+		final double timeSecondPass = getSimulationTime(modelWithSecondPass, brownianMotion);
+
+		System.out.println("Log-normal drift, " + (isDisplaced ? "displaced" : "deterministic") + " covariance model, full path simulation (" + numberOfPaths + " paths, " + timeDiscretization.getNumberOfTimeSteps() + " time steps, " + liborPeriodDiscretization.getNumberOfTimeSteps() + " forward rates):");
+		System.out.println("\t with variance in drift loop....: " + formatterTime.format(timeFused) + " s");
+		System.out.println("\t with second pass (getCovariance): " + formatterTime.format(timeSecondPass) + " s");
+		System.out.println("\t speedup........................: " + formatterTime.format(timeSecondPass / timeFused));
+
+		final RandomVariable[] values = simulate(model, brownianMotion);
+		final RandomVariable[] valuesSecondPass = simulate(modelWithSecondPass, brownianMotion);
+		double maxDeviation = 0.0;
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			maxDeviation = Math.max(maxDeviation, values[componentIndex].sub(valuesSecondPass[componentIndex]).abs().getMax());
+		}
+		System.out.println("\t maximum deviation of paths.....: " + maxDeviation);
+	}
+
+	/*
+	 * Average time (in seconds) of a full path simulation with the given model.
+	 */
+	private static double getSimulationTime(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final BrownianMotion brownianMotion) throws CalculationException {
+		for(int run = 0; run < numberOfWarmUps; run++) {
+			simulate(model, brownianMotion);
+		}
+
+		final long timeStart = System.nanoTime();
+		for(int run = 0; run < numberOfRepetitions; run++) {
+			simulate(model, brownianMotion);
+		}
+		final long timeEnd = System.nanoTime();
+
+		return (timeEnd - timeStart) / 1E9 / numberOfRepetitions;
+	}
+
+	/*
+	 * Simulate all paths and return the process values at the last time.
+	 */
+	private static RandomVariable[] simulate(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final BrownianMotion brownianMotion) throws CalculationException {
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion);
+
+		final int lastTimeIndex = brownianMotion.getTimeDiscretization().getNumberOfTimes()-1;
+		final RandomVariable[] values = new RandomVariable[model.getNumberOfComponents()];
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			values[componentIndex] = process.getProcessValue(lastTimeIndex, componentIndex);
+		}
+		return values;
+	}
+
+	private static AbstractLIBORCovarianceModelParametric createCovarianceModel(final TimeDiscretization timeDiscretization, final TimeDiscretization liborPeriodDiscretization, final boolean isDisplaced) {
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.20, 0.10, 0.50, 0.20, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModelParametric = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel);
+
+		if(isDisplaced) {
+			return new VolatilityReductionMercurioModel(new DisplacedLocalVolatilityModel(covarianceModelParametric, 1.0/0.25, false /* isCalibrateable */));
+		}
+		else {
+			return new VolatilityReductionMercurioModel(covarianceModelParametric);
+		}
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final LIBORCovarianceModel covarianceModel, final boolean isSecondPass) throws CalculationException {
+		final TimeDiscretization liborPeriodDiscretization = covarianceModel.getLiborPeriodDiscretization();
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+		final DiscountCurve discountCurve = new DiscountCurveFromForwardCurve(forwardCurve);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", "LOGNORMAL");
+
+		if(isSecondPass) {
+			return new LIBORMarketModelWithVarianceFromCovarianceModel(liborPeriodDiscretization, forwardCurve, discountCurve, covarianceModel, properties);
+		}
+		else {
+			return new LIBORMarketModelFromCovarianceModelWithMercurioModification(liborPeriodDiscretization, null /* analyticModel */, forwardCurve, discountCurve, new RandomVariableFromArrayFactory(), covarianceModel, properties);
+		}
+	}
+
+	/**
+	 * Reference implementation of the (Euler, spot measure, log-normal) drift calculating the variance of the drift adjustment
+	 * in a second pass over the components through <code>LIBORCovarianceModel.getCovariance</code> (as the implementation did before).
+	 */
+	private static class LIBORMarketModelWithVarianceFromCovarianceModel extends LIBORMarketModelFromCovarianceModelWithMercurioModification {
+
+		private static final long serialVersionUID = 2790843526150316047L;
+
+		LIBORMarketModelWithVarianceFromCovarianceModel(final TimeDiscretization liborPeriodDiscretization, final ForwardCurve forwardCurve, final DiscountCurve discountCurve,
+				final LIBORCovarianceModel covarianceModel, final Map<String, Object> properties) throws CalculationException {
+			super(liborPeriodDiscretization, null /* analyticModel */, forwardCurve, discountCurve, new RandomVariableFromArrayFactory(), covarianceModel, properties);
+		}
+
+		@Override
+		public RandomVariable[] getDrift(final MonteCarloProcess process, final int timeIndex, final RandomVariable[] realizationAtTimeIndex, final RandomVariable[] realizationPredictor) {
+			final double time = process.getTime(timeIndex);
+
+			int firstLiborIndex = getLiborPeriodIndex(time);
+			if(firstLiborIndex < 0) {
+				firstLiborIndex = -firstLiborIndex-1-1;
+			}
+
+			final RandomVariable zero = getRandomVariableForConstant(0.0);
+
+			final RandomVariable[] drift = new RandomVariable[getNumberOfComponents()];
+			final RandomVariable[] covarianceFactorSums = new RandomVariable[process.getNumberOfFactors()];
+			for(int factorIndex=0; factorIndex<covarianceFactorSums.length; factorIndex++) {
+				covarianceFactorSums[factorIndex] = zero;
+			}
+
+			for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
+				final double periodLength = getLiborPeriodDiscretization().getTimeStep(componentIndex);
+				final RandomVariable libor = realizationAtTimeIndex[componentIndex];
+				final RandomVariable oneStepMeasureTransform = getRandomVariableForConstant(periodLength).discount(libor, periodLength).mult(libor);
+
+				final RandomVariable[] factorLoading = getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
+				drift[componentIndex] = zero;
+				for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
+					covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex].add(oneStepMeasureTransform.mult(factorLoading[factorIndex]));
+					drift[componentIndex] = drift[componentIndex].addProduct(covarianceFactorSums[factorIndex], factorLoading[factorIndex]);
+				}
+			}
+
+			// Drift adjustment for log-coordinate in each component (second pass)
+			for(int componentIndex=firstLiborIndex; componentIndex<getNumberOfComponents(); componentIndex++) {
+				final RandomVariable variance = getCovarianceModel().getCovariance(time, componentIndex, componentIndex, realizationAtTimeIndex);
+				drift[componentIndex] = drift[componentIndex].addProduct(variance, -0.5);
+			}
+
+			return drift;
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.DisplacedLocalVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.interestrate.products.Caplet;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for the drift calculation of {@link LIBORMarketModelFromCovarianceModelWithMercurioModification}.
+ */
+public class LIBORMarketModelWithMercurioModificationDriftTest {
+
+	private static final int numberOfPaths		= 5000;
+	private static final int numberOfFactors	= 3;
+
+	private static final double lastTime	= 21.0;
+	private static final double dtLibor		= 0.5;
+	private static final double dt			= 0.125;
+
+	public static void main(final String[] args) throws CalculationException {
+		final LIBORMarketModelWithMercurioModificationDriftTest test = new LIBORMarketModelWithMercurioModificationDriftTest();
+		test.testFusedDriftKernelNormalSpot();
+		test.testFusedDriftKernelLogNormalTerminal();
+		test.testDriftApproximationConvergence();
+	}
+
+	/**
+	 * Checks that the fused drift kernel gives the same drift as the default implementation
+	 * for a normal model under the spot measure with a displaced (i.e. state dependent) covariance model.
+	 */
+	@Test
+	public void testFusedDriftKernelNormalSpot() throws CalculationException {
+		assertFusedDriftKernelEqualsDefault("SPOT", "NORMAL", true);
+	}
+
+	/**
+	 * Checks that the fused drift kernel gives the same drift as the default implementation
+	 * for a log-normal model under the terminal measure with a deterministic covariance model.
+	 */
+	@Test
+	public void testFusedDriftKernelLogNormalTerminal() throws CalculationException {
+		assertFusedDriftKernelEqualsDefault("TERMINAL", "LOGNORMAL", false);
+	}
+
+	private void assertFusedDriftKernelEqualsDefault(final String measure, final String stateSpace, final boolean isDisplaced) throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = createCovarianceModel(timeDiscretization, isDisplaced);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", measure);
+		properties.put("stateSpace", stateSpace);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(covarianceModel, properties);
+
+		properties.put("isUseFusedDriftKernel", Boolean.TRUE);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification modelWithFusedDriftKernel = createModel(covarianceModel, properties);
+
+		final BrownianMotion brownianMotion = new net.finmath.montecarlo.BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 31415 /* seed */);
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion);
+
+		double maxDeviation = 0.0;
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex += 7) {
+			final RandomVariable[] realizationAtTimeIndex = new RandomVariable[model.getNumberOfComponents()];
+			for(int componentIndex = 0; componentIndex < realizationAtTimeIndex.length; componentIndex++) {
+				realizationAtTimeIndex[componentIndex] = process.getProcessValue(timeIndex, componentIndex);
+			}
+
+			final RandomVariable[] drift = model.getDrift(process, timeIndex, realizationAtTimeIndex, null);
+			final RandomVariable[] driftFused = modelWithFusedDriftKernel.getDrift(process, timeIndex, realizationAtTimeIndex, null);
+
+			for(int componentIndex = 0; componentIndex < drift.length; componentIndex++) {
+				if(drift[componentIndex] == null) {
+					Assert.assertNull("Drift of fixed component " + componentIndex, driftFused[componentIndex]);
+					continue;
+				}
+				for(int path = 0; path < numberOfPaths; path++) {
+					maxDeviation = Math.max(maxDeviation, Math.abs(drift[componentIndex].get(path) - driftFused[componentIndex].get(path)));
+				}
+			}
+		}
+
+		System.out.println(measure + "/" + stateSpace + ": maximum deviation of fused drift kernel: " + maxDeviation);
+		Assert.assertEquals("Deviation of fused drift kernel", 0.0, maxDeviation, 0.0);
+	}
+
+	/**
+	 * Compares caplet volatilities from simulations on a coarse time discretization (aligned with the tenor)
+	 * using the drift approximations <code>EULER</code>, <code>PREDICTOR_CORRECTOR</code> and <code>LINE_INTEGRAL</code>
+	 * with those from an Euler simulation on a four times finer time discretization.
+	 *
+	 * The simulations use common random numbers: the Brownian increments on the coarse time discretization are the sums of the increments
+	 * on the fine time discretization, such that the deviations are (mostly) the discretization error and not the Monte-Carlo error.
+	 */
+	@Test
+	public void testDriftApproximationConvergence() throws CalculationException {
+		final double dtCoarse = dtLibor;
+		final double dtFine = dt;
+		final TimeDiscretization timeDiscretizationCoarse = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtCoarse), dtCoarse);
+		final TimeDiscretization timeDiscretizationFine = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtFine), dtFine);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		// A log-normal model with high volatility, such that the state dependence of the drift matters
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretizationFine, liborPeriodDiscretization, 0.20, 0.10, 0.50, 0.20, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretizationFine, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = new VolatilityReductionMercurioModel(new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretizationFine, liborPeriodDiscretization, volatilityModel, correlationModel));
+
+		final String[] driftApproximationMethods = { "EULER", "PREDICTOR_CORRECTOR", "LINE_INTEGRAL" };
+		final double[] maturities = { 1.0, 2.0, 5.0, 10.0, 15.0, 20.0 };
+		final double strike = 0.03;
+
+		final BrownianMotion brownianMotionFine = new net.finmath.montecarlo.BrownianMotionLazyInit(timeDiscretizationFine, numberOfFactors, 20000, 31415 /* seed */);
+		final BrownianMotion brownianMotionCoarse = new BrownianMotionOnCoarseTimeDiscretization(brownianMotionFine, timeDiscretizationCoarse);
+
+		final double[] volatilitiesReference = getCapletVolatilities(covarianceModel, "EULER", brownianMotionFine, maturities, strike);
+		final double[][] volatilities = new double[driftApproximationMethods.length][];
+		for(int methodIndex=0; methodIndex<driftApproximationMethods.length; methodIndex++) {
+			volatilities[methodIndex] = getCapletVolatilities(covarianceModel, driftApproximationMethods[methodIndex], brownianMotionCoarse, maturities, strike);
+		}
+
+		System.out.println("Caplet volatilities, reference EULER with dt = " + dtFine + ", deviation of methods with dt = " + dtCoarse + ":");
+		System.out.print("Maturity\tReference");
+		for(final String method : driftApproximationMethods) {
+			System.out.print("\t" + method);
+		}
+		System.out.println();
+
+		final double[] maxDeviation = new double[driftApproximationMethods.length];
+		for(int maturityIndex=0; maturityIndex<maturities.length; maturityIndex++) {
+			System.out.print(maturities[maturityIndex] + "\t" + volatilitiesReference[maturityIndex]);
+			for(int methodIndex=0; methodIndex<driftApproximationMethods.length; methodIndex++) {
+				final double deviation = volatilities[methodIndex][maturityIndex] - volatilitiesReference[maturityIndex];
+				maxDeviation[methodIndex] = Math.max(maxDeviation[methodIndex], Math.abs(deviation) / volatilitiesReference[maturityIndex]);
+				System.out.print("\t" + deviation);
+			}
+			System.out.println();
+		}
+
+		for(int methodIndex=0; methodIndex<driftApproximationMethods.length; methodIndex++) {
+			System.out.println("Maximum relative deviation " + driftApproximationMethods[methodIndex] + ": " + maxDeviation[methodIndex]);
+		}
+
+		// The schemes using a predictor should be close to the fine discretization (the tolerance includes the Monte-Carlo error)
+		Assert.assertEquals("Relative deviation PREDICTOR_CORRECTOR", 0.0, maxDeviation[1], 0.03);
+		Assert.assertEquals("Relative deviation LINE_INTEGRAL", 0.0, maxDeviation[2], 0.03);
+
+		// With common random numbers the schemes using a predictor have to improve on the Euler scheme on the same time discretization
+		Assert.assertTrue("PREDICTOR_CORRECTOR better than EULER", maxDeviation[1] < maxDeviation[0]);
+		Assert.assertTrue("LINE_INTEGRAL better than EULER", maxDeviation[2] < maxDeviation[0]);
+	}
+
+	private static double[] getCapletVolatilities(final AbstractLIBORCovarianceModelParametric covarianceModel, final String driftApproximationMethod, final BrownianMotion brownianMotion, final double[] maturities, final double strike) throws CalculationException {
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", "LOGNORMAL");
+		properties.put("driftApproximationMethod", driftApproximationMethod);
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(covarianceModel, properties);
+
+		final LIBORModelMonteCarloSimulationModel simulation = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(model, brownianMotion));
+
+		final double[] volatilities = new double[maturities.length];
+		for(int maturityIndex=0; maturityIndex<maturities.length; maturityIndex++) {
+			final Caplet caplet = new Caplet(maturities[maturityIndex], dtLibor, strike, dtLibor, false, Caplet.ValueUnit.LOGNORMALVOLATILITY);
+			volatilities[maturityIndex] = caplet.getValue(simulation);
+		}
+		return volatilities;
+	}
+
+	private static AbstractLIBORCovarianceModelParametric createCovarianceModel(final TimeDiscretization timeDiscretization, final boolean isDisplaced) {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.0002, 0.0005, 0.10, 0.0005, true);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModelParametric = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel);
+
+		if(isDisplaced) {
+			return new VolatilityReductionMercurioModel(new DisplacedLocalVolatilityModel(covarianceModelParametric, 1.0/0.25, false /* isCalibrateable */));
+		}
+		else {
+			return new VolatilityReductionMercurioModel(covarianceModelParametric);
+		}
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final AbstractLIBORCovarianceModelParametric covarianceModel, final Map<String, Object> properties) throws CalculationException {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+
+		return new LIBORMarketModelFromCovarianceModelWithMercurioModification(
+				liborPeriodDiscretization,
+				null /* analyticModel */,
+				forwardCurve,
+				new DiscountCurveFromForwardCurve(forwardCurve),
+				new RandomVariableFromArrayFactory(),
+				covarianceModel,
+				properties);
+	}
+
+	/**
+	 * Brownian motion on a coarse time discretization whose increments are the sums of the increments of a Brownian motion on a
+	 * finer time discretization (containing the times of the coarse one), providing common random numbers for simulations on both.
+	 */
+	private static class BrownianMotionOnCoarseTimeDiscretization implements BrownianMotion {
+
+		private final BrownianMotion		brownianMotion;
+		private final TimeDiscretization	timeDiscretization;
+
+		private final RandomVariable[][]	brownianIncrements;
+
+		BrownianMotionOnCoarseTimeDiscretization(final BrownianMotion brownianMotion, final TimeDiscretization timeDiscretization) {
+			this.brownianMotion = brownianMotion;
+			this.timeDiscretization = timeDiscretization;
+			brownianIncrements = new RandomVariable[timeDiscretization.getNumberOfTimeSteps()][brownianMotion.getNumberOfFactors()];
+		}
+
+		@Override
+		public synchronized RandomVariable getBrownianIncrement(final int timeIndex, final int factor) {
+			if(brownianIncrements[timeIndex][factor] == null) {
+				final int fineTimeIndexStart	= brownianMotion.getTimeDiscretization().getTimeIndex(timeDiscretization.getTime(timeIndex));
+				final int fineTimeIndexEnd		= brownianMotion.getTimeDiscretization().getTimeIndex(timeDiscretization.getTime(timeIndex+1));
+				if(fineTimeIndexStart < 0 || fineTimeIndexEnd < 0) {
+					throw new IllegalArgumentException("The time discretization is not a subset of the time discretization of the Brownian motion.");
+				}
+
+				RandomVariable brownianIncrement = brownianMotion.getBrownianIncrement(fineTimeIndexStart, factor);
+				for(int fineTimeIndex = fineTimeIndexStart+1; fineTimeIndex < fineTimeIndexEnd; fineTimeIndex++) {
+					brownianIncrement = brownianIncrement.add(brownianMotion.getBrownianIncrement(fineTimeIndex, factor));
+				}
+				brownianIncrements[timeIndex][factor] = brownianIncrement;
+			}
+			return brownianIncrements[timeIndex][factor];
+		}
+
+		@Override
+		public RandomVariable getIncrement(final int timeIndex, final int factor) {
+			return getBrownianIncrement(timeIndex, factor);
+		}
+
+		@Override
+		public TimeDiscretization getTimeDiscretization() {
+			return timeDiscretization;
+		}
+
+		@Override
+		public int getNumberOfFactors() {
+			return brownianMotion.getNumberOfFactors();
+		}
+
+		@Override
+		public int getNumberOfPaths() {
+			return brownianMotion.getNumberOfPaths();
+		}
+
+		@Override
+		public RandomVariable getRandomVariableForConstant(final double value) {
+			return brownianMotion.getRandomVariableForConstant(value);
+		}
+
+		@Override
+		public BrownianMotion getCloneWithModifiedSeed(final int seed) {
+			return new BrownianMotionOnCoarseTimeDiscretization(brownianMotion.getCloneWithModifiedSeed(seed), timeDiscretization);
+		}
+
+		@Override
+		public BrownianMotion getCloneWithModifiedTimeDiscretization(final TimeDiscretization newTimeDiscretization) {
+			return new BrownianMotionOnCoarseTimeDiscretization(brownianMotion, newTimeDiscretization);
+		}
+	}
+}
@@ -0,0 +1,365 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelPiecewiseConstantWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.DisplacedLocalVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Micro benchmarks for the volatility models of the Mercurio model.
+ *
+ * In the full path simulations the covariance models are wrapped in a <code>DisplacedLocalVolatilityModel</code>, such that the factor loadings are state dependent
+ * and the volatility model is evaluated in every time step of the simulation (and not only once to build the factor loading table).
+ */
+public class LIBORVolatilityModelWithMercurioModificationBenchmark {
+
+	private static final int numberOfPaths		= 1000;
+	private static final int numberOfFactors	= 3;
+
+	private static final double lastTime	= 20.0;
+	private static final double dtLibor		= 0.25;
+	private static final double dt			= 0.0625;
+
+	private static final int numberOfWarmUps		= 3;
+	private static final int numberOfRepetitions	= 10;
+
+	private static final DecimalFormat formatterTime = new DecimalFormat("0.000");
+
+	public static void main(final String[] args) throws CalculationException, InterruptedException, ExecutionException {
+		benchmarkPiecewiseConstantVolatilityLookup();
+		benchmarkFourParameterVolatilityContention();
+	}
+
+	/**
+	 * Compares a full path simulation using {@link LIBORVolatilityModelPiecewiseConstantWithMercurioModification} (which reads the parameter index from a table)
+	 * with one using a volatility model searching the parameter index in every call (as the implementation did before).
+	 */
+	public static void benchmarkPiecewiseConstantVolatilityLookup() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+		final TimeDiscretization simulationTimeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.5), 0.5);
+		final TimeDiscretization timeToMaturityDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.5), 0.5);
+
+		final LIBORVolatilityModelPiecewiseConstantWithMercurioModification volatilityModel = new LIBORVolatilityModelPiecewiseConstantWithMercurioModification(
+				timeDiscretization, liborPeriodDiscretization, simulationTimeDiscretization, timeToMaturityDiscretization, 0.0050);
+		final LIBORVolatilityModel volatilityModelWithSearch = new LIBORVolatilityModelPiecewiseConstantWithSearch(volatilityModel);
+
+		final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 3141 /* seed */);
+
+		final double timeTable = getSimulationTime(volatilityModel, brownianMotion);
+		final double timeSearch = getSimulationTime(volatilityModelWithSearch, brownianMotion);
+
+		System.out.println("Piecewise constant volatility, full path simulation (" + numberOfPaths + " paths, " + timeDiscretization.getNumberOfTimeSteps() + " time steps, " + liborPeriodDiscretization.getNumberOfTimeSteps() + " forward rates):");
+		System.out.println("\t with parameter index table.....: " + formatterTime.format(timeTable) + " s");
+		System.out.println("\t with search of parameter index.: " + formatterTime.format(timeSearch) + " s");
+		System.out.println("\t speedup........................: " + formatterTime.format(timeSearch / timeTable));
+
+		final double maxDeviation = getMaxDeviation(volatilityModel, volatilityModelWithSearch, brownianMotion);
+		System.out.println("\t maximum deviation of paths.....: " + maxDeviation);
+	}
+
+	/**
+	 * Measures the throughput of concurrent reads of {@link LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification#getVolatility(int, int)}
+	 * with 1 to 16 threads, compared to a model where every read takes a common lock (as the implementation did before).
+	 */
+	public static void benchmarkFourParameterVolatilityContention() throws InterruptedException, ExecutionException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.0002, 0.0005, 0.10, 0.0005, true);
+		final LIBORVolatilityModel volatilityModelSynchronized = new LIBORVolatilityModelSynchronized(volatilityModel);
+
+		final int numberOfReadsPerThread = 20;		// Number of reads of the full surface
+
+		System.out.println("Four parameter volatility, concurrent reads of the surface (" + timeDiscretization.getNumberOfTimes() + " x " + liborPeriodDiscretization.getNumberOfTimeSteps() + "), million reads per second:");
+		System.out.println("threads\tlock free\twith lock");
+		for(final int numberOfThreads : new int[] { 1, 2, 4, 8, 16 }) {
+			final double throughput = getReadThroughput(volatilityModel, numberOfThreads, numberOfReadsPerThread);
+			final double throughputSynchronized = getReadThroughput(volatilityModelSynchronized, numberOfThreads, numberOfReadsPerThread);
+			System.out.println(numberOfThreads + "\t" + formatterTime.format(throughput / 1E6) + "\t" + formatterTime.format(throughputSynchronized / 1E6));
+		}
+	}
+
+	/*
+	 * Number of reads per second of the volatility surface using the given number of threads.
+	 */
+	private static double getReadThroughput(final LIBORVolatilityModel volatilityModel, final int numberOfThreads, final int numberOfReadsPerThread) throws InterruptedException, ExecutionException {
+		final int numberOfTimes = volatilityModel.getTimeDiscretization().getNumberOfTimeSteps();
+		final int numberOfLibors = volatilityModel.getLiborPeriodDiscretization().getNumberOfTimeSteps();
+
+		final Callable<Double> readSurface = () -> {
+			double sum = 0.0;
+			for(int read = 0; read < numberOfReadsPerThread; read++) {
+				for(int timeIndex = 0; timeIndex < numberOfTimes; timeIndex++) {
+					for(int liborIndex = 0; liborIndex < numberOfLibors; liborIndex++) {
+						sum += volatilityModel.getVolatility(timeIndex, liborIndex).get(0);
+					}
+				}
+			}
+			return sum;
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			double timeBest = Double.MAX_VALUE;
+			for(int run = 0; run < numberOfWarmUps + numberOfRepetitions; run++) {
+				final List<Callable<Double>> tasks = new ArrayList<>();
+				for(int thread = 0; thread < numberOfThreads; thread++) {
+					tasks.add(readSurface);
+				}
+
+				final long timeStart = System.nanoTime();
+				for(final Future<Double> result : executor.invokeAll(tasks)) {
+					result.get();
+				}
+				final long timeEnd = System.nanoTime();
+
+				if(run >= numberOfWarmUps) {
+					timeBest = Math.min(timeBest, (timeEnd - timeStart) / 1E9);
+				}
+			}
+			return (double)numberOfThreads * numberOfReadsPerThread * numberOfTimes * numberOfLibors / timeBest;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * Average time (in seconds) of a full path simulation with the given volatility model.
+	 */
+	private static double getSimulationTime(final LIBORVolatilityModel volatilityModel, final BrownianMotion brownianMotion) throws CalculationException {
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(volatilityModel);
+
+		for(int run = 0; run < numberOfWarmUps; run++) {
+			simulate(model, brownianMotion);
+		}
+
+		final long timeStart = System.nanoTime();
+		for(int run = 0; run < numberOfRepetitions; run++) {
+			simulate(model, brownianMotion);
+		}
+		final long timeEnd = System.nanoTime();
+
+		return (timeEnd - timeStart) / 1E9 / numberOfRepetitions;
+	}
+
+	private static double getMaxDeviation(final LIBORVolatilityModel volatilityModel1, final LIBORVolatilityModel volatilityModel2, final BrownianMotion brownianMotion) throws CalculationException {
+		final RandomVariable[] values1 = simulate(createModel(volatilityModel1), brownianMotion);
+		final RandomVariable[] values2 = simulate(createModel(volatilityModel2), brownianMotion);
+
+		double maxDeviation = 0.0;
+		for(int componentIndex = 0; componentIndex < values1.length; componentIndex++) {
+			maxDeviation = Math.max(maxDeviation, values1[componentIndex].sub(values2[componentIndex]).abs().getMax());
+		}
+		return maxDeviation;
+	}
+
+	/*
+	 * Simulate all paths and return the process values at the last time.
+	 */
+	private static RandomVariable[] simulate(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final BrownianMotion brownianMotion) throws CalculationException {
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion);
+
+		final int lastTimeIndex = brownianMotion.getTimeDiscretization().getNumberOfTimes()-1;
+		final RandomVariable[] values = new RandomVariable[model.getNumberOfComponents()];
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			values[componentIndex] = process.getProcessValue(lastTimeIndex, componentIndex);
+		}
+		return values;
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final LIBORVolatilityModel volatilityModel) throws CalculationException {
+		final TimeDiscretization timeDiscretization = volatilityModel.getTimeDiscretization();
+		final TimeDiscretization liborPeriodDiscretization = volatilityModel.getLiborPeriodDiscretization();
+
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = new VolatilityReductionMercurioModel(new DisplacedLocalVolatilityModel(
+				new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel), 1.0/0.25, false /* isCalibrateable */));
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", "NORMAL");
+
+		return new LIBORMarketModelFromCovarianceModelWithMercurioModification(
+				liborPeriodDiscretization,
+				null /* analyticModel */,
+				forwardCurve,
+				new DiscountCurveFromForwardCurve(forwardCurve),
+				new RandomVariableFromArrayFactory(),
+				covarianceModel,
+				properties);
+	}
+
+	/**
+	 * Reference implementation taking a common lock for every read of the volatility.
+	 */
+	private static class LIBORVolatilityModelSynchronized extends LIBORVolatilityModel {
+
+		private static final long serialVersionUID = 6417069934571806032L;
+
+		private final LIBORVolatilityModel volatilityModel;
+		private final Object lock = new Object();
+
+		LIBORVolatilityModelSynchronized(final LIBORVolatilityModel volatilityModel) {
+			super(volatilityModel.getTimeDiscretization(), volatilityModel.getLiborPeriodDiscretization());
+			this.volatilityModel = volatilityModel;
+		}
+
+		@Override
+		public RandomVariable getVolatility(final int timeIndex, final int liborIndex) {
+			synchronized (lock) {
+				return volatilityModel.getVolatility(timeIndex, liborIndex);
+			}
+		}
+
+		@Override
+		public RandomVariable[] getParameter() {
+			return null;
+		}
+
+		@Override
+		public LIBORVolatilityModel getCloneWithModifiedParameter(final RandomVariable[] parameter) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LIBORVolatilityModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Object clone() {
+			return new LIBORVolatilityModelSynchronized(volatilityModel);
+		}
+	}
+
+	/**
+	 * Reference implementation of the piecewise constant volatility, searching the simulation time and time to maturity
+	 * in the respective discretization and looking up the parameter index in a map in every call.
+	 */
+	private static class LIBORVolatilityModelPiecewiseConstantWithSearch extends LIBORVolatilityModel {
+
+		private static final long serialVersionUID = -2455624588418627235L;
+
+		private final LIBORVolatilityModelPiecewiseConstantWithMercurioModification volatilityModel;
+		private final Map<Integer, Map<Integer, Integer>> indexMap = new HashMap<>();
+		private final RandomVariable[] volatility;
+
+		LIBORVolatilityModelPiecewiseConstantWithSearch(final LIBORVolatilityModelPiecewiseConstantWithMercurioModification volatilityModel) {
+			super(volatilityModel.getTimeDiscretization(), volatilityModel.getLiborPeriodDiscretization());
+			this.volatilityModel = volatilityModel;
+			this.volatility = volatilityModel.getParameter();
+
+			// Same ordering of the parameters as in LIBORVolatilityModelPiecewiseConstantWithMercurioModification
+			final TimeDiscretization simulationTimeDiscretization = volatilityModel.getSimulationTimeDiscretization();
+			final TimeDiscretization timeToMaturityDiscretization = volatilityModel.getTimeToMaturityDiscretization();
+			final double maxMaturity = getLiborPeriodDiscretization().getTime(getLiborPeriodDiscretization().getNumberOfTimes()-1);
+			int volatilityIndex = 0;
+			for(int simulationTime=0; simulationTime<simulationTimeDiscretization.getNumberOfTimes(); simulationTime++) {
+				final Map<Integer, Integer> timeToMaturityIndexing = new HashMap<>();
+				for(int timeToMaturity=0; timeToMaturity<timeToMaturityDiscretization.getNumberOfTimes(); timeToMaturity++) {
+					if(simulationTimeDiscretization.getTime(simulationTime)+timeToMaturityDiscretization.getTime(timeToMaturity) > maxMaturity) {
+						continue;
+					}
+					timeToMaturityIndexing.put(timeToMaturity,volatilityIndex++);
+				}
+				indexMap.put(simulationTime, timeToMaturityIndexing);
+			}
+		}
+
+		@Override
+		public RandomVariable getVolatility(final int timeIndex, final int liborIndex) {
+			final double time             = getTimeDiscretization().getTime(timeIndex);
+			final double maturity         = getLiborPeriodDiscretization().getTime(liborIndex+1);
+			final double timeToMaturity   = maturity-time;
+
+			if(timeToMaturity <= 0) {
+				return new RandomVariableFromArrayFactory().createRandomVariable(time, 0.0);
+			}
+
+			final TimeDiscretization simulationTimeDiscretization = volatilityModel.getSimulationTimeDiscretization();
+			final TimeDiscretization timeToMaturityDiscretization = volatilityModel.getTimeToMaturityDiscretization();
+
+			int timeIndexSimulationTime = simulationTimeDiscretization.getTimeIndexNearestLessOrEqual(time);
+			if(timeIndexSimulationTime < 0) {
+				timeIndexSimulationTime = 0;
+			}
+			if(timeIndexSimulationTime >= simulationTimeDiscretization.getNumberOfTimes()) {
+				timeIndexSimulationTime--;
+			}
+
+			int timeIndexTimeToMaturity = timeToMaturityDiscretization.getTimeIndexNearestLessOrEqual(timeToMaturity);
+			if(timeIndexTimeToMaturity < 0) {
+				timeIndexTimeToMaturity = 0;
+			}
+			if(timeIndexTimeToMaturity >= timeToMaturityDiscretization.getNumberOfTimes()) {
+				timeIndexTimeToMaturity--;
+			}
+
+			final int parameterIndex = indexMap.get(timeIndexSimulationTime).get(timeIndexTimeToMaturity);
+			return volatility[parameterIndex];
+		}
+
+		@Override
+		public RandomVariable[] getParameter() {
+			return null;
+		}
+
+		@Override
+		public LIBORVolatilityModel getCloneWithModifiedParameter(final RandomVariable[] parameter) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LIBORVolatilityModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Object clone() {
+			return new LIBORVolatilityModelPiecewiseConstantWithSearch(volatilityModel);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORMarketModelFromCovarianceModelWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.SwaptionAnalyticApproximationWithMercurioModification;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.interestrate.products.SwaptionAnalyticApproximation;
+import net.finmath.montecarlo.interestrate.products.SwaptionAnalyticApproximation.ValueUnit;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for {@link SwaptionAnalyticApproximationWithMercurioModification}, comparing it with <code>SwaptionAnalyticApproximation</code>
+ * (which uses the full integrated covariance cube of the model, as the calibration did before).
+ */
+public class SwaptionAnalyticApproximationWithMercurioModificationTest {
+
+	private static final int numberOfPaths		= 10;
+	private static final int numberOfFactors	= 3;
+
+	private static final double lastTime	= 20.0;
+	private static final double dtLibor		= 0.5;
+
+	private static final double[] exerciseDates	= { 1.0, 2.0, 5.0, 10.0 };
+	private static final double[] swapLengths	= { 1.0, 5.0, 10.0 };
+
+	public static void main(final String[] args) throws CalculationException {
+		final SwaptionAnalyticApproximationWithMercurioModificationTest test = new SwaptionAnalyticApproximationWithMercurioModificationTest();
+		test.testSwapPeriodEqualsLiborPeriod();
+		test.testSwapPeriodOfSeveralLiborPeriods();
+		test.testSeveralTimeDiscretizations();
+	}
+
+	/**
+	 * Compares volatility and value for swaptions whose swap periods are the LIBOR periods.
+	 */
+	@Test
+	public void testSwapPeriodEqualsLiborPeriod() throws CalculationException {
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.125), 0.125));
+
+		assertEqualsSwaptionAnalyticApproximation(model, new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.125), 0.125), dtLibor);
+	}
+
+	/**
+	 * Compares volatility and value for swaptions whose (annual) swap periods consist of two LIBOR periods, as used by the swaption calibration.
+	 */
+	@Test
+	public void testSwapPeriodOfSeveralLiborPeriods() throws CalculationException {
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.125), 0.125));
+
+		assertEqualsSwaptionAnalyticApproximation(model, new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.125), 0.125), 2 * dtLibor);
+	}
+
+	/**
+	 * Values the swaptions of one model on more simulation time discretizations than the model caches, twice, such that
+	 * the integrated covariance is recalculated after its eviction.
+	 */
+	@Test
+	public void testSeveralTimeDiscretizations() throws CalculationException {
+		final LIBORMarketModelFromCovarianceModelWithMercurioModification model = createModel(new TimeDiscretizationFromArray(0.0, (int) (lastTime / 0.125), 0.125));
+
+		for(int repetition = 0; repetition < 2; repetition++) {
+			for(final double dt : new double[] { 0.5, 0.25, 0.125, 0.0625, 0.05, 0.025 }) {
+				assertEqualsSwaptionAnalyticApproximation(model, new TimeDiscretizationFromArray(0.0, (int) Math.round(lastTime / dt), dt), dtLibor);
+			}
+		}
+	}
+
+	private static void assertEqualsSwaptionAnalyticApproximation(final LIBORMarketModelFromCovarianceModelWithMercurioModification model, final TimeDiscretization timeDiscretization, final double swapPeriodLength) throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel simulation = new LIBORMonteCarloSimulationFromLIBORModel(new EulerSchemeFromProcessModel(model, new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 31415 /* seed */)));
+
+		for(final double exerciseDate : exerciseDates) {
+			for(final double swapLength : swapLengths) {
+				final int numberOfPeriods = (int) Math.round(swapLength / swapPeriodLength);
+				final double[] swapTenor = new double[numberOfPeriods+1];
+				for(int periodIndex = 0; periodIndex <= numberOfPeriods; periodIndex++) {
+					swapTenor[periodIndex] = exerciseDate + periodIndex * swapPeriodLength;
+				}
+				final double swaprate = 0.025;
+
+				for(final ValueUnit valueUnit : new ValueUnit[] { ValueUnit.VOLATILITYLOGNORMAL, ValueUnit.VALUE }) {
+					final double value = new SwaptionAnalyticApproximationWithMercurioModification(swaprate, swapTenor, valueUnit).getValue(0.0, simulation).getAverage();
+					final double valueReference = new SwaptionAnalyticApproximation(swaprate, swapTenor, valueUnit).getValue(0.0, simulation).getAverage();
+
+					Assert.assertEquals("Swaption " + exerciseDate + " x " + swapLength + " (swap period " + swapPeriodLength + ", dt " + timeDiscretization.getTimeStep(0) + ") in " + valueUnit, valueReference, value, 1E-10 * Math.abs(valueReference));
+				}
+			}
+		}
+	}
+
+	private static LIBORMarketModelFromCovarianceModelWithMercurioModification createModel(final TimeDiscretization timeDiscretization) throws CalculationException {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				dtLibor										/* tenor / period length */
+				);
+
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.20, 0.05, 0.50, 0.15, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModel = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel);
+
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		properties.put("stateSpace", "LOGNORMAL");
+
+		return new LIBORMarketModelFromCovarianceModelWithMercurioModification(
+				liborPeriodDiscretization,
+				null /* analyticModel */,
+				forwardCurve,
+				new DiscountCurveFromForwardCurve(forwardCurve),
+				new RandomVariableFromArrayFactory(),
+				covarianceModel,
+				properties);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.MercurioModelTest;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.MercurioModel.LIBORCorrelationModelExponentialDecayWithMercurioModification;
+import com.albertozanon.MercurioModel.LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification;
+import com.albertozanon.MercurioModel.VolatilityReductionMercurioModel;
+
+import net.finmath.functions.LinearAlgebra;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.DisplacedLocalVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests for the pseudo inverse of the factor loadings of {@link VolatilityReductionMercurioModel}.
+ */
+public class VolatilityReductionMercurioModelTest {
+
+	private static final int numberOfFactors	= 2;
+
+	private static final double lastTime	= 5.0;
+	private static final double dtLibor		= 0.5;
+	private static final double dt			= 0.25;
+
+	// Time index within the second LIBOR period (t = 0.75), i.e., with a fixed rate and a reduced volatility
+	private static final int timeIndex		= 3;
+
+	private final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+	private final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dtLibor), dtLibor);
+
+	public static void main(final String[] args) {
+		final VolatilityReductionMercurioModelTest test = new VolatilityReductionMercurioModelTest();
+		test.testPseudoInverseOfStateIndependentModel();
+		test.testPseudoInverseOfStateDependentModel();
+	}
+
+	/**
+	 * Checks the (cached) pseudo inverse of a state independent base model for different realizations.
+	 */
+	@Test
+	public void testPseudoInverseOfStateIndependentModel() {
+		final VolatilityReductionMercurioModel covarianceModel = new VolatilityReductionMercurioModel(createCovarianceModel());
+
+		final RandomVariable[] realization1 = createRealization(new double[] { 0.02 });
+		final RandomVariable[] realization2 = createRealization(new double[] { 0.04 });
+
+		assertPseudoInverse(covarianceModel, realization1);
+		assertPseudoInverse(covarianceModel, realization2);
+		assertPseudoInverse(covarianceModel, realization1);
+	}
+
+	/**
+	 * Checks the pseudo inverse of a state dependent (displaced local volatility) base model: a pseudo inverse calculated for one
+	 * deterministic realization must not be returned for another realization of the same time index.
+	 */
+	@Test
+	public void testPseudoInverseOfStateDependentModel() {
+		final VolatilityReductionMercurioModel covarianceModel = new VolatilityReductionMercurioModel(new DisplacedLocalVolatilityModel(createCovarianceModel(), 0.01, false /* isCalibrateable */));
+
+		final RandomVariable[] realization1 = createRealization(new double[] { 0.02 });
+		final RandomVariable[] realization2 = createRealization(new double[] { 0.04 });
+		final RandomVariable[] realization3 = createRealization(new double[] { 0.01, 0.03, 0.05 });
+
+		final double[][][] pseudoInverse1 = assertPseudoInverse(covarianceModel, realization1);
+		final double[][][] pseudoInverse2 = assertPseudoInverse(covarianceModel, realization2);
+		assertPseudoInverse(covarianceModel, realization3);
+		assertPseudoInverse(covarianceModel, realization1);
+
+		Assert.assertFalse("Pseudo inverse depends on realization", Arrays.deepEquals(pseudoInverse1, pseudoInverse2));
+	}
+
+	/*
+	 * Compares the pseudo inverse [factor][component][path] of the model with the pseudo inverse of the factor loading matrix on each path.
+	 */
+	private double[][][] assertPseudoInverse(final VolatilityReductionMercurioModel covarianceModel, final RandomVariable[] realization) {
+		final int numberOfComponents = liborPeriodDiscretization.getNumberOfTimeSteps();
+		final int numberOfPaths = realization[0].size();
+
+		final double[][][] pseudoInverse = new double[numberOfFactors][numberOfComponents][numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			final double[][] factorLoadingMatrix = new double[numberOfComponents][];
+			for(int component = 0; component < numberOfComponents; component++) {
+				final RandomVariable[] factorLoading = covarianceModel.getFactorLoading(timeIndex, component, realization);
+				factorLoadingMatrix[component] = new double[numberOfFactors];
+				for(int factor = 0; factor < numberOfFactors; factor++) {
+					factorLoadingMatrix[component][factor] = factorLoading[factor].get(path);
+				}
+			}
+			final double[][] pseudoInverseExpected = LinearAlgebra.pseudoInverse(factorLoadingMatrix);
+
+			for(int factor = 0; factor < numberOfFactors; factor++) {
+				for(int component = 0; component < numberOfComponents; component++) {
+					pseudoInverse[factor][component][path] = covarianceModel.getFactorLoadingPseudoInverse(timeIndex, component, factor, realization).get(path);
+
+					Assert.assertEquals("Pseudo inverse of factor " + factor + " and component " + component + " on path " + path,
+							pseudoInverseExpected[factor][component], pseudoInverse[factor][component][path], 1E-10 * Math.max(Math.abs(pseudoInverseExpected[factor][component]), 1.0));
+				}
+			}
+		}
+		return pseudoInverse;
+	}
+
+	/*
+	 * A realization where all components have the same value (a constant if a single value is given).
+	 */
+	private RandomVariable[] createRealization(final double[] values) {
+		final RandomVariable[] realization = new RandomVariable[liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int component = 0; component < realization.length; component++) {
+			realization[component] = values.length == 1 ? new Scalar(values[0]) : new RandomVariableFromDoubleArray(timeDiscretization.getTime(timeIndex), values);
+		}
+		return realization;
+	}
+
+	private AbstractLIBORCovarianceModelParametric createCovarianceModel() {
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialFormWithMercurioModification(timeDiscretization, liborPeriodDiscretization, 0.20, 0.05, 0.50, 0.15, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecayWithMercurioModification(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.05, false);
+
+		return new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, liborPeriodDiscretization, volatilityModel, correlationModel);
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.TimeHomogeneousTest;
+
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+
+import com.albertozanon.TimeHomogeneouLMM.LIBORMarketModelWithTenorRefinement;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.DiscountCurve;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModelExponentialDecay;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModelFourParameterExponentialForm;
+import net.finmath.montecarlo.interestrate.models.covariance.TermStructCovarianceModelFromLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.TermStructureCovarianceModelInterface;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+import net.finmath.time.TimeDiscretizationFromArray.ShortPeriodLocation;
+
+/**
+ * Benchmarks for full path simulations of the {@link LIBORMarketModelWithTenorRefinement}.
+ *
+ * The allocation is measured by <code>com.sun.management.ThreadMXBean</code>, summing the allocated bytes over all live threads
+ * (the Euler scheme may use worker threads).
+ */
+public class LIBORMarketModelWithTenorRefinementBenchmark {
+
+	private static final int numberOfPaths		= 1000;
+	private static final int numberOfFactors	= 1;
+
+	private static final double lastTime	= 5.0;
+	private static final double dt			= 0.005;
+
+	private static final int numberOfWarmUps		= 2;
+	private static final int numberOfRepetitions	= 5;
+
+	private static final DecimalFormat formatterTime = new DecimalFormat("0.000");
+	private static final DecimalFormat formatterMemory = new DecimalFormat("0.0");
+
+	public static void main(final String[] args) throws CalculationException {
+		benchmarkTenorDiscretizationCache();
+	}
+
+	/**
+	 * Compares a full path simulation of the {@link LIBORMarketModelWithTenorRefinement} (which looks up the refined tenor discretization of a time index)
+	 * with one creating the refined tenor discretization in every call (as the implementation did before).
+	 */
+	public static void benchmarkTenorDiscretizationCache() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, (int) (lastTime / dt), dt);
+		final BrownianMotion brownianMotion = new BrownianMotionLazyInit(timeDiscretization, numberOfFactors, numberOfPaths, 31415 /* seed */);
+
+		final LIBORMarketModelWithTenorRefinement model = createModel(timeDiscretization, false);
+		final LIBORMarketModelWithTenorRefinement modelWithoutCache = createModel(timeDiscretization, true);
+
+		final double[] timeAndMemory = getSimulationTimeAndAllocation(model, brownianMotion);
+		final double[] timeAndMemoryWithoutCache = getSimulationTimeAndAllocation(modelWithoutCache, brownianMotion);
+
+		System.out.println("Tenor refinement, full path simulation (" + numberOfPaths + " paths, " + timeDiscretization.getNumberOfTimeSteps() + " time steps, " + model.getNumberOfLibors() + " state variables):");
+		System.out.println("\t with cached tenor discretizations.....: " + formatterTime.format(timeAndMemory[0]) + " s, " + formatterMemory.format(timeAndMemory[1] / 1024 / 1024) + " MB allocated");
+		System.out.println("\t creating tenor discretizations on call: " + formatterTime.format(timeAndMemoryWithoutCache[0]) + " s, " + formatterMemory.format(timeAndMemoryWithoutCache[1] / 1024 / 1024) + " MB allocated");
+		System.out.println("\t speedup...............................: " + formatterTime.format(timeAndMemoryWithoutCache[0] / timeAndMemory[0]));
+
+		final RandomVariable[] values = simulate(model, brownianMotion);
+		final RandomVariable[] valuesWithoutCache = simulate(modelWithoutCache, brownianMotion);
+		double maxDeviation = 0.0;
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			maxDeviation = Math.max(maxDeviation, values[componentIndex].sub(valuesWithoutCache[componentIndex]).abs().getMax());
+		}
+		System.out.println("\t maximum deviation of paths............: " + maxDeviation);
+	}
+
+	/*
+	 * Average time (in seconds) and average allocated bytes of a full path simulation.
+	 */
+	private static double[] getSimulationTimeAndAllocation(final LIBORMarketModelWithTenorRefinement model, final BrownianMotion brownianMotion) throws CalculationException {
+		for(int run = 0; run < numberOfWarmUps; run++) {
+			simulate(model, brownianMotion);
+		}
+
+		final long allocatedBytesStart = getAllocatedBytes();
+		final long timeStart = System.nanoTime();
+		for(int run = 0; run < numberOfRepetitions; run++) {
+			simulate(model, brownianMotion);
+		}
+		final long timeEnd = System.nanoTime();
+		final long allocatedBytesEnd = getAllocatedBytes();
+
+		return new double[] { (timeEnd - timeStart) / 1E9 / numberOfRepetitions, (double)(allocatedBytesEnd - allocatedBytesStart) / numberOfRepetitions };
+	}
+
+	private static long getAllocatedBytes() {
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long allocatedBytes = 0;
+		for(final long allocatedBytesOfThread : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+			if(allocatedBytesOfThread > 0) {
+				allocatedBytes += allocatedBytesOfThread;
+			}
+		}
+		return allocatedBytes;
+	}
+
+	/*
+	 * Simulate all paths and return the process values at the last time.
+	 */
+	private static RandomVariable[] simulate(final LIBORMarketModelWithTenorRefinement model, final BrownianMotion brownianMotion) throws CalculationException {
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion);
+
+		final int lastTimeIndex = brownianMotion.getTimeDiscretization().getNumberOfTimes()-1;
+		final RandomVariable[] values = new RandomVariable[model.getNumberOfComponents()];
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			values[componentIndex] = process.getProcessValue(lastTimeIndex, componentIndex);
+		}
+		return values;
+	}
+
+	/*
+	 * Model with 5 days, 4 weeks, 3 months, 2 quarters and semi-annual periods (as in LIBORMarketModelTimeHomogeneousNOCalibration).
+	 */
+	private static LIBORMarketModelWithTenorRefinement createModel(final TimeDiscretization timeDiscretization, final boolean isCreatingTenorDiscretizationOnCall) throws CalculationException {
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				0.5											/* tenor / period length */
+				);
+		final DiscountCurve discountCurve = new DiscountCurveFromForwardCurve(forwardCurve);
+		final AnalyticModel curveModel = new AnalyticModelFromCurvesAndVols(new Curve[] { forwardCurve, discountCurve });
+
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialForm(timeDiscretization, timeDiscretization, -0.3/100.0, 0.2/100.0, 0.3, 0.6/100.0, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecay(timeDiscretization, timeDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModelParametric = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, timeDiscretization, volatilityModel, correlationModel);
+		final TermStructureCovarianceModelInterface covarianceModel = new TermStructCovarianceModelFromLIBORCovarianceModelParametric(null, covarianceModelParametric);
+
+		final TimeDiscretization[] liborPeriodDiscretizations = new TimeDiscretization[] {
+				new TimeDiscretizationFromArray(0.0, lastTime, dt, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.025, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.125, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.25, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.5, ShortPeriodLocation.SHORT_PERIOD_AT_START)
+		};
+		final Integer[] numberOfDiscretizationIntervalls = new Integer[] { 5, 4, 3, 2, 200 };
+
+		if(isCreatingTenorDiscretizationOnCall) {
+			return new LIBORMarketModelWithTenorRefinementWithoutCache(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, curveModel, forwardCurve, discountCurve, covarianceModel);
+		}
+		else {
+			return new LIBORMarketModelWithTenorRefinement(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, curveModel, forwardCurve, discountCurve, covarianceModel, new CalibrationProduct[0], null);
+		}
+	}
+
+	/**
+	 * Reference implementation creating the refined tenor discretization in every call.
+	 */
+	private static class LIBORMarketModelWithTenorRefinementWithoutCache extends LIBORMarketModelWithTenorRefinement {
+
+		private final TimeDiscretization[]	liborPeriodDiscretizations;
+		private final Integer[]				numberOfDiscretizationIntervalls;
+
+		LIBORMarketModelWithTenorRefinementWithoutCache(final TimeDiscretization[] liborPeriodDiscretizations, final Integer[] numberOfDiscretizationIntervalls,
+				final AnalyticModel analyticModel, final ForwardCurve forwardRateCurve, final DiscountCurve discountCurve, final TermStructureCovarianceModelInterface covarianceModel) throws CalculationException {
+			super(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve, covarianceModel, new CalibrationProduct[0], null);
+			this.liborPeriodDiscretizations = liborPeriodDiscretizations;
+			this.numberOfDiscretizationIntervalls = numberOfDiscretizationIntervalls;
+		}
+
+		@Override
+		public TimeDiscretization getLiborPeriodDiscretization(final double time) {
+			final ArrayList<Double> tenorTimes = new ArrayList<>();
+			final double firstTime	= liborPeriodDiscretizations[0].getTime(liborPeriodDiscretizations[0].getTimeIndexNearestLessOrEqual(time));
+			double lastTime		= firstTime;
+			tenorTimes.add(firstTime);
+			for(int discretizationLevelIndex = 0; discretizationLevelIndex<liborPeriodDiscretizations.length; discretizationLevelIndex++) {
+				final int tentorIntervallStartIndex = liborPeriodDiscretizations[discretizationLevelIndex].getTimeIndexNearestLessOrEqual(lastTime)+1;
+				for(int tenorIntervall=0; tenorIntervall<numberOfDiscretizationIntervalls[discretizationLevelIndex]; tenorIntervall++) {
+					if(tentorIntervallStartIndex+tenorIntervall >= liborPeriodDiscretizations[discretizationLevelIndex].getNumberOfTimes()) {
+						break;
+					}
+					lastTime = liborPeriodDiscretizations[discretizationLevelIndex].getTime(tentorIntervallStartIndex+tenorIntervall);
+					lastTime = liborPeriodDiscretizations[0].getTime(liborPeriodDiscretizations[0].getTimeIndexNearestLessOrEqual(lastTime));
+					tenorTimes.add(lastTime);
+				}
+			}
+
+			return new TimeDiscretizationFromArray(tenorTimes);
+		}
+	}
+}
@@ -0,0 +1,473 @@
+/*
+ * (c) Copyright Christian P. Fries, Germany. Contact: email@christian-fries.de.
+ *
+ * Created on 17.10.2026
+ */
+package com.albertozanon.TimeHomogeneousTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.albertozanon.TimeHomogeneouLMM.LIBORMarketModelWithTenorRefinement;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.DiscountCurve;
+import net.finmath.marketdata.model.curves.DiscountCurveFromForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionLazyInit;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
+import net.finmath.montecarlo.interestrate.models.covariance.AbstractLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModelExponentialDecay;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModelFourParameterExponentialForm;
+import net.finmath.montecarlo.interestrate.models.covariance.TermStructCovarianceModelFromLIBORCovarianceModelParametric;
+import net.finmath.montecarlo.interestrate.models.covariance.TermStructureCovarianceModelInterface;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.montecarlo.process.MonteCarloProcess;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+import net.finmath.time.TimeDiscretizationFromArray.ShortPeriodLocation;
+
+/**
+ * Tests for the {@link LIBORMarketModelWithTenorRefinement}, comparing the implementation with reference implementations
+ * reproducing previous versions of the model.
+ *
+ * The simulation time discretization is the finest tenor discretization.
+ */
+public class LIBORMarketModelWithTenorRefinementTest {
+
+	private static final int numberOfPaths		= 1000;
+	private static final int numberOfFactors	= 2;
+
+	private static final double lastTime	= 5.0;
+	private static final double dt			= 0.025;
+
+	public static void main(final String[] args) throws CalculationException {
+		final LIBORMarketModelWithTenorRefinementTest test = new LIBORMarketModelWithTenorRefinementTest();
+		test.testDriftOfTenorRefinement();
+		test.testNumeraireWithDiscountCurve();
+		test.testNumeraireWithoutDiscountCurve();
+		test.testBackwardFromStateComponent();
+		test.testCloneWithModifiedData();
+	}
+
+	/**
+	 * Checks that the simulated paths agree with those of a model calculating the drift of the tenor refinement from
+	 * <code>getStateVariable</code> and the integrated variances of the process (as the implementation did before).
+	 */
+	@Test
+	public void testDriftOfTenorRefinement() throws CalculationException {
+		final TermStructureCovarianceModelInterface covarianceModel = createCovarianceModel(0.20/100.0);
+
+		final LIBORMarketModelWithTenorRefinement model = createModel(covarianceModel, true, null);
+		final LIBORMarketModelWithTenorRefinement modelReference = createModel(LIBORMarketModelWithTenorRefinementWithDriftFromStateVariables::new, covarianceModel, true);
+
+		final BrownianMotion brownianMotion = createBrownianMotion();
+		assertEqualPaths(new EulerSchemeFromProcessModel(model, brownianMotion), new EulerSchemeFromProcessModel(modelReference, brownianMotion), 1E-10);
+	}
+
+	/**
+	 * Checks that the numeraire (calculated from the accrual of the fine periods) agrees with the recursion over the previous numeraires
+	 * (as the implementation did before) for a model with a discount curve (i.e., with the deterministic adjustment of the numeraire).
+	 */
+	@Test
+	public void testNumeraireWithDiscountCurve() throws CalculationException {
+		assertNumeraireEqualsRecursion(true);
+	}
+
+	/**
+	 * Checks that the numeraire (calculated from the accrual of the fine periods) agrees with the recursion over the previous numeraires
+	 * (as the implementation did before) for a model without a discount curve.
+	 */
+	@Test
+	public void testNumeraireWithoutDiscountCurve() throws CalculationException {
+		assertNumeraireEqualsRecursion(false);
+	}
+
+	private void assertNumeraireEqualsRecursion(final boolean isUseDiscountCurve) throws CalculationException {
+		final TermStructureCovarianceModelInterface covarianceModel = createCovarianceModel(0.20/100.0);
+
+		final LIBORMarketModelWithTenorRefinement model = createModel(covarianceModel, isUseDiscountCurve, null);
+		final LIBORMarketModelWithTenorRefinement modelReference = createModel(LIBORMarketModelWithTenorRefinementWithNumeraireRecursion::new, covarianceModel, isUseDiscountCurve);
+
+		final BrownianMotion brownianMotion = createBrownianMotion();
+		final MonteCarloProcess process = new EulerSchemeFromProcessModel(model, brownianMotion);
+		final MonteCarloProcess processReference = new EulerSchemeFromProcessModel(modelReference, brownianMotion);
+
+		// Times of the finest tenor discretization and times in between (log linear interpolation)
+		final TimeDiscretization timeDiscretization = process.getTimeDiscretization();
+		final double[] times = new double[2 * timeDiscretization.getNumberOfTimes() - 1];
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimes(); timeIndex++) {
+			times[2 * timeIndex] = timeDiscretization.getTime(timeIndex);
+			if(timeIndex > 0) {
+				times[2 * timeIndex - 1] = timeDiscretization.getTime(timeIndex-1) + 0.3 * timeDiscretization.getTimeStep(timeIndex-1);
+			}
+		}
+
+		for(final double time : times) {
+			final RandomVariable numeraire = model.getNumeraire(process, time);
+			final RandomVariable numeraireReference = modelReference.getNumeraire(processReference, time);
+
+			Assert.assertEquals("Relative deviation of numeraire " + (isUseDiscountCurve ? "with" : "without") + " discount curve at time " + time, 0.0, numeraire.div(numeraireReference).sub(1.0).abs().getMax(), 1E-12);
+		}
+	}
+
+	/**
+	 * Checks that the backward looking rate obtained from the simulated log accrual (a state component of the process) agrees with the
+	 * rate compounded from the forward rates of the fine periods by <code>getAccrual</code>, for evaluation times within and after the period.
+	 * For a period which is not simulated as a state component the rate is compounded up to the period end.
+	 */
+	@Test
+	public void testBackwardFromStateComponent() throws CalculationException {
+		final TimeDiscretization backwardAccrualPeriodDiscretization = new TimeDiscretizationFromArray(0.5, 1.0, 1.5, 2.0, 3.0);
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("backwardAccrualPeriodDiscretization", backwardAccrualPeriodDiscretization);
+
+		final LIBORMarketModelWithTenorRefinement model = createModel(createCovarianceModel(0.20/100.0), true, properties);
+		final MonteCarloProcess process = new EulerSchemeFromProcessModel(model, createBrownianMotion());
+
+		for(int accrualPeriodIndex = 0; accrualPeriodIndex < backwardAccrualPeriodDiscretization.getNumberOfTimeSteps(); accrualPeriodIndex++) {
+			final double periodStart	= backwardAccrualPeriodDiscretization.getTime(accrualPeriodIndex);
+			final double periodEnd		= backwardAccrualPeriodDiscretization.getTime(accrualPeriodIndex+1);
+			for(final double time : new double[] { periodStart + 0.25, periodEnd, periodEnd + 0.5 }) {
+				final RandomVariable backward = model.getBackward(process, time, periodStart, periodEnd);
+				final RandomVariable backwardFromAccrual = model.getAccrual(process, Math.min(time, periodEnd), periodStart, periodEnd).sub(1.0).div(periodEnd-periodStart);
+
+				Assert.assertEquals("Deviation of backward looking rate from state component for period " + periodStart + " to " + periodEnd + " at time " + time, 0.0, backward.sub(backwardFromAccrual).abs().getMax(), 1E-12);
+			}
+		}
+
+		// A period which is not an accrual period of the state components is compounded up to the period end
+		final RandomVariable backwardAfterPeriodEnd = model.getBackward(process, 2.5, 0.5, 1.5);
+		final RandomVariable backwardAtPeriodEnd = model.getBackward(process, 1.5, 0.5, 1.5);
+		Assert.assertEquals("Backward looking rate after period end", 0.0, backwardAfterPeriodEnd.sub(backwardAtPeriodEnd).abs().getMax(), 0.0);
+	}
+
+	/**
+	 * Checks that a clone with a modified random variable factory (sharing the scaled tenor times of the model) simulates the paths of the model and
+	 * that a clone with a modified covariance model simulates the paths of a model created with this covariance model.
+	 */
+	@Test
+	public void testCloneWithModifiedData() throws CalculationException {
+		final TermStructureCovarianceModelInterface covarianceModelModified = createCovarianceModel(0.30/100.0);
+
+		final LIBORMarketModelWithTenorRefinement model = createModel(createCovarianceModel(0.20/100.0), true, null);
+		final LIBORMarketModelWithTenorRefinement modelWithModifiedCovarianceModel = createModel(covarianceModelModified, true, null);
+
+		final Map<String, Object> dataModifiedRandomVariableFactory = new HashMap<>();
+		dataModifiedRandomVariableFactory.put("randomVariableFactory", new RandomVariableFromArrayFactory());
+		final Map<String, Object> dataModifiedCovarianceModel = new HashMap<>();
+		dataModifiedCovarianceModel.put("covarianceModel", covarianceModelModified);
+
+		final BrownianMotion brownianMotion = createBrownianMotion();
+		assertEqualPaths(new EulerSchemeFromProcessModel(model, brownianMotion),
+				new EulerSchemeFromProcessModel((LIBORMarketModelWithTenorRefinement)model.getCloneWithModifiedData(dataModifiedRandomVariableFactory), brownianMotion), 1E-15);
+		assertEqualPaths(new EulerSchemeFromProcessModel(modelWithModifiedCovarianceModel, brownianMotion),
+				new EulerSchemeFromProcessModel((LIBORMarketModelWithTenorRefinement)model.getCloneWithModifiedData(dataModifiedCovarianceModel), brownianMotion), 1E-15);
+	}
+
+	private static void assertEqualPaths(final MonteCarloProcess process, final MonteCarloProcess processReference, final double tolerance) throws CalculationException {
+		for(int timeIndex = 0; timeIndex < process.getTimeDiscretization().getNumberOfTimes(); timeIndex++) {
+			for(int componentIndex = 0; componentIndex < process.getNumberOfComponents(); componentIndex++) {
+				Assert.assertEquals("Deviation of component " + componentIndex + " at time index " + timeIndex, 0.0,
+						process.getProcessValue(timeIndex, componentIndex).sub(processReference.getProcessValue(timeIndex, componentIndex)).abs().getMax(), tolerance);
+			}
+		}
+	}
+
+	/*
+	 * Constructor of the model or of a reference implementation.
+	 */
+	private interface ModelConstructor {
+		LIBORMarketModelWithTenorRefinement create(TimeDiscretization[] liborPeriodDiscretizations, Integer[] numberOfDiscretizationIntervalls,
+				AnalyticModel analyticModel, ForwardCurve forwardRateCurve, DiscountCurve discountCurve, TermStructureCovarianceModelInterface covarianceModel) throws CalculationException;
+	}
+
+	private static LIBORMarketModelWithTenorRefinement createModel(final TermStructureCovarianceModelInterface covarianceModel, final boolean isUseDiscountCurve, final Map<String, Object> properties) throws CalculationException {
+		return createModel(
+				(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve, covarianceModelOfModel) ->
+				new LIBORMarketModelWithTenorRefinement(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve, covarianceModelOfModel, new CalibrationProduct[0], properties),
+				covarianceModel, isUseDiscountCurve);
+	}
+
+	/*
+	 * Creates a model on the tenor discretizations of createLiborPeriodDiscretizations() using 4, 3, 2 and all remaining periods of them,
+	 * with the forward curve of createForwardCurve() and, if requested, the discount curve obtained from the forward curve.
+	 */
+	private static LIBORMarketModelWithTenorRefinement createModel(final ModelConstructor constructor, final TermStructureCovarianceModelInterface covarianceModel, final boolean isUseDiscountCurve) throws CalculationException {
+		final Integer[] numberOfDiscretizationIntervalls = new Integer[] { 4, 3, 2, 200 };
+		final ForwardCurve forwardCurve = createForwardCurve();
+		final DiscountCurve discountCurve = isUseDiscountCurve ? new DiscountCurveFromForwardCurve(forwardCurve) : null;
+		final AnalyticModel curveModel = isUseDiscountCurve ? new AnalyticModelFromCurvesAndVols(new Curve[] { forwardCurve, discountCurve }) : new AnalyticModelFromCurvesAndVols(new Curve[] { forwardCurve });
+
+		return constructor.create(createLiborPeriodDiscretizations(), numberOfDiscretizationIntervalls, curveModel, forwardCurve, discountCurve, covarianceModel);
+	}
+
+	/*
+	 * The Brownian motion on the simulation time discretization, i.e., the finest tenor discretization.
+	 */
+	private static BrownianMotion createBrownianMotion() {
+		return new BrownianMotionLazyInit(createLiborPeriodDiscretizations()[0], numberOfFactors, numberOfPaths, 31415 /* seed */);
+	}
+
+	/*
+	 * Tenor discretizations with periods of 9 days (the simulation time step), 1.5 months, 3 months and 6 months.
+	 */
+	private static TimeDiscretization[] createLiborPeriodDiscretizations() {
+		return new TimeDiscretization[] {
+				new TimeDiscretizationFromArray(0.0, lastTime, dt, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.125, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.25, ShortPeriodLocation.SHORT_PERIOD_AT_START),
+				new TimeDiscretizationFromArray(0.0, lastTime, 0.5, ShortPeriodLocation.SHORT_PERIOD_AT_START)
+		};
+	}
+
+	private static ForwardCurve createForwardCurve() {
+		return ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve"								/* name of the curve */,
+				new double[] {0.5 , 1.0 , 2.0 , 5.0 , 40.0}	/* fixings of the forward */,
+				new double[] {0.01, 0.01, 0.02, 0.03, 0.04}	/* forwards */,
+				0.5											/* tenor / period length */
+				);
+	}
+
+	/*
+	 * The covariance model on the simulation time discretization (the finest tenor discretization) with the given parameter a of the volatility.
+	 */
+	private static TermStructureCovarianceModelInterface createCovarianceModel(final double volatilityParameterA) {
+		final TimeDiscretization timeDiscretization = createLiborPeriodDiscretizations()[0];
+		final LIBORVolatilityModel volatilityModel = new LIBORVolatilityModelFourParameterExponentialForm(timeDiscretization, timeDiscretization, volatilityParameterA, 0.05/100.0, 0.15, 0.5/100.0, false);
+		final LIBORCorrelationModel correlationModel = new LIBORCorrelationModelExponentialDecay(timeDiscretization, timeDiscretization, numberOfFactors, 0.05, false);
+		final AbstractLIBORCovarianceModelParametric covarianceModelParametric = new LIBORCovarianceModelFromVolatilityAndCorrelation(timeDiscretization, timeDiscretization, volatilityModel, correlationModel);
+		return new TermStructCovarianceModelFromLIBORCovarianceModelParametric(null, covarianceModelParametric);
+	}
+
+	/**
+	 * Reference implementation calculating the numeraire at a time of the finest tenor discretization by accruing the numeraire of the previous time
+	 * (as the implementation did before). The numeraires of a single process are cached.
+	 */
+	private static class LIBORMarketModelWithTenorRefinementWithNumeraireRecursion extends LIBORMarketModelWithTenorRefinement {
+
+		private final TimeDiscretization	tenorDiscretization;
+		private final AnalyticModel			curveModel;
+		private final DiscountCurve			discountCurve;
+
+		private final Map<Integer, RandomVariable>	numeraires = new HashMap<>();
+		private MonteCarloProcess					numerairesProcess = null;
+
+		LIBORMarketModelWithTenorRefinementWithNumeraireRecursion(final TimeDiscretization[] liborPeriodDiscretizations, final Integer[] numberOfDiscretizationIntervalls,
+				final AnalyticModel analyticModel, final ForwardCurve forwardRateCurve, final DiscountCurve discountCurve, final TermStructureCovarianceModelInterface covarianceModel) throws CalculationException {
+			super(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve, covarianceModel, new CalibrationProduct[0], null);
+			tenorDiscretization = liborPeriodDiscretizations[0];
+			curveModel = analyticModel;
+			this.discountCurve = discountCurve;
+		}
+
+		@Override
+		public synchronized RandomVariable getNumeraire(final MonteCarloProcess process, final double time) throws CalculationException {
+			final int timeIndex = tenorDiscretization.getTimeIndex(time);
+			if(timeIndex < 0) {
+				// Interpolation of Numeraire: log linear interpolation.
+				final int upperIndex = -timeIndex-1;
+				final int lowerIndex = upperIndex-1;
+				final double alpha = (time-tenorDiscretization.getTime(lowerIndex)) / (tenorDiscretization.getTime(upperIndex) - tenorDiscretization.getTime(lowerIndex));
+				final RandomVariable numeraire = getNumeraire(process, tenorDiscretization.getTime(upperIndex)).log().mult(alpha).add(getNumeraire(process, tenorDiscretization.getTime(lowerIndex)).log().mult(1.0-alpha)).exp();
+
+				return getNumeraireAdjustedForDiscounting(numeraire, time);
+			}
+
+			if(process != numerairesProcess) {
+				numeraires.clear();
+				numerairesProcess = process;
+			}
+
+			RandomVariable numeraire = numeraires.get(timeIndex);
+			if(numeraire == null) {
+				if(timeIndex == 0) {
+					numeraire = process.getStochasticDriver().getRandomVariableForConstant(1.0);
+				}
+				else {
+					// Initialize to previous numeraire
+					numeraire = getNumeraire(process, tenorDiscretization.getTime(timeIndex-1));
+
+					final double periodStart	= tenorDiscretization.getTime(timeIndex-1);
+					final double periodEnd		= tenorDiscretization.getTime(timeIndex);
+					final RandomVariable libor = getLIBOR(process, periodStart, periodStart, periodEnd);
+
+					numeraire = numeraire.accrue(libor, periodEnd-periodStart);
+				}
+				numeraires.put(timeIndex, numeraire);
+			}
+
+			return getNumeraireAdjustedForDiscounting(numeraire, time);
+		}
+
+		private RandomVariable getNumeraireAdjustedForDiscounting(final RandomVariable numeraire, final double time) {
+			if(discountCurve == null) {
+				return numeraire;
+			}
+
+			final double deterministicNumeraireAdjustment = numeraire.invert().getAverage() / discountCurve.getDiscountFactor(curveModel, time);
+			return numeraire.mult(deterministicNumeraireAdjustment);
+		}
+	}
+
+	/**
+	 * Reference implementation calculating the drift of the tenor refinement from <code>getStateVariable</code> and the integrated variances
+	 * of the process for each period of the previous and the next tenor discretization (as the implementation did before).
+	 * Backward accruals are not supported.
+	 */
+	private static class LIBORMarketModelWithTenorRefinementWithDriftFromStateVariables extends LIBORMarketModelWithTenorRefinement {
+
+		private final TimeDiscretization	tenorDiscretization;
+
+		LIBORMarketModelWithTenorRefinementWithDriftFromStateVariables(final TimeDiscretization[] liborPeriodDiscretizations, final Integer[] numberOfDiscretizationIntervalls,
+				final AnalyticModel analyticModel, final ForwardCurve forwardRateCurve, final DiscountCurve discountCurve, final TermStructureCovarianceModelInterface covarianceModel) throws CalculationException {
+			super(liborPeriodDiscretizations, numberOfDiscretizationIntervalls, analyticModel, forwardRateCurve, discountCurve, covarianceModel, new CalibrationProduct[0], null);
+			tenorDiscretization = liborPeriodDiscretizations[0];
+		}
+
+		@Override
+		public RandomVariable[] getDrift(final MonteCarloProcess process, final int timeIndex, final RandomVariable[] realizationAtTimeIndex, final RandomVariable[] realizationPredictor) {
+			final double	time				= process.getTime(timeIndex);
+			final double	timeStep			= process.getTimeDiscretization().getTimeStep(timeIndex);
+			final double	timeNext			= process.getTime(timeIndex+1);
+
+			final RandomVariable		zero	= process.getStochasticDriver().getRandomVariableForConstant(0.0);
+
+			final RandomVariable[]	drift = new RandomVariable[getNumberOfComponents()];
+
+			final RandomVariable[]	variances	= new RandomVariable[getNumberOfComponents()];
+			for(int componentIndex=0; componentIndex<getNumberOfComponents(); componentIndex++) {
+				variances[componentIndex] = zero;
+			}
+
+			final RandomVariable[]	covarianceFactorSums	= new RandomVariable[getNumberOfFactors()];
+			for(int factorIndex=0; factorIndex<covarianceFactorSums.length; factorIndex++) {
+				covarianceFactorSums[factorIndex] = zero;
+			}
+
+			/*
+			 * Standard HJM drift part of log-forward-bond
+			 */
+			final TimeDiscretization liborPeriodDiscretization = getLiborPeriodDiscretization(timeNext);
+			for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
+				drift[componentIndex] = zero;
+
+				final double periodStart	= liborPeriodDiscretization.getTime(componentIndex);
+				final double periodEnd		= liborPeriodDiscretization.getTime(componentIndex+1);
+				final double tenorTime		= getCovarianceModel().getScaledTenorTime(periodStart, periodEnd);
+
+				final RandomVariable[]	factorLoading   	= getFactorLoading(process, timeIndex, componentIndex, realizationAtTimeIndex);
+				final double weight = getWeightForTenorRefinement(periodStart, periodEnd);
+				for(int factorIndex=0; factorIndex<factorLoading.length; factorIndex++) {
+					drift[componentIndex] = drift[componentIndex].addProduct(covarianceFactorSums[factorIndex].addProduct(factorLoading[factorIndex], weight),factorLoading[factorIndex]);
+					variances[componentIndex] = variances[componentIndex].addProduct(factorLoading[factorIndex], factorLoading[factorIndex]);
+					covarianceFactorSums[factorIndex] = covarianceFactorSums[factorIndex].addProduct(factorLoading[factorIndex],tenorTime);
+				}
+			}
+
+			/*
+			 * Change of tenor discretization - impact on log-forward-bond
+			 */
+			final TimeDiscretization liborPeriodDiscretizationPrevious = getLiborPeriodDiscretization(time);
+			for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
+				final double periodStart			= liborPeriodDiscretization.getTime(componentIndex);
+				final double periodEnd				= liborPeriodDiscretization.getTime(componentIndex+1);
+				final double periodStartPrevious	= liborPeriodDiscretizationPrevious.getTime(componentIndex);
+				final double periodEndPrevious		= liborPeriodDiscretizationPrevious.getTime(componentIndex+1);
+
+				if(periodStartPrevious == periodStart && periodEndPrevious == periodEnd) {
+					continue;
+				}
+
+				final RandomVariable stateVariablePrevious	= getStateVariable(process, timeIndex, periodStartPrevious, periodEndPrevious);
+				final RandomVariable stateVariable			= getStateVariable(process, timeIndex, periodStart, periodEnd);
+
+				drift[componentIndex] = drift[componentIndex].add(stateVariable.sub(stateVariablePrevious).div(timeStep));
+			}
+
+			/*
+			 * Integrated variance - drift part
+			 */
+			for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
+				drift[getNumberOfLibors()+componentIndex] = variances[componentIndex];
+			}
+
+			/*
+			 * Change of tenor discretization - impact on integrated variance
+			 */
+			for(int componentIndex=0; componentIndex<liborPeriodDiscretization.getNumberOfTimeSteps(); componentIndex++) {
+				final double periodStart			= liborPeriodDiscretization.getTime(componentIndex);
+				final double periodEnd				= liborPeriodDiscretization.getTime(componentIndex+1);
+				final double periodStartPrevious	= liborPeriodDiscretizationPrevious.getTime(componentIndex);
+				final double periodEndPrevious		= liborPeriodDiscretizationPrevious.getTime(componentIndex+1);
+
+				if(periodStartPrevious == periodStart && periodEndPrevious == periodEnd) {
+					continue;
+				}
+
+				final RandomVariable stateVariablePrevious	= getIntegratedVariance(process, timeIndex, periodStartPrevious, periodEndPrevious);
+				final RandomVariable stateVariable			= getIntegratedVariance(process, timeIndex, periodStart, periodEnd);
+
+				drift[getNumberOfLibors()+componentIndex] = drift[getNumberOfLibors()+componentIndex].add(stateVariable.sub(stateVariablePrevious).div(timeStep));
+			}
+
+			return drift;
+		}
+
+		/*
+		 * The integrated variance of the period of the tenor discretization at the given time index containing the given period.
+		 */
+		private RandomVariable getIntegratedVariance(final MonteCarloProcess process, final int timeIndex, final double periodStart, final double periodEnd) {
+			final TimeDiscretization liborPeriodDiscretization = getLiborPeriodDiscretization(process.getTime(timeIndex));
+
+			int periodStartIndex = liborPeriodDiscretization.getTimeIndex(periodStart);
+			int periodEndIndex = liborPeriodDiscretization.getTimeIndex(periodEnd);
+			if(periodStartIndex < 0) {
+				periodStartIndex = -periodStartIndex-1-1;
+			}
+			if(periodEndIndex < 0) {
+				periodEndIndex = -periodEndIndex-1;
+			}
+			if(periodEndIndex != periodStartIndex+1) {
+				throw new IllegalArgumentException();
+			}
+
+			try {
+				return process.getProcessValue(timeIndex, getNumberOfLibors()+periodStartIndex);
+			}
+			catch(final CalculationException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		/*
+		 * The tenor refinement weight of a period of the finest tenor discretization, calculated from the scaled tenor times of the covariance model.
+		 */
+		private double getWeightForTenorRefinement(final double periodStart, final double periodEnd) {
+			final int periodStartIndex = tenorDiscretization.getTimeIndex(periodStart);
+			final int periodEndIndex = tenorDiscretization.getTimeIndex(periodEnd);
+
+			double weight = 0.0;
+			for(int periodIndex = periodStartIndex; periodIndex<periodEndIndex; periodIndex++) {
+				final double deltaT = getCovarianceModel().getScaledTenorTime(tenorDiscretization.getTime(periodIndex), tenorDiscretization.getTime(periodIndex+1));
+				final double deltaTSum = getCovarianceModel().getScaledTenorTime(periodStart, tenorDiscretization.getTime(periodIndex+1));
+				weight +=  deltaT * deltaTSum;
+			}
+			return weight / getCovarianceModel().getScaledTenorTime(periodStart, periodEnd);
+		}
+	}
+}